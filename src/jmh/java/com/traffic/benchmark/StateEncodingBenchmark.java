@@ -0,0 +1,65 @@
+package com.traffic.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.dto.TrafficStateResponse;
+import com.traffic.model.TrafficPhase;
+import com.traffic.service.StateBinaryEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding one state frame as JSON (the default stream encoding) versus the fixed binary record.
+ * Payload sizes are printed once per fork.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateEncodingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private TrafficStateResponse state;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Configured like the application's mapper, including java.time support
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        state = TrafficStateResponse.builder()
+                .timeStep(1_234L)
+                .timestamp(LocalDateTime.of(2025, 6, 1, 8, 30, 15))
+                .vehiclesNorth(12).vehiclesSouth(9).vehiclesEast(23).vehiclesWest(17)
+                .pedestriansNorth(3).pedestriansSouth(0).pedestriansEast(5).pedestriansWest(2)
+                .currentPhase(TrafficPhase.PHASE_2)
+                .currentGreenTime(14)
+                .calculatedGreenTime(27)
+                .phase1Density(21.5)
+                .phase2Density(40.25)
+                .build();
+
+        System.out.printf("%nPayload size: json=%d bytes, binary=%d bytes%n",
+                objectMapper.writeValueAsBytes(state).length, StateBinaryEncoder.encode(state).length);
+    }
+
+    @Benchmark
+    public byte[] json() throws Exception {
+        return objectMapper.writeValueAsBytes(state);
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return StateBinaryEncoder.encode(state);
+    }
+}
@@ -0,0 +1,95 @@
+package com.traffic.benchmark;
+
+import com.traffic.dto.TrafficStateResponse;
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficScenario;
+import com.traffic.model.TrafficState;
+import com.traffic.service.TrafficEngine;
+import com.traffic.service.TrafficEngineFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The simulation engine per scenario preset of {@link com.traffic.controller.ScenarioController}: one full step
+ * and its parts. Inputs are a fixed trace of {@value #TRACE_LENGTH} states from {@link TrafficEngineFixtures}, the
+ * same seeded run the engine tests check, and the random generator is reseeded every iteration, so two runs on the
+ * same build do identical work. Run with {@code -prof gc} (the profile's default arguments) for the allocation
+ * rate, and keep a baseline with {@code -rf json -rff target/engine-baseline.json} to compare an engine change against.
+ * <p>
+ * Engine logging is raised to WARN so the numbers are the model's, not the console's.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrafficEngineBenchmark {
+
+    private static final int TRACE_LENGTH = 1024;
+
+    @Param({"BALANCED", "HEAVY_NS", "RUSH_HOUR"})
+    public TrafficScenario scenario;
+
+    private SimulationConfig config;
+    private TrafficState[] trace;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        TrafficEngineFixtures.quietEngineLogging();
+        config = TrafficEngineFixtures.presetConfig(scenario);
+        // The trace keeps the states the engine actually visits
+        trace = TrafficEngineFixtures.trace(config, TRACE_LENGTH).toArray(TrafficState[]::new);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        random = new SplittableRandom(TrafficEngineFixtures.SEED);
+        next = 0;
+    }
+
+    private TrafficState nextInput() {
+        TrafficState state = trace[next];
+        next = (next + 1) & (TRACE_LENGTH - 1);
+        return state;
+    }
+
+    @Benchmark
+    public TrafficState calculateNextState() {
+        return TrafficEngine.nextState(nextInput(), config, random);
+    }
+
+    @Benchmark
+    public int calculateAdaptiveGreenTime() {
+        return TrafficEngine.calculateAdaptiveGreenTime(nextInput(), config);
+    }
+
+    @Benchmark
+    public boolean shouldSwitchPhase() {
+        return TrafficEngine.shouldSwitchPhase(nextInput(), config);
+    }
+
+    @Benchmark
+    public int generateArrivals() {
+        return TrafficEngine.generateArrivals(config.getLambdaNorth(), random);
+    }
+
+    @Benchmark
+    public TrafficStateResponse convertToResponse() {
+        return TrafficStateResponse.from(nextInput());
+    }
+}
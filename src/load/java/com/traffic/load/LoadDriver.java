@@ -0,0 +1,280 @@
+package com.traffic.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.traffic.TrafficLightSystemApplication;
+import com.traffic.util.LatencyHistogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capacity run: how many simulations one node keeps ticking at 1 Hz. Simulations are created and started
+ * through the REST API in growing stages; after each stage has settled, tick lag, persistence time and
+ * WebSocket delivery latency are measured over a fixed window and the stage passes if the 99th percentiles stay
+ * within budget. The capacity is the largest stage that passed. Tick lag and persistence come from two scrapes of
+ * {@code /actuator/prometheus}; delivery is measured by a {@link StateStreamObserver} on a sample of simulations.
+ * <p>
+ * Without {@code load.url} the application is started in this JVM on a random port, with SQL logging off and
+ * per-simulation meter tags off so that scrapes stay small. Against a running instance, give its base URL including
+ * the context path; it needs {@code traffic.metrics.percentile-histograms} on. Everything is local: nothing but
+ * the target instance is contacted.
+ * <p>
+ * Settings are system properties:
+ * <pre>
+ * load.url              base URL of a running instance, e.g. http://127.0.0.1:8080/api (default: start in-process)
+ * load.stages           running simulations per stage (100,250,500,1000,2000,4000)
+ * load.settle-seconds   wait after a stage is reached before measuring (10)
+ * load.measure-seconds  measurement window per stage (60)
+ * load.observed         simulations whose state stream is watched (50)
+ * load.sessions         WebSocket sessions the watched streams are spread over (4)
+ * load.client-threads   concurrent REST calls while ramping (16)
+ * load.tick-budget-ms   tick lag p99 a stage may reach (100)
+ * load.delivery-budget-ms  WebSocket delivery p99 a stage may reach (250)
+ * load.keep-going       measure the remaining stages after one fails (false)
+ * load.report           Markdown report file (target/load-report.md)
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final int TIME_STEP_MILLIS = 1000;
+    private static final int DURATION_SECONDS = 3600; // Largest the API accepts; simulations are stopped at the end
+
+    private static final String TICK_DELAY = "traffic_simulation_tick_delay_seconds";
+    private static final String PERSIST = "traffic_simulation_persist_seconds";
+    private static final String STEP = "traffic_simulation_step_seconds";
+    private static final String BROADCAST = "traffic_simulation_broadcast_seconds";
+
+    private final int[] stages = Arrays.stream(System.getProperty("load.stages", "100,250,500,1000,2000,4000").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+    private final long settleSeconds = Long.getLong("load.settle-seconds", 10);
+    private final long measureSeconds = Long.getLong("load.measure-seconds", 60);
+    private final int observed = Integer.getInteger("load.observed", 50);
+    private final int sessions = Integer.getInteger("load.sessions", 4);
+    private final int clientThreads = Integer.getInteger("load.client-threads", 16);
+    private final double tickBudgetMs = Double.parseDouble(System.getProperty("load.tick-budget-ms", "100"));
+    private final double deliveryBudgetMs = Double.parseDouble(System.getProperty("load.delivery-budget-ms", "250"));
+    private final boolean keepGoing = Boolean.getBoolean("load.keep-going");
+    private final Path reportFile = Path.of(System.getProperty("load.report", "target/load-report.md"));
+
+    private final RestClient rest;
+    private final String webSocketUrl;
+    private final ExecutorService clients = Executors.newFixedThreadPool(clientThreads);
+    private final List<String> simulations = new ArrayList<>();
+    private final List<StageResult> results = new ArrayList<>();
+
+    private LoadDriver(String baseUrl) {
+        this.rest = RestClient.create(baseUrl);
+        this.webSocketUrl = baseUrl.replaceFirst("^http", "ws") + "/ws-raw";
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("load.url");
+        ConfigurableApplicationContext context = null;
+        if (url == null || url.isBlank()) {
+            context = startInProcess();
+            url = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+        }
+        try {
+            new LoadDriver(url).run();
+        } finally {
+            if (context != null) context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startInProcess() {
+        // Command-line arguments, so that they win over application.yml
+        return new SpringApplicationBuilder(TrafficLightSystemApplication.class).run(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--spring.devtools.restart.enabled=false",
+                "--traffic.metrics.simulation-tags=false",
+                "--traffic.metrics.percentile-histograms=true",
+                "--logging.level.com.traffic=WARN",
+                "--logging.level.org.springframework.orm.jpa=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    }
+
+    private void run() throws Exception {
+        try (StateStreamObserver observer = new StateStreamObserver(webSocketUrl, sessions)) {
+            for (int target : stages) {
+                int failures = rampTo(target);
+                while (observer.subscriptions() < Math.min(observed, simulations.size())) {
+                    observer.observe(simulations.get(observer.subscriptions()));
+                }
+                log("stage %d: %d running, %d failed to start; settling %d s", target, simulations.size(), failures, settleSeconds);
+                TimeUnit.SECONDS.sleep(settleSeconds);
+
+                PrometheusHistograms before = scrape();
+                observer.reset();
+                TimeUnit.SECONDS.sleep(measureSeconds);
+                PrometheusHistograms after = scrape();
+                LatencyHistogram delivery = observer.reset();
+
+                StageResult result = new StageResult(target, simulations.size(), failures, after, before, delivery,
+                        observer.subscriptions() * measureSeconds * 1000 / TIME_STEP_MILLIS);
+                results.add(result);
+                log("stage %d: %s", target, result.passed() ? "passed" : "FAILED " + result.reason());
+                if (!result.passed() && !keepGoing) break;
+            }
+        } finally {
+            stopAll();
+            clients.shutdownNow();
+        }
+        writeReport();
+    }
+
+    /** Creates and starts simulations until {@code target} are running; returns how many could not be started. */
+    private int rampTo(int target) throws InterruptedException {
+        List<Callable<String>> starts = new ArrayList<>();
+        for (int i = simulations.size(); i < target; i++) {
+            int index = i;
+            starts.add(() -> createAndStart(index));
+        }
+        int failures = 0;
+        for (Future<String> start : clients.invokeAll(starts)) {
+            try {
+                simulations.add(start.get());
+            } catch (Exception e) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    private String createAndStart(int index) {
+        JsonNode created = rest.post().uri("/simulations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("name", "load-" + index, "scenario", "BALANCED"))
+                .retrieve()
+                .body(JsonNode.class);
+        String simulationId = created.path("data").asText();
+        rest.post().uri("/simulations/{id}/start", simulationId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("durationSeconds", DURATION_SECONDS, "timeStepMillis", TIME_STEP_MILLIS))
+                .retrieve()
+                .toBodilessEntity();
+        return simulationId;
+    }
+
+    private PrometheusHistograms scrape() {
+        return PrometheusHistograms.parse(rest.get().uri("/actuator/prometheus")
+                .accept(MediaType.TEXT_PLAIN)
+                .retrieve()
+                .body(String.class));
+    }
+
+    private void stopAll() throws InterruptedException {
+        List<Callable<Void>> stops = new ArrayList<>();
+        for (String simulationId : simulations) {
+            stops.add(() -> {
+                rest.post().uri("/simulations/{id}/stop", simulationId).retrieve().toBodilessEntity();
+                return null;
+            });
+        }
+        clients.invokeAll(stops);
+    }
+
+    private void writeReport() throws IOException {
+        StringBuilder report = new StringBuilder()
+                .append("# Simulation capacity report\n\n")
+                .append(String.format("%s, %d s windows after %d s settling, %d ms time step, %d cores, max heap %d MB.%n",
+                        LocalDateTime.now().withNano(0), measureSeconds, settleSeconds, TIME_STEP_MILLIS,
+                        Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() >> 20))
+                .append(String.format("Budgets: tick lag p99 <= %.0f ms, WebSocket delivery p99 <= %.0f ms.%n%n",
+                        tickBudgetMs, deliveryBudgetMs))
+                .append("| target | running | start failures | ticks | tick lag p50 / p99 / max ms | step p99 ms"
+                        + " | broadcast p99 ms | persist p50 / p99 ms | frames | delivery p50 / p99 / max ms | result |\n")
+                .append("|---|---|---|---|---|---|---|---|---|---|---|\n");
+        results.forEach(result -> report.append(result.row()).append('\n'));
+        int capacity = results.stream().filter(StageResult::passed).mapToInt(StageResult::target).max().orElse(0);
+        report.append(String.format("%nCapacity: %s%n", capacity > 0
+                ? capacity + " concurrent simulations at 1 Hz"
+                : "no stage passed"));
+
+        System.out.println();
+        System.out.print(report);
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        Files.writeString(reportFile, report);
+        log("report written to %s", reportFile.toAbsolutePath());
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf("[load] " + format + "%n", args);
+    }
+
+    private final class StageResult {
+        private final int target;
+        private final int running;
+        private final int failures;
+        private final long ticks;
+        private final double tickP50;
+        private final double tickP99;
+        private final double tickMax;
+        private final double stepP99;
+        private final double broadcastP99;
+        private final double persistP50;
+        private final double persistP99;
+        private final long frames;
+        private final long expectedFrames;
+        private final LatencyHistogram delivery;
+
+        private StageResult(int target, int running, int failures, PrometheusHistograms after,
+                            PrometheusHistograms before, LatencyHistogram delivery, long expectedFrames) {
+            this.target = target;
+            this.running = running;
+            this.failures = failures;
+            this.ticks = after.count(TICK_DELAY, before);
+            this.tickP50 = after.percentileMillis(TICK_DELAY, before, 50);
+            this.tickP99 = after.percentileMillis(TICK_DELAY, before, 99);
+            this.tickMax = after.maxMillis(TICK_DELAY);
+            this.stepP99 = after.percentileMillis(STEP, before, 99);
+            this.broadcastP99 = after.percentileMillis(BROADCAST, before, 99);
+            this.persistP50 = after.percentileMillis(PERSIST, before, 50);
+            this.persistP99 = after.percentileMillis(PERSIST, before, 99);
+            this.frames = delivery.count();
+            this.expectedFrames = expectedFrames;
+            this.delivery = delivery;
+        }
+
+        int target() {
+            return target;
+        }
+
+        boolean passed() {
+            return reason() == null;
+        }
+
+        String reason() {
+            if (failures > 0) return failures + " simulations failed to start";
+            if (ticks == 0) return "no ticks recorded";
+            if (!(tickP99 <= tickBudgetMs)) return String.format("tick lag p99 %.1f ms", tickP99);
+            if (frames == 0 && expectedFrames > 0) return "no state frames delivered";
+            if (delivery.percentile(99) > deliveryBudgetMs) return "delivery p99 " + delivery.percentile(99) + " ms";
+            return null;
+        }
+
+        String row() {
+            return String.format("| %d | %d | %d | %d | %.1f / %.1f / %.1f | %.2f | %.2f | %.2f / %.2f | %d of %d | %d / %d / %d | %s |",
+                    target, running, failures, ticks, tickP50, tickP99, tickMax, stepP99, broadcastP99,
+                    persistP50, persistP99, frames, expectedFrames,
+                    delivery.percentile(50), delivery.percentile(99), delivery.max(),
+                    passed() ? "pass" : "fail: " + reason());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.traffic.load;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Histograms read from one scrape of {@code /actuator/prometheus}, summed over all label sets, so that a
+ * per-simulation series and the untagged series give the same percentiles. Two scrapes are subtracted to get
+ * the distribution of one measurement window.
+ */
+final class PrometheusHistograms {
+
+    private static final Pattern SAMPLE = Pattern.compile("^(\\w+)(?:\\{(.*)\\})?\\s+(\\S+)");
+    private static final Pattern LE = Pattern.compile("le=\"([^\"]+)\"");
+
+    // metric -> upper bound (seconds) -> cumulative count
+    private final Map<String, NavigableMap<Double, Double>> buckets = new HashMap<>();
+    private final Map<String, Double> maxima = new HashMap<>();
+
+    private PrometheusHistograms() {
+    }
+
+    static PrometheusHistograms parse(String exposition) {
+        PrometheusHistograms result = new PrometheusHistograms();
+        for (String line : exposition.split("\n")) {
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            Matcher sample = SAMPLE.matcher(line);
+            if (!sample.find()) continue;
+            String name = sample.group(1);
+            double value = Double.parseDouble(sample.group(3));
+            if (name.endsWith("_bucket") && sample.group(2) != null) {
+                Matcher le = LE.matcher(sample.group(2));
+                if (!le.find()) continue;
+                double bound = "+Inf".equals(le.group(1)) ? Double.POSITIVE_INFINITY : Double.parseDouble(le.group(1));
+                result.buckets.computeIfAbsent(name.substring(0, name.length() - "_bucket".length()), n -> new TreeMap<>())
+                        .merge(bound, value, Double::sum);
+            } else if (name.endsWith("_max")) {
+                result.maxima.merge(name.substring(0, name.length() - "_max".length()), value, Math::max);
+            }
+        }
+        return result;
+    }
+
+    /** Observations of {@code metric} between {@code earlier} and this scrape. */
+    long count(String metric, PrometheusHistograms earlier) {
+        NavigableMap<Double, Double> window = window(metric, earlier);
+        return window.isEmpty() ? 0 : Math.round(window.lastEntry().getValue());
+    }
+
+    /** Percentile in milliseconds of the observations between {@code earlier} and this scrape, interpolated within a bucket. */
+    double percentileMillis(String metric, PrometheusHistograms earlier, double percentile) {
+        NavigableMap<Double, Double> window = window(metric, earlier);
+        if (window.isEmpty() || window.lastEntry().getValue() <= 0) return Double.NaN;
+        double target = window.lastEntry().getValue() * percentile / 100.0;
+        double previousBound = 0;
+        double previousCount = 0;
+        for (Map.Entry<Double, Double> bucket : window.entrySet()) {
+            if (bucket.getValue() >= target) {
+                if (bucket.getKey().isInfinite()) return previousBound * 1000;
+                double inBucket = bucket.getValue() - previousCount;
+                double fraction = inBucket > 0 ? (target - previousCount) / inBucket : 1;
+                return (previousBound + fraction * (bucket.getKey() - previousBound)) * 1000;
+            }
+            previousBound = bucket.getKey();
+            previousCount = bucket.getValue();
+        }
+        return previousBound * 1000;
+    }
+
+    /** Largest recent observation in milliseconds, as reported by the registry's decaying maximum. */
+    double maxMillis(String metric) {
+        return maxima.getOrDefault(metric, Double.NaN) * 1000;
+    }
+
+    private NavigableMap<Double, Double> window(String metric, PrometheusHistograms earlier) {
+        NavigableMap<Double, Double> now = buckets.getOrDefault(metric, new TreeMap<>());
+        NavigableMap<Double, Double> before = earlier.buckets.getOrDefault(metric, new TreeMap<>());
+        NavigableMap<Double, Double> window = new TreeMap<>();
+        now.forEach((bound, count) -> window.put(bound, count - before.getOrDefault(bound, 0.0)));
+        return window;
+    }
+}
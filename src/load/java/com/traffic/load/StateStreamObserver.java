@@ -0,0 +1,98 @@
+package com.traffic.load;
+
+import com.traffic.util.LatencyHistogram;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Subscribes to the binary state stream of a sample of simulations over the plain WebSocket endpoint and
+ * records delivery latency: receive time minus the state's own timestamp, which the engine sets when the step
+ * starts. Both clocks are this machine's, so the figure includes the step, the dispatch and the socket.
+ * The frame a subscriber gets on subscribing is the latest already-published state and is not counted.
+ */
+final class StateStreamObserver implements AutoCloseable {
+
+    private static final int TIMESTAMP_OFFSET = 16; // see StateBinaryEncoder
+
+    private final WebSocketStompClient client;
+    private final List<StompSession> sessions = new ArrayList<>();
+    private final AtomicReference<LatencyHistogram> latency = new AtomicReference<>(new LatencyHistogram());
+    private final LongAdder frames = new LongAdder();
+    private int subscriptions;
+
+    StateStreamObserver(String webSocketUrl, int sessionCount) throws Exception {
+        client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new ByteArrayMessageConverter());
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(client.connectAsync(webSocketUrl, new StompSessionHandlerAdapter() {
+            }).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    int subscriptions() {
+        return subscriptions;
+    }
+
+    void observe(String simulationId) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination("/topic/simulation/" + simulationId);
+        headers.add("x-encoding", "binary");
+        sessions.get(subscriptions++ % sessions.size()).subscribe(headers, new StompFrameHandler() {
+            private boolean first = true;
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                long received = LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli();
+                if (first || headers.getFirst("x-frame") != null) {
+                    first = false;
+                    return;
+                }
+                long stamped = ByteBuffer.wrap((byte[]) payload).order(ByteOrder.LITTLE_ENDIAN).getLong(TIMESTAMP_OFFSET);
+                latency.get().record(Math.max(0, received - stamped));
+                frames.increment();
+            }
+        });
+    }
+
+    /** Starts a new measurement window and returns the finished one. */
+    LatencyHistogram reset() {
+        frames.reset();
+        return latency.getAndSet(new LatencyHistogram());
+    }
+
+    long frames() {
+        return frames.sum();
+    }
+
+    @Override
+    public void close() {
+        sessions.forEach(session -> {
+            try {
+                session.disconnect();
+            } catch (RuntimeException ignored) {
+                // Already gone with the server
+            }
+        });
+        client.stop();
+    }
+}
@@ -0,0 +1,36 @@
+package com.traffic.config;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import java.util.Map;
+
+/**
+ * Marks every session opened through an endpoint with a fixed attribute, which STOMP
+ * handlers can read back from the session attributes of later frames.
+ */
+public class SessionAttributeHandshakeInterceptor implements HandshakeInterceptor {
+
+    private final String name;
+    private final Object value;
+
+    public SessionAttributeHandshakeInterceptor(String name, Object value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                                   @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+        attributes.put(name, value);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                               @NonNull WebSocketHandler wsHandler, @Nullable Exception exception) {
+    }
+}
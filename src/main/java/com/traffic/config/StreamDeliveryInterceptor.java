@@ -0,0 +1,24 @@
+package com.traffic.config;
+
+import com.traffic.service.StateStreamDispatcher;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+/**
+ * Tells the stream dispatcher when a frame it sent has been handed to the client's socket,
+ * so the subscriber's next frame can follow.
+ */
+public class StreamDeliveryInterceptor implements ExecutorChannelInterceptor {
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                    @NonNull MessageHandler handler, @Nullable Exception ex) {
+        if (message.getHeaders().get(StateStreamDispatcher.DELIVERY_CALLBACK_HEADER) instanceof Runnable callback) {
+            callback.run();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.traffic.config;
 
+import com.traffic.model.DriftPolicy;
+import com.traffic.model.LateDataPolicy;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -8,21 +10,76 @@ import org.springframework.context.annotation.Configuration;
 public class TrafficProperties {
     private SimulationConfig simulation;
     private ParametersConfig parameters;
+    private LeaderboardConfig leaderboard = new LeaderboardConfig();
+    private StreamingConfig streaming = new StreamingConfig();
+    private SensorsConfig sensors = new SensorsConfig();
+    private LiveConfig live = new LiveConfig();
+    private DetectorConfig detector = new DetectorConfig();
+    private WalConfig wal = new WalConfig();
+    private JournalConfig journal = new JournalConfig();
+    private AnalyticsConfig analytics = new AnalyticsConfig();
+    private MetricsConfig metrics = new MetricsConfig();
 
     // Getters and Setters
     public SimulationConfig getSimulation() { return simulation; }
     public void setSimulation(SimulationConfig simulation) { this.simulation = simulation; }
     public ParametersConfig getParameters() { return parameters; }
     public void setParameters(ParametersConfig parameters) { this.parameters = parameters; }
+    public LeaderboardConfig getLeaderboard() { return leaderboard; }
+    public void setLeaderboard(LeaderboardConfig leaderboard) { this.leaderboard = leaderboard; }
+    public StreamingConfig getStreaming() { return streaming; }
+    public void setStreaming(StreamingConfig streaming) { this.streaming = streaming; }
+    public SensorsConfig getSensors() { return sensors; }
+    public void setSensors(SensorsConfig sensors) { this.sensors = sensors; }
+    public LiveConfig getLive() { return live; }
+    public void setLive(LiveConfig live) { this.live = live; }
+    public DetectorConfig getDetector() { return detector; }
+    public void setDetector(DetectorConfig detector) { this.detector = detector; }
+    public WalConfig getWal() { return wal; }
+    public void setWal(WalConfig wal) { this.wal = wal; }
+    public JournalConfig getJournal() { return journal; }
+    public void setJournal(JournalConfig journal) { this.journal = journal; }
+    public AnalyticsConfig getAnalytics() { return analytics; }
+    public void setAnalytics(AnalyticsConfig analytics) { this.analytics = analytics; }
+    public MetricsConfig getMetrics() { return metrics; }
+    public void setMetrics(MetricsConfig metrics) { this.metrics = metrics; }
 
     public static class SimulationConfig {
         private int timeStep;
         private String defaultScenario;
+        // Commands a runner may have queued before further ones are refused
+        private int mailboxCapacity = 1024;
+        // Applied to runners whose start request names no policy
+        private DriftPolicy driftPolicy = DriftPolicy.CATCH_UP;
+        // Tick lag beyond which a tick counts as late
+        private long driftToleranceMs = 250;
+        // DEGRADE: the cadence while late is this many time steps
+        private int degradedIntervalFactor = 2;
+        // DEGRADE: consecutive on-time ticks before the normal cadence resumes
+        private int recoveryTicks = 10;
+        // Simulations one bulk create, start or stop request may name
+        private int bulkMaxSimulations = 5000;
+        // Rows per batched insert when creating simulations in bulk
+        private int bulkBatchSize = 500;
 
         public int getTimeStep() { return timeStep; }
         public void setTimeStep(int timeStep) { this.timeStep = timeStep; }
         public String getDefaultScenario() { return defaultScenario; }
         public void setDefaultScenario(String defaultScenario) { this.defaultScenario = defaultScenario; }
+        public int getMailboxCapacity() { return mailboxCapacity; }
+        public void setMailboxCapacity(int mailboxCapacity) { this.mailboxCapacity = mailboxCapacity; }
+        public DriftPolicy getDriftPolicy() { return driftPolicy; }
+        public void setDriftPolicy(DriftPolicy driftPolicy) { this.driftPolicy = driftPolicy; }
+        public long getDriftToleranceMs() { return driftToleranceMs; }
+        public void setDriftToleranceMs(long driftToleranceMs) { this.driftToleranceMs = driftToleranceMs; }
+        public int getDegradedIntervalFactor() { return degradedIntervalFactor; }
+        public void setDegradedIntervalFactor(int degradedIntervalFactor) { this.degradedIntervalFactor = degradedIntervalFactor; }
+        public int getRecoveryTicks() { return recoveryTicks; }
+        public void setRecoveryTicks(int recoveryTicks) { this.recoveryTicks = recoveryTicks; }
+        public int getBulkMaxSimulations() { return bulkMaxSimulations; }
+        public void setBulkMaxSimulations(int bulkMaxSimulations) { this.bulkMaxSimulations = bulkMaxSimulations; }
+        public int getBulkBatchSize() { return bulkBatchSize; }
+        public void setBulkBatchSize(int bulkBatchSize) { this.bulkBatchSize = bulkBatchSize; }
     }
 
     public static class ParametersConfig {
@@ -53,4 +110,199 @@ public class TrafficProperties {
         public double getPedestrianPerformanceWeight() { return pedestrianPerformanceWeight; }
         public void setPedestrianPerformanceWeight(double pedestrianPerformanceWeight) { this.pedestrianPerformanceWeight = pedestrianPerformanceWeight; }
     }
-}
\ No newline at end of file
+
+    public static class LeaderboardConfig {
+        // Largest K served from memory; each board keeps at most this many entries
+        private int capacity = 100;
+
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+    }
+
+    public static class StreamingConfig {
+        // Delta stream sends a full keyframe after this many delta frames
+        private int keyframeInterval = 30;
+        // Frame rate cap for subscribers that do not send an x-max-fps header; 0 means uncapped
+        private int defaultMaxFps = 20;
+        // Publish period of the /topic/fleet overview
+        private long fleetIntervalMs = 1000;
+        // Recent frames kept per simulation for clients that reconnect
+        private int historySize = 256;
+        // Frames an SSE client may fall behind before it is disconnected
+        private int sseClientBuffer = 64;
+        private int sseSenderThreads = 4;
+        private long sseTimeoutMs = 1_800_000;
+        // A send blocked longer than this disconnects the client, and its sender thread is replaced
+        private long sseWriteTimeoutMs = 10_000;
+
+        public int getKeyframeInterval() { return keyframeInterval; }
+        public void setKeyframeInterval(int keyframeInterval) { this.keyframeInterval = keyframeInterval; }
+        public int getDefaultMaxFps() { return defaultMaxFps; }
+        public void setDefaultMaxFps(int defaultMaxFps) { this.defaultMaxFps = defaultMaxFps; }
+        public long getFleetIntervalMs() { return fleetIntervalMs; }
+        public void setFleetIntervalMs(long fleetIntervalMs) { this.fleetIntervalMs = fleetIntervalMs; }
+        public int getHistorySize() { return historySize; }
+        public void setHistorySize(int historySize) { this.historySize = historySize; }
+        public int getSseClientBuffer() { return sseClientBuffer; }
+        public void setSseClientBuffer(int sseClientBuffer) { this.sseClientBuffer = sseClientBuffer; }
+        public int getSseSenderThreads() { return sseSenderThreads; }
+        public void setSseSenderThreads(int sseSenderThreads) { this.sseSenderThreads = sseSenderThreads; }
+        public long getSseTimeoutMs() { return sseTimeoutMs; }
+        public void setSseTimeoutMs(long sseTimeoutMs) { this.sseTimeoutMs = sseTimeoutMs; }
+        public long getSseWriteTimeoutMs() { return sseWriteTimeoutMs; }
+        public void setSseWriteTimeoutMs(long sseWriteTimeoutMs) { this.sseWriteTimeoutMs = sseWriteTimeoutMs; }
+    }
+
+    public static class SensorsConfig {
+        // Upper bound on readings in one POST /sensors/bulk request
+        private int bulkMaxReadings = 10_000;
+        // Weight of the newest reading in the smoothed count
+        private double smoothingAlpha = 0.3;
+        // A reading this many deviations (plus spikeMinDelta) from the smoothed count is a spike
+        private double spikeSigma = 4.0;
+        private int spikeMinDelta = 5;
+        // Spikes in a row after which the new level is accepted
+        private int spikeConfirmReadings = 3;
+        // Identical non-zero readings in a row after which a channel is considered stuck
+        private int stuckReadings = 60;
+        private long dropoutMs = 10_000;
+        // Sequences below the newest per source that are still accepted in any order (at most 64)
+        private int reorderWindow = 32;
+        private LateDataPolicy lateDataPolicy = LateDataPolicy.DROP;
+
+        public int getBulkMaxReadings() { return bulkMaxReadings; }
+        public void setBulkMaxReadings(int bulkMaxReadings) { this.bulkMaxReadings = bulkMaxReadings; }
+        public double getSmoothingAlpha() { return smoothingAlpha; }
+        public void setSmoothingAlpha(double smoothingAlpha) { this.smoothingAlpha = smoothingAlpha; }
+        public double getSpikeSigma() { return spikeSigma; }
+        public void setSpikeSigma(double spikeSigma) { this.spikeSigma = spikeSigma; }
+        public int getSpikeMinDelta() { return spikeMinDelta; }
+        public void setSpikeMinDelta(int spikeMinDelta) { this.spikeMinDelta = spikeMinDelta; }
+        public int getSpikeConfirmReadings() { return spikeConfirmReadings; }
+        public void setSpikeConfirmReadings(int spikeConfirmReadings) { this.spikeConfirmReadings = spikeConfirmReadings; }
+        public int getStuckReadings() { return stuckReadings; }
+        public void setStuckReadings(int stuckReadings) { this.stuckReadings = stuckReadings; }
+        public long getDropoutMs() { return dropoutMs; }
+        public void setDropoutMs(long dropoutMs) { this.dropoutMs = dropoutMs; }
+        public int getReorderWindow() { return reorderWindow; }
+        public void setReorderWindow(int reorderWindow) { this.reorderWindow = reorderWindow; }
+        public LateDataPolicy getLateDataPolicy() { return lateDataPolicy; }
+        public void setLateDataPolicy(LateDataPolicy lateDataPolicy) { this.lateDataPolicy = lateDataPolicy; }
+    }
+
+    public static class LiveConfig {
+        // A LIVE decision should be published within this long of taking the measurement
+        private long decisionBudgetMs = 20;
+
+        public long getDecisionBudgetMs() { return decisionBudgetMs; }
+        public void setDecisionBudgetMs(long decisionBudgetMs) { this.decisionBudgetMs = decisionBudgetMs; }
+    }
+
+    public static class DetectorConfig {
+        // Binary loop-detector listener; ports of 0 leave that transport off
+        private boolean enabled = false;
+        private String bindAddress = "127.0.0.1";
+        private int udpPort = 9470;
+        private int tcpPort = 9471;
+        // Decoded readings waiting for the ingest thread; readings beyond this are dropped
+        private int ingestQueueCapacity = 10_000;
+        // Local stand-in that sends packets for every running simulation, for trying the listener without hardware
+        private boolean standInEnabled = false;
+        private long standInIntervalMs = 1000;
+        private double standInLossRate = 0.0;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getBindAddress() { return bindAddress; }
+        public void setBindAddress(String bindAddress) { this.bindAddress = bindAddress; }
+        public int getUdpPort() { return udpPort; }
+        public void setUdpPort(int udpPort) { this.udpPort = udpPort; }
+        public int getTcpPort() { return tcpPort; }
+        public void setTcpPort(int tcpPort) { this.tcpPort = tcpPort; }
+        public int getIngestQueueCapacity() { return ingestQueueCapacity; }
+        public void setIngestQueueCapacity(int ingestQueueCapacity) { this.ingestQueueCapacity = ingestQueueCapacity; }
+        public boolean isStandInEnabled() { return standInEnabled; }
+        public void setStandInEnabled(boolean standInEnabled) { this.standInEnabled = standInEnabled; }
+        public long getStandInIntervalMs() { return standInIntervalMs; }
+        public void setStandInIntervalMs(long standInIntervalMs) { this.standInIntervalMs = standInIntervalMs; }
+        public double getStandInLossRate() { return standInLossRate; }
+        public void setStandInLossRate(double standInLossRate) { this.standInLossRate = standInLossRate; }
+    }
+
+    public static class WalConfig {
+        // Write-ahead log of accepted sensor readings, replayed at startup
+        private boolean enabled = false;
+        private String directory = "data/wal";
+        // Readings arriving within this interval share one fsync
+        private long flushIntervalMs = 5;
+        private int maxBatchAppends = 4096;
+        private long segmentBytes = 64L * 1024 * 1024;
+        private long ackTimeoutMs = 5000;
+        // Rolled segments are deleted this long after their last reading was applied
+        private long checkpointDelayMs = 10_000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        public long getFlushIntervalMs() { return flushIntervalMs; }
+        public void setFlushIntervalMs(long flushIntervalMs) { this.flushIntervalMs = flushIntervalMs; }
+        public int getMaxBatchAppends() { return maxBatchAppends; }
+        public void setMaxBatchAppends(int maxBatchAppends) { this.maxBatchAppends = maxBatchAppends; }
+        public long getSegmentBytes() { return segmentBytes; }
+        public void setSegmentBytes(long segmentBytes) { this.segmentBytes = segmentBytes; }
+        public long getAckTimeoutMs() { return ackTimeoutMs; }
+        public void setAckTimeoutMs(long ackTimeoutMs) { this.ackTimeoutMs = ackTimeoutMs; }
+        public long getCheckpointDelayMs() { return checkpointDelayMs; }
+        public void setCheckpointDelayMs(long checkpointDelayMs) { this.checkpointDelayMs = checkpointDelayMs; }
+    }
+
+    public static class JournalConfig {
+        // Phase switches kept in memory per simulation
+        private int memorySize = 256;
+        // Switches are written to the database in one batch per interval
+        private long flushIntervalMs = 500;
+        private int maxBatch = 1000;
+        // Switches waiting to be written before new ones are dropped
+        private int queueCapacity = 100_000;
+
+        public int getMemorySize() { return memorySize; }
+        public void setMemorySize(int memorySize) { this.memorySize = memorySize; }
+        public long getFlushIntervalMs() { return flushIntervalMs; }
+        public void setFlushIntervalMs(long flushIntervalMs) { this.flushIntervalMs = flushIntervalMs; }
+        public int getMaxBatch() { return maxBatch; }
+        public void setMaxBatch(int maxBatch) { this.maxBatch = maxBatch; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    }
+
+    public static class AnalyticsConfig {
+        private int defaultBucketSteps = 60;
+        // Simulations aggregated in parallel
+        private int threads = 4;
+        // Simulations one multi-simulation query may name
+        private int maxSimulations = 100;
+        // Results of completed runs kept, least recently used first out
+        private int cacheSize = 256;
+
+        public int getDefaultBucketSteps() { return defaultBucketSteps; }
+        public void setDefaultBucketSteps(int defaultBucketSteps) { this.defaultBucketSteps = defaultBucketSteps; }
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+        public int getMaxSimulations() { return maxSimulations; }
+        public void setMaxSimulations(int maxSimulations) { this.maxSimulations = maxSimulations; }
+        public int getCacheSize() { return cacheSize; }
+        public void setCacheSize(int cacheSize) { this.cacheSize = cacheSize; }
+    }
+
+    public static class MetricsConfig {
+        // Tag runner meters with the simulation ID; off collapses them into one series each
+        private boolean simulationTags = true;
+        private boolean percentileHistograms = true;
+
+        public boolean isSimulationTags() { return simulationTags; }
+        public void setSimulationTags(boolean simulationTags) { this.simulationTags = simulationTags; }
+        public boolean isPercentileHistograms() { return percentileHistograms; }
+        public void setPercentileHistograms(boolean percentileHistograms) { this.percentileHistograms = percentileHistograms; }
+    }
+}
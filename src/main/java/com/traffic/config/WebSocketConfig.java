@@ -1,6 +1,8 @@
 package com.traffic.config;
 
+import com.traffic.service.StateStreamDispatcher;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -11,23 +13,37 @@ import org.springframework.lang.NonNull;
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String[] ALLOWED_ORIGINS = {
+        "http://localhost:48752", // Your current Vite frontend port
+        "http://127.0.0.1:48752",
+        "http://localhost:4000",  // Your intended Vite frontend
+        "http://127.0.0.1:4000",
+        "http://localhost:3000",  // Backup for other dev servers
+        "http://localhost:5173"   // Backup for other Vite dev servers
+    };
+
     @Override
     public void configureMessageBroker(@NonNull MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // "/queue" carries per-session replies such as delta stream resyncs
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientOutboundChannel(@NonNull ChannelRegistration registration) {
+        registration.interceptors(new StreamDeliveryInterceptor());
+    }
+
     @Override
     public void registerStompEndpoints(@NonNull StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
-                .setAllowedOrigins(
-                    "http://localhost:48752", // Your current Vite frontend port
-                    "http://127.0.0.1:48752",
-                    "http://localhost:4000",  // Your intended Vite frontend
-                    "http://127.0.0.1:4000",
-                    "http://localhost:3000",  // Backup for other dev servers
-                    "http://localhost:5173"   // Backup for other Vite dev servers
-                )
+                .setAllowedOrigins(ALLOWED_ORIGINS)
                 .withSockJS();
+
+        // Plain WebSocket endpoint; unlike SockJS it can carry binary state frames
+        registry.addEndpoint("/ws-raw")
+                .setAllowedOrigins(ALLOWED_ORIGINS)
+                .addInterceptors(new SessionAttributeHandshakeInterceptor(
+                        StateStreamDispatcher.BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE));
     }
-}
\ No newline at end of file
+}
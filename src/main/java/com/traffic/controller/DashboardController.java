@@ -3,6 +3,10 @@ package com.traffic.controller;
 import com.traffic.dto.*;
 import com.traffic.model.*;
 import com.traffic.repository.*;
+import com.traffic.service.PerformanceLeaderboardService;
+import com.traffic.service.StateSnapshotService;
+import com.traffic.service.SimulationEventStreamService;
+import com.traffic.service.StateStreamDispatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +24,10 @@ public class DashboardController {
     private final SimulationConfigRepository configRepository;
     private final PerformanceMetricsRepository metricsRepository;
     private final TrafficStateRepository stateRepository;
+    private final StateSnapshotService snapshotService;
+    private final PerformanceLeaderboardService leaderboardService;
+    private final StateStreamDispatcher streamDispatcher;
+    private final SimulationEventStreamService eventStreamService;
     
     @GetMapping("/summary")
     public ResponseEntity<ApiResponse<DashboardSummary>> getDashboardSummary() {
@@ -73,52 +81,17 @@ public class DashboardController {
     }
     
     @GetMapping("/traffic-light/{simulationId}")
-    public ResponseEntity<ApiResponse<TrafficLightStatus>> getTrafficLightStatus(
+    public ResponseEntity<ApiResponse<RawJson>> getTrafficLightStatus(
             @PathVariable String simulationId) {
         try {
-            TrafficState latestState = stateRepository.findLatestBySimulationId(simulationId)
-                    .orElseThrow(() -> new IllegalArgumentException("Simulation not found"));
-            
-            // Calculate light states based on current phase
-            LightState northSouth, eastWest;
-            if (latestState.getCurrentPhase() == TrafficPhase.PHASE_1) {
-                // N-S Green, E-W Red
-                northSouth = LightState.builder()
-                        .color("GREEN")
-                        .duration(latestState.getCalculatedGreenTime() - latestState.getCurrentGreenTime())
-                        .pedestrianCrossing(false)
-                        .build();
-                eastWest = LightState.builder()
-                        .color("RED")
-                        .duration(latestState.getCalculatedGreenTime() - latestState.getCurrentGreenTime())
-                        .pedestrianCrossing(true)
-                        .build();
-            } else {
-                // E-W Green, N-S Red
-                northSouth = LightState.builder()
-                        .color("RED")
-                        .duration(latestState.getCalculatedGreenTime() - latestState.getCurrentGreenTime())
-                        .pedestrianCrossing(true)
-                        .build();
-                eastWest = LightState.builder()
-                        .color("GREEN")
-                        .duration(latestState.getCalculatedGreenTime() - latestState.getCurrentGreenTime())
-                        .pedestrianCrossing(false)
-                        .build();
-            }
-            
-            TrafficLightStatus status = TrafficLightStatus.builder()
-                    .simulationId(simulationId)
-                    .timeStep(latestState.getTimeStep())
-                    .timestamp(latestState.getTimestamp())
-                    .northSouth(northSouth)
-                    .eastWest(eastWest)
-                    .currentGreenTime(latestState.getCurrentGreenTime())
-                    .remainingGreenTime(latestState.getCalculatedGreenTime() - latestState.getCurrentGreenTime())
-                    .nextPhaseCountdown(Math.max(0, latestState.getCalculatedGreenTime() - latestState.getCurrentGreenTime()))
-                    .northSouthDensity(latestState.getPhase1Density())
-                    .eastWestDensity(latestState.getPhase2Density())
-                    .build();
+            // Running simulations answer from the shared snapshot; others fall back to the latest stored state
+            RawJson status = snapshotService.getTrafficLightStatus(simulationId)
+                    .orElseGet(() -> {
+                        TrafficState latestState = stateRepository.findLatestBySimulationId(simulationId)
+                                .orElseThrow(() -> new IllegalArgumentException("Simulation not found"));
+                        return snapshotService.toRawJson(
+                                TrafficLightStatus.fromState(simulationId, TrafficStateResponse.from(latestState)));
+                    });
             
             return ResponseEntity.ok(ApiResponse.success(status));
         } catch (IllegalArgumentException e) {
@@ -211,15 +184,14 @@ public class DashboardController {
     
     @GetMapping("/top-performers")
     public ResponseEntity<ApiResponse<List<PerformanceMetricsResponse>>> getTopPerformers(
-            @RequestParam(defaultValue = "5") int limit) {
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(required = false) TrafficScenario scenario) {
         try {
-            List<PerformanceMetrics> topPerformers = metricsRepository.findTopPerformingSimulations(limit);
-            
-            List<PerformanceMetricsResponse> responses = topPerformers.stream()
-                    .map(this::convertToMetricsResponse)
-                    .collect(Collectors.toList());
-            
+            List<PerformanceMetricsResponse> responses = leaderboardService.getTop(limit, scenario);
             return ResponseEntity.ok(ApiResponse.success(responses));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error getting top performers", e);
             return ResponseEntity.internalServerError()
@@ -227,6 +199,22 @@ public class DashboardController {
         }
     }
     
+    @GetMapping("/streaming")
+    public ResponseEntity<ApiResponse<StreamingStatsResponse>> getStreamingStats() {
+        try {
+            StreamingStatsResponse stats = streamDispatcher.getStats();
+            stats.setSseConnections(eventStreamService.getConnectionCount());
+            stats.setSseEvents(eventStreamService.getSentEvents());
+            stats.setSseSlowDisconnects(eventStreamService.getSlowDisconnects());
+            stats.setSseWriteTimeouts(eventStreamService.getWriteTimeouts());
+            return ResponseEntity.ok(ApiResponse.success(stats));
+        } catch (Exception e) {
+            log.error("Error getting streaming stats", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to get streaming stats"));
+        }
+    }
+    
     private String generateInsights(List<SimulationComparison> comparisons) {
         if (comparisons.size() < 2) return "Insufficient data for insights";
         
@@ -272,19 +260,4 @@ public class DashboardController {
                 .completedAt(metrics.getCalculatedAt())
                 .build();
     }
-    
-    private PerformanceMetricsResponse convertToMetricsResponse(PerformanceMetrics metrics) {
-        return PerformanceMetricsResponse.builder()
-                .simulationId(metrics.getSimulationId())
-                .totalTimeSteps(metrics.getTotalTimeSteps())
-                .averageVehicleWaitingTime(metrics.getAverageVehicleWaitingTime())
-                .averagePedestrianWaitingTime(metrics.getAveragePedestrianWaitingTime())
-                .combinedPerformanceIndex(metrics.getCombinedPerformanceIndex())
-                .totalVehiclesProcessed(metrics.getTotalVehiclesProcessed())
-                .totalPedestriansProcessed(metrics.getTotalPedestriansProcessed())
-                .phase1TotalTime(metrics.getPhase1TotalTime())
-                .phase2TotalTime(metrics.getPhase2TotalTime())
-                .calculatedAt(metrics.getCalculatedAt())
-                .build();
-    }
 }
\ No newline at end of file
@@ -3,12 +3,20 @@ package com.traffic.controller;
 import com.traffic.dto.*;
 import com.traffic.model.*;
 import com.traffic.repository.*;
+import com.traffic.service.DetectorListenerService;
+import com.traffic.service.SensorFilterService;
+import com.traffic.service.SensorIngestionService;
+import com.traffic.service.SensorSequencer;
+import com.traffic.service.SensorWriteAheadLog;
+import com.traffic.service.TrafficSimulationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import java.util.List;
 
 @RestController
 @RequestMapping("/sensors")
@@ -18,6 +26,12 @@ import jakarta.validation.constraints.NotBlank;
 public class SensorController {
     
     private final TrafficStateRepository stateRepository;
+    private final SensorIngestionService ingestionService;
+    private final TrafficSimulationService simulationService;
+    private final DetectorListenerService detectorListener;
+    private final SensorFilterService sensorFilter;
+    private final SensorSequencer sequencer;
+    private final SensorWriteAheadLog writeAheadLog;
     
     @PostMapping("/{simulationId}/data")
     public ResponseEntity<ApiResponse<Void>> updateSensorData(
@@ -27,25 +41,21 @@ public class SensorController {
             // This endpoint simulates receiving real sensor data
             // In a real system, this would be called by the sensor hardware/software
             
-            TrafficState latestState = stateRepository.findLatestBySimulationId(simulationId)
-                    .orElseThrow(() -> new IllegalArgumentException("Simulation not found"));
-            
-            // Update the current state with sensor data
-            latestState.setVehiclesNorth(request.getVehiclesNorth());
-            latestState.setVehiclesSouth(request.getVehiclesSouth());
-            latestState.setVehiclesEast(request.getVehiclesEast());
-            latestState.setVehiclesWest(request.getVehiclesWest());
-            latestState.setPedestriansNorth(request.getPedestriansNorth());
-            latestState.setPedestriansSouth(request.getPedestriansSouth());
-            latestState.setPedestriansEast(request.getPedestriansEast());
-            latestState.setPedestriansWest(request.getPedestriansWest());
-            
-            stateRepository.save(latestState);
+            // Same path as bulk and detector readings: sequenced, then handed to the runner of a running
+            // simulation or written to the latest stored state
+            String error = ingestionService.ingestOne(toReading(simulationId, request));
+            if (error != null) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("Invalid sensor data: " + error));
+            }
             
-            return ResponseEntity.ok(ApiResponse.success("Sensor data updated successfully", null));
+            return ResponseEntity.ok(ApiResponse.success("Sensor data accepted", null));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Invalid simulation: " + e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error updating sensor data", e);
             return ResponseEntity.internalServerError()
@@ -53,6 +63,52 @@ public class SensorController {
         }
     }
     
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<BulkSensorDataResponse>> bulkUpdateSensorData(
+            @Valid @RequestBody BulkSensorDataRequest request) {
+        try {
+            BulkSensorDataResponse result = ingestionService.ingest(request.getReadings());
+            if (result.getApplied() == 0) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("No readings applied", result.getErrors()));
+            }
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Applied %d of %d readings".formatted(result.getApplied(), result.getReceived()), result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error applying bulk sensor data", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to apply sensor data"));
+        }
+    }
+    
+    @GetMapping("/detectors")
+    public ResponseEntity<ApiResponse<DetectorStatsResponse>> getDetectorStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(detectorListener.getStats()));
+        } catch (Exception e) {
+            log.error("Error getting detector stats", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to get detector stats"));
+        }
+    }
+    
+    @GetMapping("/wal")
+    public ResponseEntity<ApiResponse<WalStatsResponse>> getWriteAheadLogStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(writeAheadLog.getStats()));
+        } catch (Exception e) {
+            log.error("Error getting write-ahead log stats", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to get write-ahead log stats"));
+        }
+    }
+    
     @GetMapping("/{simulationId}/status")
     public ResponseEntity<ApiResponse<SensorStatusResponse>> getSensorStatus(
             @PathVariable @NotBlank String simulationId) {
@@ -60,10 +116,13 @@ public class SensorController {
             TrafficState latestState = stateRepository.findLatestBySimulationId(simulationId)
                     .orElseThrow(() -> new IllegalArgumentException("Simulation not found"));
             
+            List<SensorChannelHealth> channels = sensorFilter.getHealth(simulationId);
             SensorStatusResponse response = SensorStatusResponse.builder()
                     .simulationId(simulationId)
-                    .inductiveLoopStatus("ACTIVE")
-                    .videoDetectionStatus("ACTIVE")
+                    .inductiveLoopStatus(SensorFilterService.vehicleLoopStatus(channels))
+                    .videoDetectionStatus(SensorFilterService.pedestrianDetectionStatus(channels))
+                    .channels(channels)
+                    .sequencing(sequencer.getStats(simulationId))
                     .lastUpdate(latestState.getTimestamp())
                     .vehicleDetections(SensorDetection.builder()
                             .north(latestState.getVehiclesNorth())
@@ -88,4 +147,21 @@ public class SensorController {
                     .body(ApiResponse.error("Failed to get sensor status"));
         }
     }
+    
+    private static SensorReading toReading(String simulationId, SensorDataRequest request) {
+        return SensorReading.builder()
+                .simulationId(simulationId)
+                .sourceId(request.getSourceId())
+                .sequence(request.getSequence())
+                .timestamp(request.getTimestamp())
+                .vehiclesNorth(request.getVehiclesNorth())
+                .vehiclesSouth(request.getVehiclesSouth())
+                .vehiclesEast(request.getVehiclesEast())
+                .vehiclesWest(request.getVehiclesWest())
+                .pedestriansNorth(request.getPedestriansNorth())
+                .pedestriansSouth(request.getPedestriansSouth())
+                .pedestriansEast(request.getPedestriansEast())
+                .pedestriansWest(request.getPedestriansWest())
+                .build();
+    }
 }
\ No newline at end of file
@@ -2,14 +2,20 @@ package com.traffic.controller;
 
 import com.traffic.dto.*;
 import com.traffic.model.*;
+import com.traffic.service.PhaseSwitchJournalService;
+import com.traffic.service.SimulationDeletionService;
+import com.traffic.service.SimulationEventStreamService;
+import com.traffic.service.StateAnalyticsService;
 import com.traffic.service.TrafficSimulationService;
 import com.traffic.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import java.util.List;
@@ -24,9 +30,12 @@ import java.util.stream.Collectors;
 public class SimulationController {
     
     private final TrafficSimulationService simulationService;
+    private final SimulationDeletionService deletionService;
+    private final SimulationEventStreamService eventStreamService;
+    private final PhaseSwitchJournalService switchJournal;
+    private final StateAnalyticsService analyticsService;
     private final SimulationConfigRepository configRepository;
     private final TrafficStateRepository stateRepository;
-    private final PerformanceMetricsRepository metricsRepository;
     
     @PostMapping
     public ResponseEntity<ApiResponse<String>> createSimulation(
@@ -41,6 +50,60 @@ public class SimulationController {
         }
     }
     
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<BulkSimulationResponse>> createSimulations(
+            @Valid @RequestBody BulkSimulationCreateRequest request) {
+        try {
+            List<String> simulationIds = simulationService.createSimulations(request.getSimulations());
+            BulkSimulationResponse response = BulkSimulationResponse.builder()
+                    .requested(request.getSimulations().size())
+                    .succeeded(simulationIds.size())
+                    .failed(0)
+                    .simulationIds(simulationIds)
+                    .errors(List.of())
+                    .build();
+            return ResponseEntity.ok(ApiResponse.success("Simulations created successfully", response));
+        } catch (Exception e) {
+            log.error("Error creating simulations in bulk", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to create simulations: " + e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/bulk/start")
+    public ResponseEntity<ApiResponse<BulkSimulationResponse>> startSimulations(
+            @Valid @RequestBody BulkSimulationStartRequest request) {
+        try {
+            BulkSimulationResponse response =
+                    simulationService.startSimulations(request.getSimulationIds(), request.getSettings());
+            return ResponseEntity.ok(ApiResponse.success(
+                    response.getSucceeded() + " of " + response.getRequested() + " simulations started", response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid bulk start: " + e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error starting simulations in bulk", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to start simulations: " + e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/bulk/stop")
+    public ResponseEntity<ApiResponse<BulkSimulationResponse>> stopSimulations(
+            @Valid @RequestBody BulkSimulationStopRequest request) {
+        try {
+            BulkSimulationResponse response = simulationService.stopSimulations(request.getSimulationIds());
+            return ResponseEntity.ok(ApiResponse.success("Simulations stopped successfully", response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid bulk stop: " + e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error stopping simulations in bulk", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to stop simulations: " + e.getMessage()));
+        }
+    }
+    
     @PostMapping("/{simulationId}/start")
     public ResponseEntity<ApiResponse<Void>> startSimulation(
             @PathVariable @NotBlank String simulationId,
@@ -75,6 +138,38 @@ public class SimulationController {
         }
     }
     
+    @PostMapping("/{simulationId}/pause")
+    public ResponseEntity<ApiResponse<TrafficStateResponse>> pauseSimulation(
+            @PathVariable @NotBlank String simulationId) {
+        try {
+            TrafficStateResponse state = simulationService.pauseSimulation(simulationId);
+            return ResponseEntity.ok(ApiResponse.success("Simulation paused", state));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error pausing simulation", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to pause simulation: " + e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/{simulationId}/resume")
+    public ResponseEntity<ApiResponse<Void>> resumeSimulation(
+            @PathVariable @NotBlank String simulationId) {
+        try {
+            simulationService.resumeSimulation(simulationId);
+            return ResponseEntity.ok(ApiResponse.success("Simulation resumed", null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error resuming simulation", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to resume simulation: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{simulationId}/status")
     public ResponseEntity<ApiResponse<SimulationStatusResponse>> getSimulationStatus(
             @PathVariable @NotBlank String simulationId) {
@@ -90,6 +185,21 @@ public class SimulationController {
         }
     }
     
+    @GetMapping("/{simulationId}/live-stats")
+    public ResponseEntity<ApiResponse<LiveControlStatsResponse>> getLiveControlStats(
+            @PathVariable @NotBlank String simulationId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(simulationService.getLiveControlStats(simulationId)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting live control stats", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to get live control stats"));
+        }
+    }
+    
     @GetMapping("/{simulationId}/config")
     public ResponseEntity<ApiResponse<SimulationConfigResponse>> getSimulationConfig(
             @PathVariable @NotBlank String simulationId) {
@@ -108,6 +218,16 @@ public class SimulationController {
         }
     }
     
+    @GetMapping(value = "/{simulationId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSimulation(
+            @PathVariable @NotBlank String simulationId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (configRepository.findBySimulationId(simulationId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(eventStreamService.open(simulationId, lastEventId));
+    }
+    
     @GetMapping("/{simulationId}/states")
     public ResponseEntity<ApiResponse<List<TrafficStateResponse>>> getTrafficStates(
             @PathVariable @NotBlank String simulationId,
@@ -140,6 +260,69 @@ public class SimulationController {
         }
     }
     
+    @GetMapping("/{simulationId}/switches")
+    public ResponseEntity<ApiResponse<List<PhaseSwitchRecord>>> getPhaseSwitches(
+            @PathVariable @NotBlank String simulationId,
+            @RequestParam(required = false) Long fromStep,
+            @RequestParam(required = false) Long toStep,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(switchJournal.find(simulationId, fromStep, toStep, limit)));
+        } catch (Exception e) {
+            log.error("Error getting phase switches", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to get phase switches"));
+        }
+    }
+    
+    @GetMapping("/{simulationId}/analytics")
+    public ResponseEntity<ApiResponse<StateAnalyticsResponse>> getStateAnalytics(
+            @PathVariable @NotBlank String simulationId,
+            @RequestParam(required = false) Integer bucketSteps,
+            @RequestParam(required = false) Long fromStep,
+            @RequestParam(required = false) Long toStep,
+            @RequestParam(required = false) Double percentile,
+            @RequestParam(required = false) Double densityThreshold) {
+        try {
+            if (configRepository.findBySimulationId(simulationId).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            StateAnalyticsService.Query query =
+                    analyticsService.query(bucketSteps, fromStep, toStep, percentile, densityThreshold);
+            return ResponseEntity.ok(ApiResponse.success(analyticsService.analyze(simulationId, query)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid analytics query: " + e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error computing state analytics", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to compute state analytics"));
+        }
+    }
+    
+    /** The same aggregation for several simulations, computed in parallel; unknown IDs get an empty result. */
+    @GetMapping("/analytics")
+    public ResponseEntity<ApiResponse<List<StateAnalyticsResponse>>> getFleetAnalytics(
+            @RequestParam List<String> simulationIds,
+            @RequestParam(required = false) Integer bucketSteps,
+            @RequestParam(required = false) Long fromStep,
+            @RequestParam(required = false) Long toStep,
+            @RequestParam(required = false) Double percentile,
+            @RequestParam(required = false) Double densityThreshold) {
+        try {
+            StateAnalyticsService.Query query =
+                    analyticsService.query(bucketSteps, fromStep, toStep, percentile, densityThreshold);
+            return ResponseEntity.ok(ApiResponse.success(analyticsService.analyzeAll(simulationIds, query)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid analytics query: " + e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error computing fleet analytics", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to compute state analytics"));
+        }
+    }
+    
     @GetMapping("/{simulationId}/metrics")
     public ResponseEntity<ApiResponse<PerformanceMetricsResponse>> getPerformanceMetrics(
             @PathVariable @NotBlank String simulationId) {
@@ -177,13 +360,7 @@ public class SimulationController {
     public ResponseEntity<ApiResponse<Void>> deleteSimulation(
             @PathVariable @NotBlank String simulationId) {
         try {
-            // Stop simulation if running
-            simulationService.stopSimulation(simulationId);
-            
-            // Delete all related data
-            stateRepository.deleteBySimulationId(simulationId);
-            metricsRepository.deleteBySimulationId(simulationId);
-            configRepository.deleteBySimulationId(simulationId);
+            deletionService.deleteSimulation(simulationId);
             
             return ResponseEntity.ok(ApiResponse.success("Simulation deleted successfully", null));
         } catch (Exception e) {
@@ -0,0 +1,27 @@
+package com.traffic.controller;
+
+import com.traffic.dto.RawJson;
+import com.traffic.service.StateDeltaEncoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class SimulationStreamController {
+    
+    private final StateDeltaEncoder deltaEncoder;
+    
+    // Clients send to /app/simulation/{id}/resync and receive on /user/queue/simulation/{id}/resync
+    @MessageMapping("/simulation/{simulationId}/resync")
+    @SendToUser(destinations = "/queue/simulation/{simulationId}/resync", broadcast = false)
+    public RawJson resync(@DestinationVariable String simulationId) {
+        log.debug("Delta stream resync requested for simulation: {}", simulationId);
+        return deltaEncoder.resync(simulationId)
+                .orElseThrow(() -> new IllegalArgumentException("No state published yet for simulation: " + simulationId));
+    }
+}
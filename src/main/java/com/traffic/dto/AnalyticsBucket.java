@@ -0,0 +1,37 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.traffic.model.TrafficPhase;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsBucket {
+    // Bucket bounds in time steps; the stored steps inside may cover less
+    private Long fromStep;
+    private Long toStep;
+    private Long samples;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime firstTimestamp;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastTimestamp;
+    
+    private SeriesStats vehiclesNorth;
+    private SeriesStats vehiclesSouth;
+    private SeriesStats vehiclesEast;
+    private SeriesStats vehiclesWest;
+    private SeriesStats pedestriansNorth;
+    private SeriesStats pedestriansSouth;
+    private SeriesStats pedestriansEast;
+    private SeriesStats pedestriansWest;
+    private Map<TrafficPhase, PhaseStats> phases;
+}
@@ -0,0 +1,20 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSensorDataResponse {
+    private Integer received;
+    private Integer applied;
+    private Integer rejected;
+    private Integer skipped; // sequenced readings that were duplicates, superseded or too late
+    private Integer simulationsUpdated;
+    private List<String> errors; // capped; see rejected for the full count
+}
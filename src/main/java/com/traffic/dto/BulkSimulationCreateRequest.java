@@ -0,0 +1,20 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSimulationCreateRequest {
+    
+    @NotEmpty(message = "At least one simulation is required")
+    @Valid
+    private List<SimulationConfigRequest> simulations;
+}
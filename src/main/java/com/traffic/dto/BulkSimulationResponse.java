@@ -0,0 +1,20 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSimulationResponse {
+    private Integer requested;
+    private Integer succeeded;
+    private Integer failed;
+    private List<String> simulationIds; // created, started or stopped, in request order
+    private Long staggerMs; // bulk start: first ticks are spread over this window
+    private List<String> errors; // capped; see failed for the full count
+}
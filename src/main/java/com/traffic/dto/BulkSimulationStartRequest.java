@@ -0,0 +1,25 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSimulationStartRequest {
+    
+    @NotEmpty(message = "At least one simulation ID is required")
+    private List<String> simulationIds;
+    
+    // Applied to every simulation; its simulationId is ignored
+    @NotNull(message = "Start settings are required")
+    @Valid
+    private SimulationRequest settings;
+}
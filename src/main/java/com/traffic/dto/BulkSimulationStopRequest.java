@@ -0,0 +1,18 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSimulationStopRequest {
+    
+    @NotEmpty(message = "At least one simulation ID is required")
+    private List<String> simulationIds;
+}
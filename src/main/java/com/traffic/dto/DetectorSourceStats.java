@@ -0,0 +1,31 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DetectorSourceStats {
+    private Long sourceId;
+    private String remoteAddress;
+    private String simulationId;
+    private Long packetsReceived;
+    private Long packetsLost; // sequence gaps not filled by a late packet
+    private Long duplicates;
+    private Long outOfOrder; // arrived after a newer packet; not applied
+    private Double lossRate;
+    // Receive time minus the detector's timestamp
+    private Long lastLagMs;
+    private Long lagP50Ms;
+    private Long lagP99Ms;
+    private Long maxLagMs;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,20 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DetectorStatsResponse {
+    private Boolean enabled;
+    private Integer udpPort;
+    private Integer tcpPort;
+    private Long invalidPackets; // wrong size or version
+    private Long rejectedReadings; // decoded but refused by ingestion, e.g. unknown simulation, or dropped on a full ingest queue
+    private List<DetectorSourceStats> sources;
+}
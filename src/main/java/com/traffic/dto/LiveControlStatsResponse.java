@@ -0,0 +1,28 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LiveControlStatsResponse {
+    private String simulationId;
+    private Long decisions;
+    private Long measurementsReceived;
+    private Long measurementsApplied; // several readings between two decisions count once
+    private Long budgetMisses; // decisions published later than the budget
+    private Long decisionBudgetMs;
+    // Measurement taken to decision published, in milliseconds
+    private Double latencyP50Ms;
+    private Double latencyP90Ms;
+    private Double latencyP99Ms;
+    private Double latencyMaxMs;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastMeasurementAt;
+}
@@ -1,5 +1,6 @@
 package com.traffic.dto;
 
+import com.traffic.model.PerformanceMetrics;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -24,4 +25,19 @@ public class PerformanceMetricsResponse {
     
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime calculatedAt;
-}
\ No newline at end of file
+    
+    public static PerformanceMetricsResponse from(PerformanceMetrics metrics) {
+        return PerformanceMetricsResponse.builder()
+                .simulationId(metrics.getSimulationId())
+                .totalTimeSteps(metrics.getTotalTimeSteps())
+                .averageVehicleWaitingTime(metrics.getAverageVehicleWaitingTime())
+                .averagePedestrianWaitingTime(metrics.getAveragePedestrianWaitingTime())
+                .combinedPerformanceIndex(metrics.getCombinedPerformanceIndex())
+                .totalVehiclesProcessed(metrics.getTotalVehiclesProcessed())
+                .totalPedestriansProcessed(metrics.getTotalPedestriansProcessed())
+                .phase1TotalTime(metrics.getPhase1TotalTime())
+                .phase2TotalTime(metrics.getPhase2TotalTime())
+                .calculatedAt(metrics.getCalculatedAt())
+                .build();
+    }
+}
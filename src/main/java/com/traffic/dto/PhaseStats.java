@@ -0,0 +1,18 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PhaseStats {
+    private Long greenSteps; // time steps in which this phase had green
+    private Double greenShare;
+    private SeriesStats density; // the phase's density over all steps, green or not
+    // Steps with density above the query's threshold; null without a threshold
+    private Long stepsAboveThreshold;
+}
@@ -0,0 +1,30 @@
+package com.traffic.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.traffic.model.PhaseSwitchReason;
+import com.traffic.model.TrafficPhase;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/** One phase switch decision: the step it was made at, the densities it was made on, and its outcome. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PhaseSwitchRecord {
+    private String simulationId;
+    private Long timeStep;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime timestamp;
+    
+    private TrafficPhase fromPhase;
+    private TrafficPhase toPhase;
+    private PhaseSwitchReason reason;
+    private Double phase1Density;
+    private Double phase2Density;
+    private Integer greenTime; // seconds of green given to the new phase
+}
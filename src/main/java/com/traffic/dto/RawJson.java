@@ -0,0 +1,151 @@
+package com.traffic.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Already-serialized JSON document. Jackson writes it verbatim wherever it appears
+ * in a response, so the same bytes can back any number of REST bodies and STOMP frames.
+ * The byte array is shared and must never be modified.
+ */
+public final class RawJson implements JsonSerializable {
+
+    private final byte[] bytes;
+    private final Utf8Value value = new Utf8Value();
+    // Decoded on first use; byte-based generators write the array and never need it
+    private volatile SerializedString text;
+
+    private RawJson(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public static RawJson of(byte[] utf8Json) {
+        return new RawJson(utf8Json);
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    public void writeTo(JsonGenerator gen) throws IOException {
+        gen.writeRawValue(value);
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        writeTo(gen);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return text().getValue();
+    }
+
+    private SerializedString text() {
+        SerializedString decoded = text;
+        if (decoded == null) {
+            decoded = new SerializedString(new String(bytes, StandardCharsets.UTF_8));
+            text = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * The document as Jackson's raw value: the unquoted UTF-8 forms, which byte-based generators use,
+     * come straight from the array; the char and quoted forms go through the decoded text.
+     */
+    private final class Utf8Value implements SerializableString {
+
+        @Override
+        public String getValue() {
+            return text().getValue();
+        }
+
+        @Override
+        public int charLength() {
+            return text().charLength();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return text().asQuotedChars();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return bytes;
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return text().asQuotedUTF8();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return text().appendQuotedUTF8(buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return text().appendQuoted(buffer, offset);
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + bytes.length > buffer.length) return -1;
+            System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+            return bytes.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            return text().appendUnquoted(buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return text().writeQuotedUTF8(out);
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+            return text().putQuotedUTF8(buffer);
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) throws IOException {
+            if (bytes.length > buffer.remaining()) return -1;
+            buffer.put(bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public String toString() {
+            return getValue();
+        }
+    }
+}
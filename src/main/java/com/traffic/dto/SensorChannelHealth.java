@@ -0,0 +1,25 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.traffic.model.SensorHealth;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SensorChannelHealth {
+    private String channel; // e.g. vehiclesNorth
+    private SensorHealth health;
+    private Integer lastRaw;
+    private Double smoothed;
+    private Long readings;
+    private Long spikes;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastReadingAt;
+}
@@ -5,6 +5,8 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import jakarta.validation.constraints.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
 
 
 @Data
@@ -16,6 +18,15 @@ public class SensorDataRequest {
     @NotBlank(message = "Simulation ID is required")
     private String simulationId;
     
+    // Optional sequencing: readings with a sequence are applied in sequence order per source
+    private String sourceId;
+    
+    @Min(value = 0, message = "Sequence must be non-negative")
+    private Long sequence;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime timestamp;
+    
     @Min(value = 0, message = "Vehicle count must be non-negative")
     private Integer vehiclesNorth;
     
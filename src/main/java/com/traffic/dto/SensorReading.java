@@ -0,0 +1,68 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+
+/**
+ * One detector reading in a bulk upload. Counts left out are not changed.
+ * Validated by {@code SensorIngestionService} in a single pass over the batch.
+ * Readings that carry a {@code sequence} are ordered per {@code sourceId} by {@code SensorSequencer}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SensorReading {
+    private String simulationId;
+    
+    // Optional; a sequence without a source ID belongs to the simulation's default source
+    private String sourceId;
+    private Long sequence;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime timestamp;
+    
+    private Integer vehiclesNorth;
+    private Integer vehiclesSouth;
+    private Integer vehiclesEast;
+    private Integer vehiclesWest;
+    private Integer pedestriansNorth;
+    private Integer pedestriansSouth;
+    private Integer pedestriansEast;
+    private Integer pedestriansWest;
+    
+    public static final int CHANNELS = 8;
+    
+    /** Count by channel index: vehicles then pedestrians, each North, South, East, West. */
+    public Integer getCount(int channel) {
+        return switch (channel) {
+            case 0 -> vehiclesNorth;
+            case 1 -> vehiclesSouth;
+            case 2 -> vehiclesEast;
+            case 3 -> vehiclesWest;
+            case 4 -> pedestriansNorth;
+            case 5 -> pedestriansSouth;
+            case 6 -> pedestriansEast;
+            case 7 -> pedestriansWest;
+            default -> throw new IndexOutOfBoundsException(channel);
+        };
+    }
+    
+    public void setCount(int channel, Integer value) {
+        switch (channel) {
+            case 0 -> vehiclesNorth = value;
+            case 1 -> vehiclesSouth = value;
+            case 2 -> vehiclesEast = value;
+            case 3 -> vehiclesWest = value;
+            case 4 -> pedestriansNorth = value;
+            case 5 -> pedestriansSouth = value;
+            case 6 -> pedestriansEast = value;
+            case 7 -> pedestriansWest = value;
+            default -> throw new IndexOutOfBoundsException(channel);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.traffic.model.LateDataPolicy;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SensorSequencingStats {
+    private Integer sources;
+    private Integer reorderWindow;
+    private LateDataPolicy lateDataPolicy;
+    private Long accepted;
+    private Long reordered; // older than the newest reading but inside the window; applied where not superseded
+    private Long superseded; // every count already set by a newer reading
+    private Long duplicates;
+    private Long lateDropped;
+    private Long lateApplied;
+    private Long restarts;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -21,4 +22,8 @@ public class SensorStatusResponse {
     private LocalDateTime lastUpdate;
     
     private SensorDetection vehicleDetections;
+    
+    private List<SensorChannelHealth> channels;
+    
+    private SensorSequencingStats sequencing;
 }
\ No newline at end of file
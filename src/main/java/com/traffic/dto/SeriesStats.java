@@ -0,0 +1,18 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeriesStats {
+    private Double avg;
+    private Double min;
+    private Double max;
+    // Value at the percentile requested with the query (nearest rank)
+    private Double percentile;
+}
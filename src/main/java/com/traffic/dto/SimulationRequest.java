@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import jakarta.validation.constraints.*;
+import com.traffic.model.ControlMode;
+import com.traffic.model.DriftPolicy;
 
 @Data
 @NoArgsConstructor
@@ -30,4 +32,11 @@ public class SimulationRequest {
     
     @Builder.Default
     private Boolean realTimeMode = true;
+    
+    // LIVE takes vehicle and pedestrian counts from sensor measurements instead of random arrivals
+    @Builder.Default
+    private ControlMode controlMode = ControlMode.SIMULATED;
+    
+    // What the runner does when ticks fall behind; traffic.simulation.drift-policy when not given
+    private DriftPolicy driftPolicy;
 }
\ No newline at end of file
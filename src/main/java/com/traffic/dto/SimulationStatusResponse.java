@@ -17,9 +17,17 @@ public class SimulationStatusResponse {
     private Long currentTimeStep;
     private Long totalTimeSteps;
     private Double progress;
-    private TrafficStateResponse currentState;
+    private StateSnapshot currentState;
     private String message;
     
+    // Tick drift: lag of the last tick behind its schedule, the largest seen, and what the policy did about it
+    private String driftPolicy;
+    private Double driftMs;
+    private Double maxDriftMs;
+    private Long lateTicks;
+    private Long skippedSteps;
+    private Boolean degraded;
+    
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime lastUpdate;
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StateAnalyticsResponse {
+    private String simulationId;
+    private Integer bucketSteps;
+    private Long fromStep;
+    private Long toStep;
+    private Double percentile;
+    private Double densityThreshold;
+    private Boolean complete; // the simulation was not running, so the result is cached
+    private Boolean cached; // served from the cache
+    private Long elapsedMs;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime computedAt;
+    
+    private AnalyticsBucket total;
+    private List<AnalyticsBucket> buckets;
+}
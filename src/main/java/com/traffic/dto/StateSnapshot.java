@@ -0,0 +1,74 @@
+package com.traffic.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Immutable view of one produced simulation state together with its serialized form.
+ * Serializes as the plain {@link TrafficStateResponse} JSON, so it can replace the
+ * response object anywhere without changing the wire format. The JSON is produced on first
+ * read, so states nobody asks for are never serialized.
+ */
+public final class StateSnapshot implements JsonSerializable {
+
+    private final String simulationId;
+    private final TrafficStateResponse state;
+    private final Function<TrafficStateResponse, RawJson> serializer;
+
+    // Serialized forms are built on first request and reused until the next state replaces this snapshot
+    private volatile RawJson json;
+    private volatile RawJson trafficLight;
+
+    public StateSnapshot(String simulationId, TrafficStateResponse state,
+                         Function<TrafficStateResponse, RawJson> serializer) {
+        this.simulationId = simulationId;
+        this.state = state;
+        this.serializer = serializer;
+    }
+
+    public String getSimulationId() {
+        return simulationId;
+    }
+
+    public long getTimeStep() {
+        return state.getTimeStep();
+    }
+
+    public TrafficStateResponse getState() {
+        return state;
+    }
+
+    public RawJson getJson() {
+        RawJson view = json;
+        if (view == null) {
+            view = serializer.apply(state);
+            json = view;
+        }
+        return view;
+    }
+
+    public RawJson getTrafficLight(Supplier<RawJson> factory) {
+        RawJson view = trafficLight;
+        if (view == null) {
+            // Racing readers may both build it; the results are identical so either may win
+            view = factory.get();
+            trafficLight = view;
+        }
+        return view;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        getJson().serialize(gen, serializers);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+}
@@ -0,0 +1,21 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StreamingStatsResponse {
+    private Integer activeSubscriptions;
+    private Long deliveredFrames;
+    private Long conflatedFrames; // replaced by a newer frame before they could be sent
+    private Long droppedFrames; // discarded because the subscriber went away or the send failed
+    private Integer sseConnections;
+    private Long sseEvents;
+    private Long sseSlowDisconnects; // SSE clients dropped for falling too far behind
+    private Long sseWriteTimeouts; // of those, dropped because one send blocked past the write timeout
+}
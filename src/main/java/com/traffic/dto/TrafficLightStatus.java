@@ -1,5 +1,6 @@
 package com.traffic.dto;
 
+import com.traffic.model.TrafficPhase;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -30,4 +31,33 @@ public class TrafficLightStatus {
     // Current densities
     private Double northSouthDensity;
     private Double eastWestDensity;
-}
\ No newline at end of file
+    
+    public static TrafficLightStatus fromState(String simulationId, TrafficStateResponse state) {
+        int remaining = state.getCalculatedGreenTime() - state.getCurrentGreenTime();
+        boolean northSouthGreen = state.getCurrentPhase() == TrafficPhase.PHASE_1;
+        
+        LightState green = LightState.builder()
+                .color("GREEN")
+                .duration(remaining)
+                .pedestrianCrossing(false)
+                .build();
+        LightState red = LightState.builder()
+                .color("RED")
+                .duration(remaining)
+                .pedestrianCrossing(true)
+                .build();
+        
+        return TrafficLightStatus.builder()
+                .simulationId(simulationId)
+                .timeStep(state.getTimeStep())
+                .timestamp(state.getTimestamp())
+                .northSouth(northSouthGreen ? green : red)
+                .eastWest(northSouthGreen ? red : green)
+                .currentGreenTime(state.getCurrentGreenTime())
+                .remainingGreenTime(remaining)
+                .nextPhaseCountdown(Math.max(0, remaining))
+                .northSouthDensity(state.getPhase1Density())
+                .eastWestDensity(state.getPhase2Density())
+                .build();
+    }
+}
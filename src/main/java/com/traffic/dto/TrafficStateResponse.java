@@ -1,6 +1,7 @@
 package com.traffic.dto;
 
 import com.traffic.model.TrafficPhase;
+import com.traffic.model.TrafficState;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -31,4 +32,24 @@ public class TrafficStateResponse {
     private Integer calculatedGreenTime;
     private Double phase1Density;
     private Double phase2Density;
+    
+    public static TrafficStateResponse from(TrafficState state) {
+        return TrafficStateResponse.builder()
+                .timeStep(state.getTimeStep())
+                .timestamp(state.getTimestamp())
+                .vehiclesNorth(state.getVehiclesNorth())
+                .vehiclesSouth(state.getVehiclesSouth())
+                .vehiclesEast(state.getVehiclesEast())
+                .vehiclesWest(state.getVehiclesWest())
+                .pedestriansNorth(state.getPedestriansNorth())
+                .pedestriansSouth(state.getPedestriansSouth())
+                .pedestriansEast(state.getPedestriansEast())
+                .pedestriansWest(state.getPedestriansWest())
+                .currentPhase(state.getCurrentPhase())
+                .currentGreenTime(state.getCurrentGreenTime())
+                .calculatedGreenTime(state.getCalculatedGreenTime())
+                .phase1Density(state.getPhase1Density())
+                .phase2Density(state.getPhase2Density())
+                .build();
+    }
 }
@@ -0,0 +1,28 @@
+package com.traffic.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalStatsResponse {
+    private Boolean enabled;
+    private String directory;
+    private Long records;
+    private Long bytes;
+    private Long fsyncs;
+    private Integer pendingAppends; // queued, not yet on disk
+    private Long batchRecordsP50; // readings made durable per fsync
+    private Long batchRecordsP99;
+    private Long batchRecordsMax;
+    private Double ackLatencyP50Ms; // append to fsync completion
+    private Double ackLatencyP99Ms;
+    private Double ackLatencyMaxMs;
+    private Long replayedRecords; // from the previous run's segments at startup
+    private Long truncatedBytes; // torn or corrupt tails skipped during replay
+    private Long checkpointedSegments; // rolled segments deleted once their readings were applied
+}
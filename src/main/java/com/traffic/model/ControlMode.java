@@ -0,0 +1,14 @@
+package com.traffic.model;
+
+public enum ControlMode {
+    SIMULATED("Random arrivals from the configured rates"),
+    LIVE("Counts taken from the latest sensor measurements");
+    
+    private final String description;
+    
+    ControlMode(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() { return description; }
+}
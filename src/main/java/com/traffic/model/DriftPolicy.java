@@ -0,0 +1,16 @@
+package com.traffic.model;
+
+/** What a simulation runner does when its ticks fall behind the wall clock. */
+public enum DriftPolicy {
+    CATCH_UP("Run the missed steps back to back until the runner is on schedule again"),
+    SKIP("Drop the missed steps, count them and continue on the original schedule"),
+    DEGRADE("Slow the cadence while ticks are late and return to it once they are on time again");
+    
+    private final String description;
+    
+    DriftPolicy(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,16 @@
+package com.traffic.model;
+
+/** What happens to a sequenced sensor reading that is older than its source's reorder window. */
+public enum LateDataPolicy {
+    DROP("Discard the reading"),
+    APPLY("Apply the counts no newer reading has set"),
+    RESTART("Treat it as a restarted detector and restart the source's window at its sequence");
+    
+    private final String description;
+    
+    LateDataPolicy(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() { return description; }
+}
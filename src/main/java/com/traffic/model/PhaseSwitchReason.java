@@ -0,0 +1,16 @@
+package com.traffic.model;
+
+/** Why the controller switched phase at a step. */
+public enum PhaseSwitchReason {
+    MAX_GREEN("The green phase reached its maximum green time"),
+    MIN_GREEN("The waiting phase was over the switching threshold and the minimum green time just ran out"),
+    THRESHOLD("The waiting phase's density exceeded the switching threshold times the green phase's");
+    
+    private final String description;
+    
+    PhaseSwitchReason(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,21 @@
+package com.traffic.model;
+
+public enum SensorHealth {
+    OK("Readings look plausible"),
+    SPIKE("Latest reading jumped away from the smoothed level and was replaced by it"),
+    STUCK("Same non-zero count reported for too many readings; ignored"),
+    DROPOUT("No reading within the dropout window"),
+    NO_DATA("No reading received yet");
+    
+    private final String description;
+    
+    SensorHealth(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() { return description; }
+    
+    public boolean isFault() {
+        return this == STUCK || this == DROPOUT;
+    }
+}
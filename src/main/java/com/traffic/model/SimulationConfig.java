@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.traffic.dto.ScenarioTemplate;
 import java.time.LocalDateTime;
 
 @Entity
@@ -13,7 +14,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class SimulationConfig {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -99,4 +100,32 @@ public class SimulationConfig {
     
     @Column(name = "is_active")
     private Boolean isActive;
+    
+    /** A config with the template's name, scenario and parameters; ID, creation time and active flag are left unset. */
+    public static SimulationConfig fromTemplate(ScenarioTemplate template) {
+        return SimulationConfig.builder()
+                .name(template.getName())
+                .scenario(template.getScenario())
+                .lambdaNorth(template.getLambdaNorth())
+                .lambdaSouth(template.getLambdaSouth())
+                .lambdaEast(template.getLambdaEast())
+                .lambdaWest(template.getLambdaWest())
+                .muNorth(template.getMuNorth())
+                .muSouth(template.getMuSouth())
+                .muEast(template.getMuEast())
+                .muWest(template.getMuWest())
+                .sigmaNorth(template.getSigmaNorth())
+                .sigmaSouth(template.getSigmaSouth())
+                .sigmaEast(template.getSigmaEast())
+                .sigmaWest(template.getSigmaWest())
+                .minGreenTime(template.getMinGreenTime())
+                .maxGreenTime(template.getMaxGreenTime())
+                .yellowTime(template.getYellowTime())
+                .redClearanceTime(template.getRedClearanceTime())
+                .pedestrianWeight(template.getPedestrianWeight())
+                .switchingThreshold(template.getSwitchingThreshold())
+                .vehiclePerformanceWeight(template.getVehiclePerformanceWeight())
+                .pedestrianPerformanceWeight(template.getPedestrianPerformanceWeight())
+                .build();
+    }
 }
@@ -74,4 +74,8 @@ public class TrafficState {
     
     @Column(name = "phase2_density")
     private Double phase2Density;
+    
+    // Set by the engine on the step that switched phase, for the switch journal; not persisted
+    @Transient
+    private PhaseSwitchReason switchReason;
 }
\ No newline at end of file
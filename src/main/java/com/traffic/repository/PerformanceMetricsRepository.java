@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,7 @@ public interface PerformanceMetricsRepository extends JpaRepository<PerformanceM
     
     List<PerformanceMetrics> findAllByOrderByCalculatedAtDesc();
     
+    @Transactional
     void deleteBySimulationId(String simulationId);
     
     @Query("SELECT pm FROM PerformanceMetrics pm ORDER BY pm.combinedPerformanceIndex ASC LIMIT :limit")
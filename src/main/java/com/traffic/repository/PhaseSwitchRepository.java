@@ -0,0 +1,97 @@
+package com.traffic.repository;
+
+import com.traffic.dto.PhaseSwitchRecord;
+import com.traffic.model.PhaseSwitchReason;
+import com.traffic.model.TrafficPhase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** The persisted phase switch journal, written in JDBC batches. */
+@Repository
+@RequiredArgsConstructor
+public class PhaseSwitchRepository {
+
+    private static final String INSERT = """
+            INSERT INTO phase_switches (simulation_id, time_step, timestamp, from_phase, to_phase, reason,
+                phase1_density, phase2_density, green_time)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String SELECT = """
+            SELECT simulation_id, time_step, timestamp, from_phase, to_phase, reason,
+                phase1_density, phase2_density, green_time
+            FROM phase_switches
+            """;
+
+    private static final RowMapper<PhaseSwitchRecord> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        return PhaseSwitchRecord.builder()
+                .simulationId(rs.getString("simulation_id"))
+                .timeStep(rs.getLong("time_step"))
+                .timestamp(timestamp != null ? timestamp.toLocalDateTime() : null)
+                .fromPhase(TrafficPhase.valueOf(rs.getString("from_phase")))
+                .toPhase(TrafficPhase.valueOf(rs.getString("to_phase")))
+                .reason(PhaseSwitchReason.valueOf(rs.getString("reason")))
+                .phase1Density(rs.getDouble("phase1_density"))
+                .phase2Density(rs.getDouble("phase2_density"))
+                .greenTime(rs.getInt("green_time"))
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<PhaseSwitchRecord> switches) {
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PhaseSwitchRecord record = switches.get(i);
+                ps.setString(1, record.getSimulationId());
+                ps.setLong(2, record.getTimeStep());
+                ps.setTimestamp(3, record.getTimestamp() != null ? Timestamp.valueOf(record.getTimestamp()) : null);
+                ps.setString(4, record.getFromPhase().name());
+                ps.setString(5, record.getToPhase().name());
+                ps.setString(6, record.getReason().name());
+                ps.setDouble(7, record.getPhase1Density());
+                ps.setDouble(8, record.getPhase2Density());
+                ps.setInt(9, record.getGreenTime());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return switches.size();
+            }
+        });
+    }
+
+    /** The last {@code limit} switches of a simulation, optionally between two time steps, oldest first. */
+    public List<PhaseSwitchRecord> find(String simulationId, Long fromStep, Long toStep, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT).append("WHERE simulation_id = ?");
+        List<Object> args = new ArrayList<>(List.of(simulationId));
+        if (fromStep != null) {
+            sql.append(" AND time_step >= ?");
+            args.add(fromStep);
+        }
+        if (toStep != null) {
+            sql.append(" AND time_step <= ?");
+            args.add(toStep);
+        }
+        sql.append(" ORDER BY time_step DESC LIMIT ?");
+        args.add(limit);
+        List<PhaseSwitchRecord> newestFirst = new ArrayList<>(jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray()));
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    public void deleteBySimulationId(String simulationId) {
+        jdbcTemplate.update("DELETE FROM phase_switches WHERE simulation_id = ?", simulationId);
+    }
+}
@@ -0,0 +1,69 @@
+package com.traffic.repository;
+
+import com.traffic.dto.SensorReading;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Applies sensor counts to the latest state row of many simulations in one JDBC batch,
+ * bypassing the entity load-modify-save cycle.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorReadingBatchRepository {
+
+    private static final String UPDATE_LATEST_STATE = """
+            UPDATE traffic_states SET
+                vehicles_north = COALESCE(?, vehicles_north),
+                vehicles_south = COALESCE(?, vehicles_south),
+                vehicles_east = COALESCE(?, vehicles_east),
+                vehicles_west = COALESCE(?, vehicles_west),
+                pedestrians_north = COALESCE(?, pedestrians_north),
+                pedestrians_south = COALESCE(?, pedestrians_south),
+                pedestrians_east = COALESCE(?, pedestrians_east),
+                pedestrians_west = COALESCE(?, pedestrians_west)
+            WHERE id = (SELECT id FROM traffic_states WHERE simulation_id = ? ORDER BY time_step DESC LIMIT 1)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Returns the updated row count per reading; 0 means the simulation has no state. */
+    @Transactional
+    public int[] updateLatestStates(List<SensorReading> readings) {
+        return jdbcTemplate.batchUpdate(UPDATE_LATEST_STATE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SensorReading reading = readings.get(i);
+                setCount(ps, 1, reading.getVehiclesNorth());
+                setCount(ps, 2, reading.getVehiclesSouth());
+                setCount(ps, 3, reading.getVehiclesEast());
+                setCount(ps, 4, reading.getVehiclesWest());
+                setCount(ps, 5, reading.getPedestriansNorth());
+                setCount(ps, 6, reading.getPedestriansSouth());
+                setCount(ps, 7, reading.getPedestriansEast());
+                setCount(ps, 8, reading.getPedestriansWest());
+                ps.setString(9, reading.getSimulationId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return readings.size();
+            }
+        });
+    }
+
+    private static void setCount(PreparedStatement ps, int index, Integer count) throws SQLException {
+        if (count == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, count);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.traffic.repository;
+
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Inserts simulation configs and their initial states in JDBC batches of {@code batchSize} rows,
+ * instead of one entity save, and one statement, per simulation.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SimulationBatchRepository {
+
+    private static final String INSERT_CONFIG = """
+            INSERT INTO simulation_configs (simulation_id, name, scenario,
+                lambda_north, lambda_south, lambda_east, lambda_west,
+                mu_north, mu_south, mu_east, mu_west,
+                sigma_north, sigma_south, sigma_east, sigma_west,
+                min_green_time, max_green_time, yellow_time, red_clearance_time,
+                pedestrian_weight, switching_threshold, vehicle_performance_weight, pedestrian_performance_weight,
+                created_at, is_active)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_STATE = """
+            INSERT INTO traffic_states (simulation_id, time_step, timestamp,
+                vehicles_north, vehicles_south, vehicles_east, vehicles_west,
+                pedestrians_north, pedestrians_south, pedestrians_east, pedestrians_west,
+                current_phase, current_green_time, calculated_green_time, phase1_density, phase2_density)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertConfigs(List<SimulationConfig> configs, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_CONFIG, configs, batchSize, (ps, config) -> {
+            ps.setString(1, config.getSimulationId());
+            ps.setString(2, config.getName());
+            ps.setString(3, config.getScenario() != null ? config.getScenario().name() : null);
+            setDouble(ps, 4, config.getLambdaNorth());
+            setDouble(ps, 5, config.getLambdaSouth());
+            setDouble(ps, 6, config.getLambdaEast());
+            setDouble(ps, 7, config.getLambdaWest());
+            setDouble(ps, 8, config.getMuNorth());
+            setDouble(ps, 9, config.getMuSouth());
+            setDouble(ps, 10, config.getMuEast());
+            setDouble(ps, 11, config.getMuWest());
+            setDouble(ps, 12, config.getSigmaNorth());
+            setDouble(ps, 13, config.getSigmaSouth());
+            setDouble(ps, 14, config.getSigmaEast());
+            setDouble(ps, 15, config.getSigmaWest());
+            setInt(ps, 16, config.getMinGreenTime());
+            setInt(ps, 17, config.getMaxGreenTime());
+            setInt(ps, 18, config.getYellowTime());
+            setInt(ps, 19, config.getRedClearanceTime());
+            setDouble(ps, 20, config.getPedestrianWeight());
+            setDouble(ps, 21, config.getSwitchingThreshold());
+            setDouble(ps, 22, config.getVehiclePerformanceWeight());
+            setDouble(ps, 23, config.getPedestrianPerformanceWeight());
+            ps.setTimestamp(24, timestamp(config.getCreatedAt()));
+            ps.setObject(25, config.getIsActive(), Types.BOOLEAN);
+        });
+    }
+
+    public void insertStates(List<TrafficState> states, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_STATE, states, batchSize, (ps, state) -> {
+            ps.setString(1, state.getSimulationId());
+            ps.setLong(2, state.getTimeStep());
+            ps.setTimestamp(3, timestamp(state.getTimestamp()));
+            setInt(ps, 4, state.getVehiclesNorth());
+            setInt(ps, 5, state.getVehiclesSouth());
+            setInt(ps, 6, state.getVehiclesEast());
+            setInt(ps, 7, state.getVehiclesWest());
+            setInt(ps, 8, state.getPedestriansNorth());
+            setInt(ps, 9, state.getPedestriansSouth());
+            setInt(ps, 10, state.getPedestriansEast());
+            setInt(ps, 11, state.getPedestriansWest());
+            ps.setString(12, state.getCurrentPhase().name());
+            setInt(ps, 13, state.getCurrentGreenTime());
+            setInt(ps, 14, state.getCalculatedGreenTime());
+            setDouble(ps, 15, state.getPhase1Density());
+            setDouble(ps, 16, state.getPhase2Density());
+        });
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    private static void setInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+}
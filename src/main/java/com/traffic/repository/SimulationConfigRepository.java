@@ -4,6 +4,8 @@ import com.traffic.model.SimulationConfig;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +14,8 @@ public interface SimulationConfigRepository extends JpaRepository<SimulationConf
     
     Optional<SimulationConfig> findBySimulationId(String simulationId);
     
+    List<SimulationConfig> findBySimulationIdIn(Collection<String> simulationIds);
+    
     List<SimulationConfig> findByIsActiveTrue();
     
     Optional<SimulationConfig> findByName(String name);
@@ -19,5 +23,6 @@ public interface SimulationConfigRepository extends JpaRepository<SimulationConf
     @Query("SELECT sc FROM SimulationConfig sc WHERE sc.isActive = true ORDER BY sc.createdAt DESC LIMIT 1")
     Optional<SimulationConfig> findLatestActive();
     
+    @Transactional
     void deleteBySimulationId(String simulationId);
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +20,10 @@ public interface TrafficStateRepository extends JpaRepository<TrafficState, Long
     @Query("SELECT ts FROM TrafficState ts WHERE ts.simulationId = :simulationId ORDER BY ts.timeStep DESC LIMIT 1")
     Optional<TrafficState> findLatestBySimulationId(@Param("simulationId") String simulationId);
     
+    @Query("SELECT ts FROM TrafficState ts WHERE ts.simulationId IN :simulationIds AND ts.timeStep = "
+            + "(SELECT MAX(t.timeStep) FROM TrafficState t WHERE t.simulationId = ts.simulationId)")
+    List<TrafficState> findLatestBySimulationIdIn(@Param("simulationIds") Collection<String> simulationIds);
+    
     @Query("SELECT ts FROM TrafficState ts WHERE ts.simulationId = :simulationId AND ts.timeStep >= :fromStep AND ts.timeStep <= :toStep ORDER BY ts.timeStep ASC")
     List<TrafficState> findBySimulationIdAndTimeStepRange(
         @Param("simulationId") String simulationId,
@@ -25,6 +31,7 @@ public interface TrafficStateRepository extends JpaRepository<TrafficState, Long
         @Param("toStep") Long toStep
     );
     
+    @Transactional
     void deleteBySimulationId(String simulationId);
     
     @Query("SELECT COUNT(ts) FROM TrafficState ts WHERE ts.simulationId = :simulationId")
@@ -0,0 +1,57 @@
+package com.traffic.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams stored traffic states row by row, in time step order, for server-side aggregation;
+ * rows are handed to the callback straight from the result set, without loading entities.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TrafficStateScanRepository {
+
+    private static final String SELECT = """
+            SELECT time_step, timestamp, vehicles_north, vehicles_south, vehicles_east, vehicles_west,
+                pedestrians_north, pedestrians_south, pedestrians_east, pedestrians_west,
+                current_phase, phase1_density, phase2_density
+            FROM traffic_states
+            WHERE simulation_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void scan(String simulationId, Long fromStep, Long toStep, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> args = new ArrayList<>(List.of(simulationId));
+        if (fromStep != null) {
+            sql.append(" AND time_step >= ?");
+            args.add(fromStep);
+        }
+        if (toStep != null) {
+            sql.append(" AND time_step <= ?");
+            args.add(toStep);
+        }
+        sql.append(" ORDER BY time_step");
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(sql.toString());
+            statement.setFetchSize(1000);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, handler);
+    }
+
+    /** Row count and last time step of a simulation's history, to tell whether it changed since a query ran. */
+    public long[] stamp(String simulationId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(MAX(time_step), -1) FROM traffic_states WHERE simulation_id = ?",
+                (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)},
+                simulationId);
+    }
+}
@@ -0,0 +1,357 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.DetectorSourceStats;
+import com.traffic.dto.DetectorStatsResponse;
+import com.traffic.dto.SensorReading;
+import com.traffic.util.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional UDP/TCP listener for loop-detector packets in the {@link DetectorPacketCodec} layout,
+ * enabled with {@code traffic.detector.enabled}. One selector thread serves both transports; datagrams
+ * and stream records are decoded in place from reused buffers and queued for an ingest thread, which hands
+ * them to {@link SensorIngestionService} in batches, the same path as the HTTP sensor endpoints. The selector
+ * thread never waits on the database or the log; readings that find the queue full are dropped and counted
+ * as rejected.
+ * <p>
+ * Sources are tracked by detector ID: sequence gaps count as loss (a late packet that fills a gap takes
+ * it back), and the difference between receive time and the detector's timestamp is kept as lag.
+ * Packets older than the newest one seen from a source are counted but not applied.
+ */
+@Service
+@Slf4j
+public class DetectorListenerService {
+
+    private static final int TCP_BUFFER_RECORDS = 64;
+    private static final long HALF_SEQUENCE_RANGE = 1L << 31;
+
+    private final SensorIngestionService ingestionService;
+    private final TrafficProperties properties;
+
+    // Detector timestamps are local time read as UTC; the receive time is shifted the same way for lag
+    private final TimeZone localZone = TimeZone.getDefault();
+    private final ByteBuffer datagram = ByteBuffer.allocateDirect(65_507).order(ByteOrder.LITTLE_ENDIAN);
+    private final LongAdder invalidPackets = new LongAdder();
+    private final LongAdder rejectedReadings = new LongAdder();
+    // Copied on write by the listener thread when a new source appears; read by stats requests
+    private volatile SourceTable sources = new SourceTable(new long[0], new Source[0]);
+
+    private BlockingQueue<SensorReading> pending;
+    private Selector selector;
+    private DatagramChannel udp;
+    private ServerSocketChannel tcp;
+    private Thread thread;
+    private Thread ingester;
+
+    public DetectorListenerService(SensorIngestionService ingestionService, TrafficProperties properties) {
+        this.ingestionService = ingestionService;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        TrafficProperties.DetectorConfig config = properties.getDetector();
+        if (!config.isEnabled()) return;
+
+        selector = Selector.open();
+        if (config.getUdpPort() > 0) {
+            udp = DatagramChannel.open();
+            udp.bind(new InetSocketAddress(config.getBindAddress(), config.getUdpPort()));
+            udp.configureBlocking(false);
+            udp.register(selector, SelectionKey.OP_READ);
+        }
+        if (config.getTcpPort() > 0) {
+            tcp = ServerSocketChannel.open();
+            tcp.bind(new InetSocketAddress(config.getBindAddress(), config.getTcpPort()));
+            tcp.configureBlocking(false);
+            tcp.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        pending = new ArrayBlockingQueue<>(config.getIngestQueueCapacity());
+        ingester = new Thread(this::ingestLoop, "detector-ingest");
+        ingester.setDaemon(true);
+        ingester.start();
+        thread = new Thread(this::run, "detector-listener");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Detector listener on {} (udp {}, tcp {})", config.getBindAddress(), config.getUdpPort(), config.getTcpPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (selector == null) return;
+        thread.interrupt();
+        ingester.interrupt();
+        selector.close();
+        if (udp != null) udp.close();
+        if (tcp != null) tcp.close();
+    }
+
+    public DetectorStatsResponse getStats() {
+        TrafficProperties.DetectorConfig config = properties.getDetector();
+        Source[] current = sources.sources;
+        List<DetectorSourceStats> sourceStats = new ArrayList<>(current.length);
+        for (Source source : current) {
+            sourceStats.add(source.toStats());
+        }
+        return DetectorStatsResponse.builder()
+                .enabled(config.isEnabled())
+                .udpPort(config.getUdpPort())
+                .tcpPort(config.getTcpPort())
+                .invalidPackets(invalidPackets.sum())
+                .rejectedReadings(rejectedReadings.sum())
+                .sources(sourceStats)
+                .build();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select(this::onReady);
+            }
+        } catch (ClosedSelectorException e) {
+            // Shutting down
+        } catch (IOException e) {
+            log.error("Detector listener stopped", e);
+        }
+    }
+
+    private void ingestLoop() {
+        List<SensorReading> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                SensorReading first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                pending.drainTo(batch, properties.getSensors().getBulkMaxReadings() - 1);
+                rejectedReadings.add(ingestionService.ingest(batch).getRejected());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                rejectedReadings.add(batch.size());
+                log.debug("Detector readings failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void onReady(SelectionKey key) {
+        try {
+            if (key.channel() == udp) {
+                receiveDatagrams();
+            } else if (key.isAcceptable()) {
+                SocketChannel connection = tcp.accept();
+                if (connection == null) return;
+                connection.configureBlocking(false);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(TCP_BUFFER_RECORDS * DetectorPacketCodec.RECORD_SIZE)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                connection.register(selector, SelectionKey.OP_READ, new Connection(buffer, connection.getRemoteAddress()));
+                log.debug("Detector connected from {}", connection.getRemoteAddress());
+            } else if (key.isReadable()) {
+                readStream(key);
+            }
+        } catch (IOException e) {
+            log.debug("Detector channel error: {}", e.getMessage());
+            closeQuietly(key);
+        }
+    }
+
+    private void receiveDatagrams() throws IOException {
+        SocketAddress from;
+        while ((from = udp.receive(datagram.clear())) != null) {
+            datagram.flip();
+            if (datagram.remaining() == 0 || datagram.remaining() % DetectorPacketCodec.RECORD_SIZE != 0) {
+                invalidPackets.increment();
+                continue;
+            }
+            for (int offset = 0; offset < datagram.limit(); offset += DetectorPacketCodec.RECORD_SIZE) {
+                handle(datagram, offset, from);
+            }
+        }
+    }
+
+    private void readStream(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer buffer = connection.buffer;
+        if (channel.read(buffer) < 0) {
+            log.debug("Detector disconnected from {}", connection.remoteAddress);
+            closeQuietly(key);
+            return;
+        }
+        buffer.flip();
+        int offset = 0;
+        while (buffer.limit() - offset >= DetectorPacketCodec.RECORD_SIZE) {
+            handle(buffer, offset, connection.remoteAddress);
+            offset += DetectorPacketCodec.RECORD_SIZE;
+        }
+        buffer.position(offset);
+        buffer.compact();
+    }
+
+    private void handle(ByteBuffer buffer, int offset, SocketAddress from) {
+        if (DetectorPacketCodec.version(buffer, offset) != DetectorPacketCodec.VERSION) {
+            invalidPackets.increment();
+            return;
+        }
+        long receivedAt = System.currentTimeMillis();
+        long lagMs = receivedAt + localZone.getOffset(receivedAt) - DetectorPacketCodec.timestampMillis(buffer, offset);
+        Source source = source(DetectorPacketCodec.sourceId(buffer, offset), from);
+        if (!source.accept(DetectorPacketCodec.sequence(buffer, offset), lagMs, receivedAt)) {
+            return;
+        }
+
+        String simulationId = source.simulationId(
+                DetectorPacketCodec.simulationMsb(buffer, offset), DetectorPacketCodec.simulationLsb(buffer, offset));
+        if (!pending.offer(DetectorPacketCodec.toReading(buffer, offset, simulationId, source.key))) {
+            rejectedReadings.increment();
+            log.debug("Detector {} reading dropped: ingest queue full", source.id);
+        }
+    }
+
+    // Only called from the listener thread
+    private Source source(long id, SocketAddress from) {
+        SourceTable table = sources;
+        int index = Arrays.binarySearch(table.ids, id);
+        if (index >= 0) {
+            Source source = table.sources[index];
+            source.remoteAddress = from;
+            return source;
+        }
+        int insertAt = -index - 1;
+        long[] ids = new long[table.ids.length + 1];
+        Source[] entries = new Source[ids.length];
+        System.arraycopy(table.ids, 0, ids, 0, insertAt);
+        System.arraycopy(table.sources, 0, entries, 0, insertAt);
+        System.arraycopy(table.ids, insertAt, ids, insertAt + 1, table.ids.length - insertAt);
+        System.arraycopy(table.sources, insertAt, entries, insertAt + 1, table.ids.length - insertAt);
+        Source source = new Source(id);
+        source.remoteAddress = from;
+        ids[insertAt] = id;
+        entries[insertAt] = source;
+        sources = new SourceTable(ids, entries);
+        log.info("New detector source {} from {}", id, from);
+        return source;
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private record SourceTable(long[] ids, Source[] sources) {
+    }
+
+    private record Connection(ByteBuffer buffer, SocketAddress remoteAddress) {
+    }
+
+    /** Written by the listener thread only; volatile fields are for stats readers. */
+    private static final class Source {
+        private final long id;
+        // Source ID of its readings for SensorSequencer
+        private final String key;
+        private final LatencyHistogram lag = new LatencyHistogram();
+        private volatile SocketAddress remoteAddress;
+        private volatile long received;
+        private volatile long lost;
+        private volatile long duplicates;
+        private volatile long outOfOrder;
+        private volatile long lastLagMs;
+        private volatile long lastSeenAt;
+        private long lastSequence = -1;
+        // The simulation ID string is kept while the detector keeps reporting for the same simulation
+        private long simulationMsb;
+        private long simulationLsb;
+        private String simulationId;
+
+        Source(long id) {
+            this.id = id;
+            this.key = "detector-" + id;
+        }
+
+        /** Updates the counters and returns whether the packet is the newest from this source. */
+        boolean accept(long sequence, long lagMs, long receivedAt) {
+            received++;
+            lastSeenAt = receivedAt;
+            lastLagMs = lagMs;
+            lag.record(lagMs);
+            if (lastSequence < 0) {
+                lastSequence = sequence;
+                return true;
+            }
+            // Distance on the 32-bit ring; the upper half means the packet is behind the newest one
+            long distance = (sequence - lastSequence) & 0xFFFF_FFFFL;
+            if (distance == 0) {
+                duplicates++;
+                return false;
+            }
+            if (distance >= HALF_SEQUENCE_RANGE) {
+                outOfOrder++;
+                if (lost > 0) lost--;
+                return false;
+            }
+            lost += distance - 1;
+            lastSequence = sequence;
+            return true;
+        }
+
+        String simulationId(long msb, long lsb) {
+            if (simulationId == null || msb != simulationMsb || lsb != simulationLsb) {
+                simulationMsb = msb;
+                simulationLsb = lsb;
+                simulationId = new UUID(msb, lsb).toString();
+            }
+            return simulationId;
+        }
+
+        DetectorSourceStats toStats() {
+            long expected = received + lost;
+            return DetectorSourceStats.builder()
+                    .sourceId(id)
+                    .remoteAddress(String.valueOf(remoteAddress))
+                    .simulationId(simulationId)
+                    .packetsReceived(received)
+                    .packetsLost(lost)
+                    .duplicates(duplicates)
+                    .outOfOrder(outOfOrder)
+                    .lossRate(expected > 0 ? (double) lost / expected : 0.0)
+                    .lastLagMs(lastLagMs)
+                    .lagP50Ms(lag.percentile(50))
+                    .lagP99Ms(lag.percentile(99))
+                    .maxLagMs(lag.max())
+                    .lastSeenAt(lastSeenAt > 0
+                            ? LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeenAt), ZoneId.systemDefault()) : null)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.traffic.service;
+
+import com.traffic.dto.SensorReading;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Fixed-layout count packet sent by loop detectors to {@link DetectorListenerService}. Every record is
+ * {@value #RECORD_SIZE} bytes, little-endian; a UDP datagram or TCP stream may carry several back to back:
+ * <pre>
+ * offset type  field
+ *  0     u8    version ({@value #VERSION})
+ *  1     u8    flags (reserved, 0)
+ *  2     u16   reserved
+ *  4     u32   sourceId, unique per detector
+ *  8     u32   sequence, incremented per packet by the detector, wrapping
+ * 12     i64   timestamp, epoch millis of the local measurement time read as UTC
+ * 20     i64   simulationId, most significant bits of the UUID
+ * 28     i64   simulationId, least significant bits of the UUID
+ * 36     u16   vehiclesNorth, vehiclesSouth, vehiclesEast, vehiclesWest
+ * 44     u16   pedestriansNorth, pedestriansSouth, pedestriansEast, pedestriansWest
+ * </pre>
+ * A count of 0xFFFF means the detector did not measure it. Readers use absolute gets, so decoding
+ * does not move the buffer position or allocate.
+ */
+public final class DetectorPacketCodec {
+
+    public static final int RECORD_SIZE = 52;
+    public static final int VERSION = 1;
+
+    static final int SOURCE_ID = 4;
+    static final int SEQUENCE = 8;
+    static final int TIMESTAMP = 12;
+    static final int SIMULATION_MSB = 20;
+    static final int SIMULATION_LSB = 28;
+    static final int COUNTS = 36;
+
+    private static final int U16_MISSING = 0xFFFF;
+
+    private DetectorPacketCodec() {
+    }
+
+    /** Writes one record at the buffer's position and advances it. */
+    public static void encode(ByteBuffer buffer, long sourceId, long sequence, SensorReading reading) {
+        ByteBuffer out = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        UUID simulationId = UUID.fromString(reading.getSimulationId());
+        out.put((byte) VERSION);
+        out.put((byte) 0);
+        out.putShort((short) 0);
+        out.putInt((int) sourceId);
+        out.putInt((int) sequence);
+        out.putLong(reading.getTimestamp() != null
+                ? reading.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli() : System.currentTimeMillis());
+        out.putLong(simulationId.getMostSignificantBits());
+        out.putLong(simulationId.getLeastSignificantBits());
+        out.putShort(u16(reading.getVehiclesNorth()));
+        out.putShort(u16(reading.getVehiclesSouth()));
+        out.putShort(u16(reading.getVehiclesEast()));
+        out.putShort(u16(reading.getVehiclesWest()));
+        out.putShort(u16(reading.getPedestriansNorth()));
+        out.putShort(u16(reading.getPedestriansSouth()));
+        out.putShort(u16(reading.getPedestriansEast()));
+        out.putShort(u16(reading.getPedestriansWest()));
+    }
+
+    // Absolute readers for the record starting at offset; the buffer must be little-endian
+
+    static int version(ByteBuffer buffer, int offset) {
+        return buffer.get(offset) & 0xFF;
+    }
+
+    static long sourceId(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + SOURCE_ID) & 0xFFFF_FFFFL;
+    }
+
+    static long sequence(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + SEQUENCE) & 0xFFFF_FFFFL;
+    }
+
+    static long timestampMillis(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + TIMESTAMP);
+    }
+
+    static long simulationMsb(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + SIMULATION_MSB);
+    }
+
+    static long simulationLsb(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + SIMULATION_LSB);
+    }
+
+    /** The count at {@code index} (0-7, in layout order), or -1 when not measured. */
+    static int count(ByteBuffer buffer, int offset, int index) {
+        int value = buffer.getShort(offset + COUNTS + 2 * index) & 0xFFFF;
+        return value == U16_MISSING ? -1 : value;
+    }
+
+    /** Builds the ingest reading for a record whose simulation and source IDs have already been resolved. */
+    static SensorReading toReading(ByteBuffer buffer, int offset, String simulationId, String sourceId) {
+        return SensorReading.builder()
+                .simulationId(simulationId)
+                .sourceId(sourceId)
+                .sequence(sequence(buffer, offset))
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis(buffer, offset)), ZoneOffset.UTC))
+                .vehiclesNorth(boxed(count(buffer, offset, 0)))
+                .vehiclesSouth(boxed(count(buffer, offset, 1)))
+                .vehiclesEast(boxed(count(buffer, offset, 2)))
+                .vehiclesWest(boxed(count(buffer, offset, 3)))
+                .pedestriansNorth(boxed(count(buffer, offset, 4)))
+                .pedestriansSouth(boxed(count(buffer, offset, 5)))
+                .pedestriansEast(boxed(count(buffer, offset, 6)))
+                .pedestriansWest(boxed(count(buffer, offset, 7)))
+                .build();
+    }
+
+    private static Integer boxed(int count) {
+        return count < 0 ? null : count;
+    }
+
+    private static short u16(Integer value) {
+        if (value == null || value < 0) return (short) U16_MISSING;
+        return (short) Math.min(value, U16_MISSING - 1);
+    }
+}
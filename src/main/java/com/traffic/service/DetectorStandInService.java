@@ -0,0 +1,106 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorReading;
+import com.traffic.dto.StateSnapshot;
+import com.traffic.dto.TrafficStateResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stand-in for detector hardware: when {@code traffic.detector.stand-in-enabled} is set, sends one UDP
+ * packet per running simulation to the local {@link DetectorListenerService} every
+ * {@code stand-in-interval-ms}, with counts near the simulation's current state. A share of packets
+ * ({@code stand-in-loss-rate}) is skipped while still using up a sequence number, so the listener's
+ * loss accounting can be checked.
+ */
+@Service
+@Slf4j
+public class DetectorStandInService {
+
+    private final TrafficSimulationService simulationService;
+    private final StateSnapshotService snapshotService;
+    private final TrafficProperties properties;
+
+    private final ByteBuffer packet = ByteBuffer.allocate(DetectorPacketCodec.RECORD_SIZE);
+    private final Map<String, StandInDetector> detectors = new ConcurrentHashMap<>();
+    private DatagramChannel channel;
+    private long nextSourceId = 1;
+
+    public DetectorStandInService(TrafficSimulationService simulationService,
+                                  StateSnapshotService snapshotService,
+                                  TrafficProperties properties) {
+        this.simulationService = simulationService;
+        this.snapshotService = snapshotService;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedRateString = "${traffic.detector.stand-in-interval-ms:1000}")
+    public void send() {
+        TrafficProperties.DetectorConfig config = properties.getDetector();
+        if (!config.isEnabled() || !config.isStandInEnabled() || config.getUdpPort() <= 0) return;
+
+        try {
+            if (channel == null) {
+                channel = DatagramChannel.open();
+                channel.connect(new InetSocketAddress(config.getBindAddress(), config.getUdpPort()));
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (String simulationId : simulationService.getActiveSimulationScenarios().keySet()) {
+                TrafficStateResponse state = snapshotService.getLatest(simulationId).map(StateSnapshot::getState).orElse(null);
+                if (state == null) continue;
+
+                StandInDetector detector = detectors.computeIfAbsent(simulationId, id -> new StandInDetector(nextSourceId++));
+                long sequence = detector.sequence++;
+                if (random.nextDouble() < config.getStandInLossRate()) continue;
+
+                SensorReading reading = SensorReading.builder()
+                        .simulationId(simulationId)
+                        .timestamp(LocalDateTime.now())
+                        .vehiclesNorth(jitter(state.getVehiclesNorth(), random))
+                        .vehiclesSouth(jitter(state.getVehiclesSouth(), random))
+                        .vehiclesEast(jitter(state.getVehiclesEast(), random))
+                        .vehiclesWest(jitter(state.getVehiclesWest(), random))
+                        .pedestriansNorth(jitter(state.getPedestriansNorth(), random))
+                        .pedestriansSouth(jitter(state.getPedestriansSouth(), random))
+                        .pedestriansEast(jitter(state.getPedestriansEast(), random))
+                        .pedestriansWest(jitter(state.getPedestriansWest(), random))
+                        .build();
+                DetectorPacketCodec.encode(packet.clear(), detector.sourceId, sequence, reading);
+                channel.write(packet.flip());
+            }
+            detectors.keySet().retainAll(simulationService.getActiveSimulationScenarios().keySet());
+        } catch (IOException e) {
+            log.debug("Stand-in detector send failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    private static Integer jitter(Integer count, ThreadLocalRandom random) {
+        if (count == null) return null;
+        return Math.max(0, count + random.nextInt(-1, 2));
+    }
+
+    private static final class StandInDetector {
+        private final long sourceId;
+        private long sequence;
+
+        StandInDetector(long sourceId) {
+            this.sourceId = sourceId;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.traffic.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.dto.TrafficStateResponse;
+import com.traffic.model.TrafficScenario;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes one batched overview of every running simulation on {@code /topic/fleet} at a fixed cadence
+ * ({@code traffic.streaming.fleet-interval-ms}), so a wall display needs one subscription instead of one per intersection.
+ * Built from the in-memory latest states only. Each frame lists one array per simulation:
+ * <pre>
+ * {"ts":1718000000000,"count":2,"sims":[
+ *   ["3f2a...","RUSH_HOUR",1,1234,37,4,21.5,40.3],
+ *   ...]}
+ * </pre>
+ * Columns: simulationId, scenario, phase (1 or 2), timeStep, vehicles queued, pedestrians waiting,
+ * phase1Density, phase2Density.
+ * <p>
+ * Subscriptions can be narrowed with SUBSCRIBE headers {@code x-scenario} and {@code x-simulations}
+ * (comma-separated). Each distinct filter is encoded once per frame.
+ */
+@Service
+@Slf4j
+public class FleetOverviewService {
+
+    public static final String DESTINATION = "/topic/fleet";
+    public static final String SCENARIO_HEADER = "x-scenario";
+    public static final String SIMULATIONS_HEADER = "x-simulations";
+
+    private final MessageChannel clientOutboundChannel;
+    private final TrafficSimulationService simulationService;
+    private final StateSnapshotService snapshotService;
+    private final JsonFactory jsonFactory;
+
+    // sessionId -> subscriptionId -> filter
+    private final Map<String, Map<String, FleetFilter>> subscriptions = new ConcurrentHashMap<>();
+
+    public FleetOverviewService(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                TrafficSimulationService simulationService,
+                                StateSnapshotService snapshotService,
+                                ObjectMapper objectMapper) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.simulationService = simulationService;
+        this.snapshotService = snapshotService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Scheduled(fixedRateString = "${traffic.streaming.fleet-interval-ms:1000}")
+    public void publish() {
+        if (subscriptions.isEmpty()) return;
+
+        List<FleetEntry> entries = collectEntries();
+        long timestamp = System.currentTimeMillis();
+        Map<FleetFilter, byte[]> payloads = new HashMap<>();
+        subscriptions.forEach((sessionId, sessionSubscriptions) ->
+                sessionSubscriptions.forEach((subscriptionId, filter) -> {
+                    byte[] payload = payloads.computeIfAbsent(filter, f -> encode(timestamp, entries, f));
+                    send(sessionId, subscriptionId, payload);
+                }));
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (!DESTINATION.equals(accessor.getDestination())) return;
+
+        FleetFilter filter = new FleetFilter(
+                parseScenarios(accessor.getFirstNativeHeader(SCENARIO_HEADER)),
+                parseList(accessor.getFirstNativeHeader(SIMULATIONS_HEADER)));
+        subscriptions.compute(accessor.getSessionId(), (id, sessionSubscriptions) -> {
+            Map<String, FleetFilter> result = sessionSubscriptions != null ? sessionSubscriptions : new ConcurrentHashMap<>();
+            result.put(accessor.getSubscriptionId(), filter);
+            return result;
+        });
+        log.debug("Fleet subscription {} on session {} ({})", accessor.getSubscriptionId(), accessor.getSessionId(), filter);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        subscriptions.computeIfPresent(accessor.getSessionId(), (id, sessionSubscriptions) -> {
+            sessionSubscriptions.remove(accessor.getSubscriptionId());
+            return sessionSubscriptions.isEmpty() ? null : sessionSubscriptions;
+        });
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        subscriptions.remove(event.getSessionId());
+    }
+
+    private List<FleetEntry> collectEntries() {
+        // Sorted so that clients see a stable row order between frames
+        Map<String, TrafficScenario> active = new TreeMap<>(simulationService.getActiveSimulationScenarios());
+        List<FleetEntry> entries = new ArrayList<>(active.size());
+        active.forEach((simulationId, scenario) -> snapshotService.getLatest(simulationId)
+                .ifPresent(snapshot -> entries.add(new FleetEntry(simulationId, scenario, snapshot.getState()))));
+        return entries;
+    }
+
+    private byte[] encode(long timestamp, List<FleetEntry> entries, FleetFilter filter) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(64 + entries.size() * 80);
+        try (JsonGenerator gen = jsonFactory.createGenerator(buffer)) {
+            List<FleetEntry> selected = entries.stream().filter(filter::matches).toList();
+            gen.writeStartObject();
+            gen.writeNumberField("ts", timestamp);
+            gen.writeNumberField("count", selected.size());
+            gen.writeArrayFieldStart("sims");
+            for (FleetEntry entry : selected) {
+                TrafficStateResponse state = entry.state();
+                gen.writeStartArray();
+                gen.writeString(entry.simulationId());
+                gen.writeString(entry.scenario() != null ? entry.scenario().name() : null);
+                gen.writeNumber(state.getCurrentPhase() != null ? state.getCurrentPhase().getValue() : 0);
+                gen.writeNumber(state.getTimeStep() != null ? state.getTimeStep() : 0L);
+                gen.writeNumber(sum(state.getVehiclesNorth(), state.getVehiclesSouth(),
+                        state.getVehiclesEast(), state.getVehiclesWest()));
+                gen.writeNumber(sum(state.getPedestriansNorth(), state.getPedestriansSouth(),
+                        state.getPedestriansEast(), state.getPedestriansWest()));
+                writeDensity(gen, state.getPhase1Density());
+                writeDensity(gen, state.getPhase2Density());
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private void send(String sessionId, String subscriptionId, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(DESTINATION);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        try {
+            clientOutboundChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        } catch (Exception e) {
+            log.debug("Failed to deliver fleet overview to session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private static int sum(Integer... values) {
+        int total = 0;
+        for (Integer value : values) {
+            if (value != null) total += value;
+        }
+        return total;
+    }
+
+    private static void writeDensity(JsonGenerator gen, Double density) throws IOException {
+        if (density == null) {
+            gen.writeNull();
+        } else {
+            // One decimal is plenty for an overview and keeps 500-row frames small
+            gen.writeNumber(Math.round(density * 10) / 10.0);
+        }
+    }
+
+    private static Set<TrafficScenario> parseScenarios(String header) {
+        Set<TrafficScenario> scenarios = EnumSet.noneOf(TrafficScenario.class);
+        for (String name : parseList(header)) {
+            try {
+                scenarios.add(TrafficScenario.valueOf(name.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring unknown scenario in {} header: {}", SCENARIO_HEADER, name);
+            }
+        }
+        return scenarios;
+    }
+
+    private static Set<String> parseList(String header) {
+        if (header == null || header.isBlank()) return Set.of();
+        return Arrays.stream(header.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private record FleetEntry(String simulationId, TrafficScenario scenario, TrafficStateResponse state) {
+    }
+
+    /** Empty sets match everything. */
+    private record FleetFilter(Set<TrafficScenario> scenarios, Set<String> simulationIds) {
+        boolean matches(FleetEntry entry) {
+            return (scenarios.isEmpty() || scenarios.contains(entry.scenario()))
+                    && (simulationIds.isEmpty() || simulationIds.contains(entry.simulationId()));
+        }
+    }
+}
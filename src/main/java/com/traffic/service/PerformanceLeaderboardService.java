@@ -0,0 +1,220 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.PerformanceMetricsResponse;
+import com.traffic.model.PerformanceMetrics;
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficScenario;
+import com.traffic.repository.PerformanceMetricsRepository;
+import com.traffic.repository.SimulationConfigRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of simulations by combined performance index (lower is better),
+ * kept overall and per scenario. Only the latest metrics of each simulation are ranked.
+ * Reads walk the head of a skip list, so a top-K query costs O(K) and never touches the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PerformanceLeaderboardService implements SimulationDeletionListener {
+
+    private final PerformanceMetricsRepository metricsRepository;
+    private final SimulationConfigRepository configRepository;
+    private final TrafficProperties properties;
+
+    // Both are published once, fully loaded, by initialize(); overall is written last and gates every use
+    private volatile Map<TrafficScenario, Board> scenarioBoards = Map.of();
+    private volatile Board overall;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        int capacity = getCapacity();
+        Board all = new Board(capacity, null);
+        Map<TrafficScenario, Board> boards = new EnumMap<>(TrafficScenario.class);
+        for (TrafficScenario scenario : TrafficScenario.values()) {
+            boards.put(scenario, new Board(capacity, scenario));
+        }
+        reloadAll(all, boards);
+        scenarioBoards = Collections.unmodifiableMap(boards);
+        overall = all;
+        log.info("Performance leaderboard initialized with {} ranked simulations", all.size);
+    }
+
+    public int getCapacity() {
+        return properties.getLeaderboard().getCapacity();
+    }
+
+    public void record(PerformanceMetrics metrics, TrafficScenario scenario) {
+        if (overall == null) return;
+
+        Entry entry = new Entry(metrics.getSimulationId(), scenario, PerformanceMetricsResponse.from(metrics));
+        overall.put(entry);
+        // A simulation belongs to one scenario, but drop it elsewhere in case its config was changed
+        for (Board board : scenarioBoards.values()) {
+            if (board.scenario == scenario) {
+                board.put(entry);
+            } else if (board.remove(entry.simulationId)) {
+                reload(board);
+            }
+        }
+    }
+
+    public void remove(String simulationId) {
+        if (overall == null) return;
+
+        if (overall.remove(simulationId)) {
+            reload(overall);
+        }
+        for (Board board : scenarioBoards.values()) {
+            if (board.remove(simulationId)) {
+                reload(board);
+            }
+        }
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        remove(simulationId);
+    }
+
+    public List<PerformanceMetricsResponse> getTop(int limit, TrafficScenario scenario) {
+        if (limit < 1 || limit > getCapacity()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + getCapacity());
+        }
+        Board board = scenario == null ? overall : scenarioBoards.get(scenario);
+        return board == null ? List.of() : board.top(limit);
+    }
+
+    // Rebuilds a board after one of its entries was deleted while others had been evicted for capacity
+    private void reload(Board board) {
+        log.debug("Reloading leaderboard {}", board.scenario != null ? board.scenario : "OVERALL");
+        List<Entry> entries = loadLatestEntries();
+        board.replaceAll(entries.stream()
+                .filter(e -> board.scenario == null || board.scenario == e.scenario)
+                .toList());
+    }
+
+    private void reloadAll(Board all, Map<TrafficScenario, Board> boards) {
+        List<Entry> entries = loadLatestEntries();
+        all.replaceAll(entries);
+        for (Board board : boards.values()) {
+            board.replaceAll(entries.stream().filter(e -> e.scenario == board.scenario).toList());
+        }
+    }
+
+    private List<Entry> loadLatestEntries() {
+        Map<String, TrafficScenario> scenarios = new HashMap<>();
+        for (SimulationConfig config : configRepository.findAll()) {
+            scenarios.put(config.getSimulationId(), config.getScenario());
+        }
+
+        // Rows arrive newest first, so the first row seen for a simulation is its current result
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        for (PerformanceMetrics metrics : metricsRepository.findAllByOrderByCalculatedAtDesc()) {
+            latest.computeIfAbsent(metrics.getSimulationId(), id ->
+                    new Entry(id, scenarios.get(id), PerformanceMetricsResponse.from(metrics)));
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    private record Entry(String simulationId, TrafficScenario scenario, PerformanceMetricsResponse metrics) {
+        double index() {
+            Double index = metrics.getCombinedPerformanceIndex();
+            return index != null ? index : Double.MAX_VALUE;
+        }
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingDouble(Entry::index)
+            .thenComparing(Entry::simulationId);
+
+    /**
+     * Bounded ranking backed by a skip list. Writers are serialized on the board;
+     * readers iterate the skip list without locking.
+     */
+    private static final class Board {
+        private final int capacity;
+        private final TrafficScenario scenario;
+        // Replaced whole by replaceAll, so a reader iterates either the old ranking or the complete new one
+        private volatile ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+        private final Map<String, Entry> bySimulation = new HashMap<>();
+        private int size;
+        // Set once an entry has been evicted, meaning the database knows results this board does not
+        private boolean truncated;
+
+        Board(int capacity, TrafficScenario scenario) {
+            this.capacity = capacity;
+            this.scenario = scenario;
+        }
+
+        synchronized void put(Entry entry) {
+            put(ranking, entry);
+        }
+
+        private void put(ConcurrentSkipListSet<Entry> target, Entry entry) {
+            Entry previous = bySimulation.put(entry.simulationId, entry);
+            if (previous == null) {
+                target.add(entry);
+                size++;
+            } else if (RANKING.compare(previous, entry) != 0) {
+                // Added before the old entry goes, so a reader never misses the simulation
+                target.add(entry);
+                target.remove(previous);
+            } else {
+                // Same rank: the set cannot hold both
+                target.remove(previous);
+                target.add(entry);
+            }
+            while (size > capacity) {
+                Entry evicted = target.pollLast();
+                bySimulation.remove(evicted.simulationId);
+                size--;
+                truncated = true;
+            }
+        }
+
+        /** Returns true when the board lost an entry it cannot refill from memory. */
+        synchronized boolean remove(String simulationId) {
+            Entry entry = bySimulation.remove(simulationId);
+            if (entry == null) return false;
+            ranking.remove(entry);
+            size--;
+            return truncated;
+        }
+
+        synchronized void replaceAll(List<Entry> entries) {
+            ConcurrentSkipListSet<Entry> replacement = new ConcurrentSkipListSet<>(RANKING);
+            bySimulation.clear();
+            size = 0;
+            truncated = false;
+            for (Entry entry : entries) {
+                put(replacement, entry);
+            }
+            ranking = replacement;
+        }
+
+        List<PerformanceMetricsResponse> top(int limit) {
+            List<PerformanceMetricsResponse> result = new ArrayList<>(limit);
+            Iterator<Entry> iterator = ranking.iterator();
+            while (result.size() < limit && iterator.hasNext()) {
+                result.add(iterator.next().metrics);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.traffic.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** A write of traffic data to the database or the sensor log. Only writes over the threshold are recorded. */
+@Name("traffic.PersistenceFlush")
+@Label("Persistence Flush")
+@Category({"Traffic", "Persistence"})
+@Description("A state save, a batched sensor update or a sensor log fsync")
+@Threshold("10 ms")
+@StackTrace(false)
+class PersistenceFlushEvent extends Event {
+
+    static final String TRAFFIC_STATE = "traffic_states";
+    static final String SENSOR_BATCH = "sensor_batch";
+    static final String SENSOR_LOG = "sensor_log";
+
+    @Label("Store")
+    @Description("traffic_states, sensor_batch or sensor_log")
+    String store;
+
+    @Label("Records")
+    int records;
+
+    @Label("Size")
+    @Description("Bytes written; sensor log only")
+    @DataAmount
+    long bytes;
+
+    static PersistenceFlushEvent start(String store) {
+        PersistenceFlushEvent event = new PersistenceFlushEvent();
+        event.store = store;
+        event.begin();
+        return event;
+    }
+
+    /** Ends the write and records it if it took longer than the threshold. */
+    void finish(int records, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.records = records;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
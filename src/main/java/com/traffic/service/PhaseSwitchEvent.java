@@ -0,0 +1,47 @@
+package com.traffic.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A phase switch made by the controller, with the densities it was made on. Switches are seconds apart, so all are recorded. */
+@Name("traffic.PhaseSwitch")
+@Label("Phase Switch")
+@Category({"Traffic", "Simulation"})
+@Description("The controller switched the green phase")
+@StackTrace(false)
+class PhaseSwitchEvent extends Event {
+
+    @Label("Simulation")
+    String simulationId;
+
+    @Label("Time Step")
+    long timeStep;
+
+    @Label("From Phase")
+    String fromPhase;
+
+    @Label("To Phase")
+    String toPhase;
+
+    @Label("Reason")
+    @Description("MAX_GREEN, MIN_GREEN or THRESHOLD")
+    String reason;
+
+    @Label("Green Time")
+    @Description("Seconds the previous phase was green")
+    int greenTime;
+
+    @Label("N-S Density")
+    double phase1Density;
+
+    @Label("E-W Density")
+    double phase2Density;
+
+    @Label("Calculated Green Time")
+    @Description("Seconds of green given to the new phase")
+    int calculatedGreenTime;
+}
@@ -0,0 +1,159 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.PhaseSwitchRecord;
+import com.traffic.repository.PhaseSwitchRepository;
+import com.traffic.util.RingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Journal of phase switch decisions. Runners hand each switch over without blocking; the last
+ * {@code traffic.journal.memory-size} switches of every simulation stay in memory, and all of them are written to
+ * {@code phase_switches} by one writer thread, one batch per {@code flush-interval-ms}. Queries are answered from
+ * memory when it holds everything asked for, otherwise from the table, which may be one interval behind.
+ */
+@Service
+@Slf4j
+public class PhaseSwitchJournalService implements SimulationDeletionListener {
+
+    private final TrafficProperties properties;
+    private final PhaseSwitchRepository repository;
+    private final Map<String, Journal> journals = new ConcurrentHashMap<>();
+    private final BlockingQueue<PhaseSwitchRecord> pending;
+    private final AtomicLong dropped = new AtomicLong();
+    // Held by the writer while it inserts a batch and by delete, so a batch cannot land after its rows were deleted
+    private final Object flushLock = new Object();
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public PhaseSwitchJournalService(TrafficProperties properties, PhaseSwitchRepository repository) {
+        this.properties = properties;
+        this.repository = repository;
+        this.pending = new LinkedBlockingQueue<>(properties.getJournal().getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "phase-switch-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void record(PhaseSwitchRecord record) {
+        journals.computeIfAbsent(record.getSimulationId(),
+                id -> new Journal(new RingBuffer<>(properties.getJournal().getMemorySize()))).add(record);
+        if (!pending.offer(record)) {
+            long count = dropped.incrementAndGet();
+            if (count % 10_000 == 1) {
+                log.warn("Phase switch journal queue is full; {} switches not persisted so far", count);
+            }
+        }
+    }
+
+    /** The last {@code limit} switches of a simulation, optionally between two time steps, oldest first. */
+    public List<PhaseSwitchRecord> find(String simulationId, Long fromStep, Long toStep, int limit) {
+        Journal journal = journals.get(simulationId);
+        if (journal != null) {
+            List<PhaseSwitchRecord> recent = journal.find(fromStep, toStep, limit);
+            if (recent != null) return recent;
+        }
+        return repository.find(simulationId, fromStep, toStep, limit);
+    }
+
+    public void delete(String simulationId) {
+        synchronized (flushLock) {
+            journals.remove(simulationId);
+            pending.removeIf(record -> simulationId.equals(record.getSimulationId()));
+            repository.deleteBySimulationId(simulationId);
+        }
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        delete(simulationId);
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getJournal().getFlushIntervalMs());
+        List<PhaseSwitchRecord> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                PhaseSwitchRecord first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                // Switches recorded until the interval is up share this batch
+                if (running) LockSupport.parkNanos(intervalNanos);
+                batch.add(first);
+                pending.drainTo(batch, properties.getJournal().getMaxBatch() - 1);
+                synchronized (flushLock) {
+                    // Every recorded switch has a journal until its simulation is deleted; the rest were taken off
+                    // the queue before a delete could remove them
+                    batch.removeIf(record -> !journals.containsKey(record.getSimulationId()));
+                    if (!batch.isEmpty()) repository.insertAll(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                log.warn("Failed to persist {} phase switches", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Written by the simulation's runner thread only
+    private static final class Journal {
+        private final RingBuffer<PhaseSwitchRecord> recent;
+        private volatile long recorded;
+
+        private Journal(RingBuffer<PhaseSwitchRecord> recent) {
+            this.recent = recent;
+        }
+
+        void add(PhaseSwitchRecord record) {
+            recent.add(record);
+            recorded++;
+        }
+
+        /** The matching switches, or null when older ones that would match have left memory. */
+        List<PhaseSwitchRecord> find(Long fromStep, Long toStep, int limit) {
+            List<PhaseSwitchRecord> records = recent.toList();
+            boolean complete = recorded <= recent.capacity();
+            if (!complete && !records.isEmpty() && fromStep != null && records.get(0).getTimeStep() > fromStep) {
+                return null;
+            }
+            List<PhaseSwitchRecord> selected = records.stream()
+                    .filter(record -> fromStep == null || record.getTimeStep() >= fromStep)
+                    .filter(record -> toStep == null || record.getTimeStep() <= toStep)
+                    .toList();
+            if (!complete && fromStep == null && selected.size() < limit) return null;
+            return selected.subList(Math.max(0, selected.size() - limit), selected.size());
+        }
+    }
+}
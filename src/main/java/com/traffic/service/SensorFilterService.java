@@ -0,0 +1,183 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorChannelHealth;
+import com.traffic.dto.SensorReading;
+import com.traffic.model.SensorHealth;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Smoothing and fault detection for detector counts on their way to a running simulation. Each of
+ * the eight count channels of a simulation keeps an exponentially weighted mean and variance, so memory
+ * per channel is constant:
+ * <ul>
+ *   <li>a reading further than {@code spike-sigma} deviations (plus {@code spike-min-delta}) from the mean is a
+ *       spike and is replaced by the mean; {@code spike-confirm-readings} spikes in a row are taken as a real
+ *       change of level and reset the mean;</li>
+ *   <li>the same non-zero count {@code stuck-readings} times in a row marks the channel stuck and its counts are
+ *       dropped, so the runner holds its own value;</li>
+ *   <li>no reading for {@code dropout-ms} marks the channel as dropped out.</li>
+ * </ul>
+ */
+@Service
+public class SensorFilterService implements SimulationDeletionListener {
+
+    public static final String[] CHANNELS = {
+            "vehiclesNorth", "vehiclesSouth", "vehiclesEast", "vehiclesWest",
+            "pedestriansNorth", "pedestriansSouth", "pedestriansEast", "pedestriansWest"
+    };
+    private static final int VEHICLE_CHANNELS = 4;
+
+    private final TrafficProperties properties;
+    private final Map<String, ChannelFilter[]> filters = new ConcurrentHashMap<>();
+
+    public SensorFilterService(TrafficProperties properties) {
+        this.properties = properties;
+    }
+
+    /** Returns a copy of the reading with smoothed counts; counts from stuck channels are left out. */
+    public SensorReading filter(SensorReading reading) {
+        ChannelFilter[] channels = filters.computeIfAbsent(reading.getSimulationId(), id -> newChannels());
+        TrafficProperties.SensorsConfig config = properties.getSensors();
+        long now = System.currentTimeMillis();
+        SensorReading filtered = SensorReading.builder()
+                .simulationId(reading.getSimulationId())
+                .timestamp(reading.getTimestamp())
+                .build();
+        // Readings of one simulation can arrive from HTTP and detector threads at once
+        synchronized (channels) {
+            for (int i = 0; i < CHANNELS.length; i++) {
+                Integer raw = reading.getCount(i);
+                if (raw != null) {
+                    filtered.setCount(i, channels[i].update(raw, now, config));
+                }
+            }
+        }
+        return filtered;
+    }
+
+    public List<SensorChannelHealth> getHealth(String simulationId) {
+        ChannelFilter[] channels = filters.get(simulationId);
+        long now = System.currentTimeMillis();
+        long dropoutMs = properties.getSensors().getDropoutMs();
+        List<SensorChannelHealth> health = new ArrayList<>(CHANNELS.length);
+        for (int i = 0; i < CHANNELS.length; i++) {
+            if (channels == null) {
+                health.add(SensorChannelHealth.builder().channel(CHANNELS[i]).health(SensorHealth.NO_DATA).readings(0L).build());
+                continue;
+            }
+            synchronized (channels) {
+                health.add(channels[i].toHealth(CHANNELS[i], now, dropoutMs));
+            }
+        }
+        return health;
+    }
+
+    /** ACTIVE, INACTIVE (no readings yet) or ERROR (a channel stuck or dropped out) for the vehicle loops. */
+    public static String vehicleLoopStatus(List<SensorChannelHealth> health) {
+        return status(health.subList(0, VEHICLE_CHANNELS));
+    }
+
+    /** Same as {@link #vehicleLoopStatus} for the pedestrian (video) channels. */
+    public static String pedestrianDetectionStatus(List<SensorChannelHealth> health) {
+        return status(health.subList(VEHICLE_CHANNELS, CHANNELS.length));
+    }
+
+    public void evict(String simulationId) {
+        filters.remove(simulationId);
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        evict(simulationId);
+    }
+
+    private static String status(List<SensorChannelHealth> channels) {
+        boolean anyData = false;
+        for (SensorChannelHealth channel : channels) {
+            if (channel.getHealth().isFault()) return "ERROR";
+            if (channel.getHealth() != SensorHealth.NO_DATA) anyData = true;
+        }
+        return anyData ? "ACTIVE" : "INACTIVE";
+    }
+
+    private static ChannelFilter[] newChannels() {
+        ChannelFilter[] channels = new ChannelFilter[CHANNELS.length];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new ChannelFilter();
+        }
+        return channels;
+    }
+
+    /** Guarded by the simulation's channel array. */
+    private static final class ChannelFilter {
+        private double mean;
+        private double variance;
+        private long readings;
+        private long spikes;
+        private int pendingSpikes;
+        private int lastRaw = -1;
+        private int repeats;
+        private long lastReadingAt;
+        private SensorHealth health = SensorHealth.NO_DATA;
+
+        Integer update(int raw, long now, TrafficProperties.SensorsConfig config) {
+            readings++;
+            lastReadingAt = now;
+            repeats = raw == lastRaw ? repeats + 1 : 1;
+            lastRaw = raw;
+
+            if (readings == 1) {
+                mean = raw;
+                health = SensorHealth.OK;
+                return raw;
+            }
+
+            double deviation = raw - mean;
+            double threshold = config.getSpikeSigma() * Math.sqrt(variance) + config.getSpikeMinDelta();
+            if (Math.abs(deviation) > threshold) {
+                spikes++;
+                if (++pendingSpikes < config.getSpikeConfirmReadings()) {
+                    health = SensorHealth.SPIKE;
+                    return (int) Math.round(mean);
+                }
+                // Persisted long enough to be a change of level rather than a glitch
+                mean = raw;
+                variance = 0;
+            } else {
+                double alpha = config.getSmoothingAlpha();
+                mean += alpha * deviation;
+                variance = (1 - alpha) * (variance + alpha * deviation * deviation);
+            }
+            pendingSpikes = 0;
+
+            if (raw != 0 && repeats >= config.getStuckReadings()) {
+                health = SensorHealth.STUCK;
+                return null;
+            }
+            health = SensorHealth.OK;
+            return (int) Math.round(mean);
+        }
+
+        SensorChannelHealth toHealth(String channel, long now, long dropoutMs) {
+            SensorHealth current = readings > 0 && now - lastReadingAt > dropoutMs ? SensorHealth.DROPOUT : health;
+            return SensorChannelHealth.builder()
+                    .channel(channel)
+                    .health(current)
+                    .lastRaw(readings > 0 ? lastRaw : null)
+                    .smoothed(readings > 0 ? Math.round(mean * 100) / 100.0 : null)
+                    .readings(readings)
+                    .spikes(spikes)
+                    .lastReadingAt(readings > 0
+                            ? LocalDateTime.ofInstant(Instant.ofEpochMilli(lastReadingAt), ZoneId.systemDefault()) : null)
+                    .build();
+        }
+    }
+}
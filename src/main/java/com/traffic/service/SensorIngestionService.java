@@ -0,0 +1,233 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.BulkSensorDataResponse;
+import com.traffic.dto.SensorReading;
+import com.traffic.repository.SensorReadingBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk detector ingestion. A batch is validated in one pass, each reading is passed through
+ * {@link SensorFilterService}, readings for the same simulation are folded together (later readings win per
+ * count), and the result is written with a single batched update.
+ * Simulations that are running get their folded reading handed to the runner instead, since the runner steps
+ * from its own in-memory state; the runner takes readings even when its mailbox is full, as a sequenced reading
+ * cannot be retried.
+ * <p>
+ * Valid readings are logged to {@link SensorWriteAheadLog} first and only sequenced and applied once the log has
+ * them on disk, so a request that fails on the log leaves no trace in {@link SensorSequencer} and can be retried.
+ * Replay sequences the logged readings again, which drops any that were logged twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SensorIngestionService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final Comparator<SensorReading> BY_TIMESTAMP =
+            Comparator.comparing(SensorReading::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final SensorReadingBatchRepository batchRepository;
+    private final TrafficSimulationService simulationService;
+    private final SensorSequencer sequencer;
+    private final SensorFilterService sensorFilter;
+    private final SensorWriteAheadLog writeAheadLog;
+    private final StateAnalyticsService analyticsService;
+    private final StateSnapshotService snapshotService;
+    private final TrafficProperties properties;
+
+    // Not transactional: the wait for the log's fsync must not hold a connection; the batched update is its own transaction
+    public BulkSensorDataResponse ingest(List<SensorReading> readings) {
+        int maxReadings = properties.getSensors().getBulkMaxReadings();
+        if (readings.size() > maxReadings) {
+            throw new IllegalArgumentException("At most " + maxReadings + " readings are accepted per request");
+        }
+
+        List<String> errors = new ArrayList<>();
+        int rejected = 0;
+        List<SensorReading> valid = new ArrayList<>(readings.size());
+        for (int i = 0; i < readings.size(); i++) {
+            String error = validate(readings.get(i));
+            if (error == null) {
+                valid.add(readings.get(i));
+            } else {
+                rejected++;
+                addError(errors, "readings[" + i + "]: " + error);
+            }
+        }
+
+        // Stable sort: readings without a timestamp keep their position after the timestamped ones
+        valid.sort(BY_TIMESTAMP);
+        int skipped = 0;
+        int simulationsUpdated = 0;
+        // Held until the readings are applied, so the log segment they went to is not checkpointed before then
+        long pin = writeAheadLog.pin();
+        try {
+            writeAheadLog.await(writeAheadLog.append(valid));
+            List<SensorReading> accepted = new ArrayList<>(valid.size());
+            for (SensorReading received : valid) {
+                SensorReading reading = sequencer.sequence(received);
+                if (reading != null) accepted.add(reading);
+            }
+            skipped = valid.size() - accepted.size();
+
+            Map<String, SensorReading> latestBySimulation = new LinkedHashMap<>();
+            Map<String, Integer> readingsBySimulation = new HashMap<>();
+            for (SensorReading reading : accepted) {
+                // Filtered one by one, so a spike is judged against the readings before it rather than hidden by a fold;
+                // folds into the first filtered reading of each simulation, which is a copy owned by this batch
+                latestBySimulation.merge(reading.getSimulationId(), sensorFilter.filter(reading), SensorIngestionService::fold);
+                readingsBySimulation.merge(reading.getSimulationId(), 1, Integer::sum);
+            }
+
+            List<SensorReading> updates = new ArrayList<>(latestBySimulation.size());
+            for (SensorReading reading : latestBySimulation.values()) {
+                if (simulationService.submitSensorReading(reading)) {
+                    simulationsUpdated++;
+                } else {
+                    updates.add(reading);
+                }
+            }
+
+            int[] updated = updates.isEmpty() ? new int[0] : updateLatestStates(updates);
+            for (int i = 0; i < updates.size(); i++) {
+                String simulationId = updates.get(i).getSimulationId();
+                if (updated[i] > 0) {
+                    simulationsUpdated++;
+                } else {
+                    rejected += readingsBySimulation.get(simulationId);
+                    addError(errors, "Simulation not found: " + simulationId);
+                    sequencer.evict(simulationId);
+                    sensorFilter.evict(simulationId);
+                }
+            }
+        } finally {
+            writeAheadLog.unpin(pin);
+        }
+
+        log.debug("Bulk sensor upload: {} readings, {} rejected, {} simulations updated",
+                readings.size(), rejected, simulationsUpdated);
+        return BulkSensorDataResponse.builder()
+                .received(readings.size())
+                .applied(readings.size() - rejected - skipped)
+                .rejected(rejected)
+                .skipped(skipped)
+                .simulationsUpdated(simulationsUpdated)
+                .errors(errors)
+                .build();
+    }
+
+    /**
+     * Applies a single reading through the same path as a batch: to the runner if the simulation is running,
+     * otherwise to its latest stored state. Returns the reason it was rejected, or null; a sequenced reading
+     * that is skipped as a duplicate or out of date is not an error.
+     */
+    public String ingestOne(SensorReading received) {
+        String error = validate(received);
+        if (error != null) return error;
+        long pin = writeAheadLog.pin();
+        try {
+            writeAheadLog.await(writeAheadLog.append(List.of(received)));
+            SensorReading reading = sequencer.sequence(received);
+            if (reading == null) return null;
+            return apply(reading);
+        } finally {
+            writeAheadLog.unpin(pin);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayLog() {
+        // Replayed readings pass through the sequencer again, which also restores its windows
+        writeAheadLog.replay(received -> {
+            SensorReading reading = sequencer.sequence(received);
+            if (reading != null) apply(reading);
+        });
+    }
+
+    private String apply(SensorReading received) {
+        SensorReading reading = sensorFilter.filter(received);
+        if (simulationService.submitSensorReading(reading)) return null;
+        int[] updated = updateLatestStates(List.of(reading));
+        if (updated[0] > 0) return null;
+        sequencer.evict(reading.getSimulationId());
+        sensorFilter.evict(reading.getSimulationId());
+        return "Simulation not found: " + reading.getSimulationId();
+    }
+
+    private int[] updateLatestStates(List<SensorReading> readings) {
+        PersistenceFlushEvent flush = PersistenceFlushEvent.start(PersistenceFlushEvent.SENSOR_BATCH);
+        int[] updated = batchRepository.updateLatestStates(readings);
+        flush.finish(readings.size(), 0);
+        // The latest stored state changed in place, which neither the cached results nor the snapshot
+        // left by the last run can tell from their stamp; readers of a missing snapshot go to the table
+        for (int i = 0; i < readings.size(); i++) {
+            if (updated[i] == 0) continue;
+            analyticsService.evict(readings.get(i).getSimulationId());
+            snapshotService.evict(readings.get(i).getSimulationId());
+        }
+        return updated;
+    }
+
+    private static String validate(SensorReading reading) {
+        if (reading == null) return "Reading is required";
+        if (reading.getSimulationId() == null || reading.getSimulationId().isBlank()) {
+            return "Simulation ID is required";
+        }
+        if (!SensorWriteAheadLog.fitsRecord(reading.getSimulationId())) return "Simulation ID is too long";
+        if (!SensorWriteAheadLog.fitsRecord(reading.getSourceId())) return "Source ID is too long";
+        Integer[] counts = counts(reading);
+        boolean anyCount = false;
+        for (Integer count : counts) {
+            if (count == null) continue;
+            if (count < 0) return "Counts must be non-negative";
+            anyCount = true;
+        }
+        if (!anyCount) return "At least one count is required";
+        LocalDateTime timestamp = reading.getTimestamp();
+        if (timestamp != null && timestamp.isAfter(LocalDateTime.now().plusMinutes(5))) {
+            return "Timestamp is in the future";
+        }
+        return null;
+    }
+
+    private static Integer[] counts(SensorReading reading) {
+        return new Integer[] {
+                reading.getVehiclesNorth(), reading.getVehiclesSouth(),
+                reading.getVehiclesEast(), reading.getVehiclesWest(),
+                reading.getPedestriansNorth(), reading.getPedestriansSouth(),
+                reading.getPedestriansEast(), reading.getPedestriansWest()
+        };
+    }
+
+    // Counts from the newer reading replace older ones; counts it leaves out are kept
+    private static SensorReading fold(SensorReading older, SensorReading newer) {
+        if (newer.getTimestamp() != null) older.setTimestamp(newer.getTimestamp());
+        if (newer.getVehiclesNorth() != null) older.setVehiclesNorth(newer.getVehiclesNorth());
+        if (newer.getVehiclesSouth() != null) older.setVehiclesSouth(newer.getVehiclesSouth());
+        if (newer.getVehiclesEast() != null) older.setVehiclesEast(newer.getVehiclesEast());
+        if (newer.getVehiclesWest() != null) older.setVehiclesWest(newer.getVehiclesWest());
+        if (newer.getPedestriansNorth() != null) older.setPedestriansNorth(newer.getPedestriansNorth());
+        if (newer.getPedestriansSouth() != null) older.setPedestriansSouth(newer.getPedestriansSouth());
+        if (newer.getPedestriansEast() != null) older.setPedestriansEast(newer.getPedestriansEast());
+        if (newer.getPedestriansWest() != null) older.setPedestriansWest(newer.getPedestriansWest());
+        return older;
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
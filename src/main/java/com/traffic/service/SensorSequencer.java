@@ -0,0 +1,196 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorReading;
+import com.traffic.dto.SensorSequencingStats;
+import com.traffic.model.LateDataPolicy;
+import org.springframework.stereotype.Service;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Orders sensor readings that carry a sequence number, per simulation and source, so retried,
+ * duplicated and reordered posts leave the same state whatever order they arrive in.
+ * <p>
+ * Each source keeps the highest sequence seen and a bitmap of which of the {@code reorder-window}
+ * (at most 64) sequences below it have arrived; a set bit is a duplicate. Every count channel also keeps
+ * the sequence it was last set from, and a reading only sets channels whose sequence is lower than its own,
+ * so each count ends up from the newest reading that has it. Readings older than the window follow
+ * {@code late-data-policy}, except that one with a newer event time than anything applied is taken as a
+ * restarted detector. The per-source state is immutable and swapped with compare-and-set; no locks are taken.
+ * <p>
+ * Readings without a sequence bypass this and are applied in arrival order, as before.
+ */
+@Service
+public class SensorSequencer implements SimulationDeletionListener {
+
+    private static final String DEFAULT_SOURCE = "default";
+
+    private final TrafficProperties properties;
+    private final Map<String, SimulationSources> simulations = new ConcurrentHashMap<>();
+
+    public SensorSequencer(TrafficProperties properties) {
+        this.properties = properties;
+    }
+
+    /** Returns the reading reduced to the counts it may set, or null if it must not be applied. */
+    public SensorReading sequence(SensorReading reading) {
+        if (reading.getSequence() == null) return reading;
+
+        SimulationSources sources = simulations.computeIfAbsent(reading.getSimulationId(), id -> new SimulationSources());
+        String sourceId = reading.getSourceId() != null ? reading.getSourceId() : DEFAULT_SOURCE;
+        AtomicReference<Window> source = sources.windows.computeIfAbsent(sourceId, id -> new AtomicReference<>());
+        TrafficProperties.SensorsConfig config = properties.getSensors();
+        int windowSize = Math.max(1, Math.min(Long.SIZE, config.getReorderWindow()));
+        long sequence = reading.getSequence();
+        long eventTime = reading.getTimestamp() != null
+                ? reading.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE;
+
+        while (true) {
+            Window current = source.get();
+            Window next;
+            Outcome outcome;
+            if (current == null) {
+                next = Window.first(sequence);
+                outcome = Outcome.ACCEPTED;
+            } else if (sequence > current.high) {
+                long shift = sequence - current.high;
+                next = current.advance(sequence, shift >= Long.SIZE ? 1L : (current.seen << shift) | 1L);
+                outcome = Outcome.ACCEPTED;
+            } else if (current.high - sequence < windowSize) {
+                long bit = 1L << (current.high - sequence);
+                if ((current.seen & bit) != 0) {
+                    sources.duplicates.increment();
+                    return null;
+                }
+                next = current.advance(current.high, current.seen | bit);
+                outcome = Outcome.REORDERED;
+            } else if (eventTime > current.newestEventTime || config.getLateDataPolicy() == LateDataPolicy.RESTART) {
+                next = Window.first(sequence);
+                outcome = Outcome.RESTARTED;
+            } else if (config.getLateDataPolicy() == LateDataPolicy.APPLY) {
+                next = current.advance(current.high, current.seen);
+                outcome = Outcome.LATE_APPLIED;
+            } else {
+                sources.lateDropped.increment();
+                return null;
+            }
+
+            SensorReading applied = copyHeader(reading);
+            boolean any = false;
+            for (int channel = 0; channel < SensorReading.CHANNELS; channel++) {
+                Integer count = reading.getCount(channel);
+                if (count != null && sequence > next.channelSequences[channel]) {
+                    next.channelSequences[channel] = sequence;
+                    applied.setCount(channel, count);
+                    any = true;
+                }
+            }
+            if (any && eventTime > next.newestEventTime) {
+                next.newestEventTime = eventTime;
+            }
+            // next is private until published, so the channel updates above are safe to retry
+            if (!source.compareAndSet(current, next)) continue;
+
+            outcome.count(sources);
+            if (!any) {
+                sources.superseded.increment();
+                return null;
+            }
+            return applied;
+        }
+    }
+
+    public SensorSequencingStats getStats(String simulationId) {
+        TrafficProperties.SensorsConfig config = properties.getSensors();
+        SimulationSources sources = simulations.get(simulationId);
+        SensorSequencingStats.SensorSequencingStatsBuilder stats = SensorSequencingStats.builder()
+                .reorderWindow(Math.max(1, Math.min(Long.SIZE, config.getReorderWindow())))
+                .lateDataPolicy(config.getLateDataPolicy());
+        if (sources == null) {
+            return stats.sources(0).accepted(0L).reordered(0L).superseded(0L).duplicates(0L)
+                    .lateDropped(0L).lateApplied(0L).restarts(0L).build();
+        }
+        return stats.sources(sources.windows.size())
+                .accepted(sources.accepted.sum())
+                .reordered(sources.reordered.sum())
+                .superseded(sources.superseded.sum())
+                .duplicates(sources.duplicates.sum())
+                .lateDropped(sources.lateDropped.sum())
+                .lateApplied(sources.lateApplied.sum())
+                .restarts(sources.restarts.sum())
+                .build();
+    }
+
+    public void evict(String simulationId) {
+        simulations.remove(simulationId);
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        evict(simulationId);
+    }
+
+    private static SensorReading copyHeader(SensorReading reading) {
+        return SensorReading.builder()
+                .simulationId(reading.getSimulationId())
+                .sourceId(reading.getSourceId())
+                .sequence(reading.getSequence())
+                .timestamp(reading.getTimestamp())
+                .build();
+    }
+
+    private enum Outcome {
+        ACCEPTED, REORDERED, LATE_APPLIED, RESTARTED;
+
+        void count(SimulationSources sources) {
+            switch (this) {
+                case ACCEPTED -> sources.accepted.increment();
+                case REORDERED -> sources.reordered.increment();
+                case LATE_APPLIED -> sources.lateApplied.increment();
+                case RESTARTED -> sources.restarts.increment();
+            }
+        }
+    }
+
+    private static final class SimulationSources {
+        private final Map<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder reordered = new LongAdder();
+        private final LongAdder superseded = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder lateDropped = new LongAdder();
+        private final LongAdder lateApplied = new LongAdder();
+        private final LongAdder restarts = new LongAdder();
+    }
+
+    /** Never modified once published; {@link #advance} makes the next one. */
+    private static final class Window {
+        private final long high;
+        // Bit i set: sequence high - i has arrived
+        private final long seen;
+        private final long[] channelSequences;
+        private long newestEventTime;
+
+        private Window(long high, long seen, long[] channelSequences, long newestEventTime) {
+            this.high = high;
+            this.seen = seen;
+            this.channelSequences = channelSequences;
+            this.newestEventTime = newestEventTime;
+        }
+
+        static Window first(long sequence) {
+            long[] channels = new long[SensorReading.CHANNELS];
+            Arrays.fill(channels, -1L);
+            return new Window(sequence, 1L, channels, Long.MIN_VALUE);
+        }
+
+        Window advance(long high, long seen) {
+            return new Window(high, seen, channelSequences.clone(), newestEventTime);
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorReading;
+import com.traffic.dto.WalStatsResponse;
+import com.traffic.util.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of validated sensor readings with group commit, enabled with {@code traffic.wal.enabled}.
+ * Appends are queued to one writer thread, which writes everything queued since the last flush and makes it
+ * durable with a single fsync, at most once per {@code flush-interval-ms}; callers that acknowledge a reading
+ * wait for that fsync. Segments roll over at {@code segment-bytes}.
+ * <p>
+ * Callers {@link #pin} the log from before they append until their readings are applied. A rolled segment is
+ * checkpointed, that is deleted, once no call pinned while it was open is still in flight and a further
+ * {@code checkpoint-delay-ms} has passed, which leaves runners time to persist the step that used the readings.
+ * <p>
+ * Segments left by a previous run are replayed once at startup, in order, and then deleted. Each record is
+ * framed as {@code u32 length, u32 CRC-32C, payload}; replay stops a segment at the first torn or corrupt record.
+ * A write that fails partway is truncated away, or the log rolls to a new segment, so that records acknowledged
+ * after it are not stranded behind a torn one.
+ */
+@Service
+@Slf4j
+public class SensorWriteAheadLog {
+
+    private static final String SEGMENT_PREFIX = "sensor-wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_HEADER = 8;
+    private static final int MISSING = -1;
+    // Strings are framed with a u16 length and 0xFFFF stands for null
+    private static final int MAX_STRING_BYTES = 0xFFFE;
+
+    private final TrafficProperties properties;
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final LatencyHistogram ackLatency = new LatencyHistogram();
+    private final LatencyHistogram batchRecords = new LatencyHistogram();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder truncatedBytes = new LongAdder();
+    private final LongAdder checkpointed = new LongAdder();
+    // Calls in flight by the number of the segment open when they pinned; guarded by itself
+    private final TreeMap<Long, Integer> pins = new TreeMap<>();
+    // Rolled segments of this run, oldest first; only touched by the writer thread
+    private final Deque<RolledSegment> rolled = new ArrayDeque<>();
+
+    private Path directory;
+    private List<Path> previousSegments = List.of();
+    private long nextSegment;
+    private FileChannel segment;
+    private Path segmentPath;
+    private volatile long segmentNumber;
+    private long segmentSize;
+    private Thread writer;
+    private volatile boolean running;
+
+    public SensorWriteAheadLog(TrafficProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        TrafficProperties.WalConfig config = properties.getWal();
+        if (!config.isEnabled()) return;
+
+        directory = Paths.get(config.getDirectory());
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            previousSegments = files.filter(SensorWriteAheadLog::isSegment).sorted().toList();
+        }
+        nextSegment = previousSegments.isEmpty() ? 1 : segmentNumber(previousSegments.get(previousSegments.size() - 1)) + 1;
+        rollSegment();
+
+        running = true;
+        writer = new Thread(this::writeLoop, "sensor-wal");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Sensor write-ahead log in {} ({} segments to replay)", directory.toAbsolutePath(), previousSegments.size());
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /** Queues the readings as one contiguous group; the future completes once they are on disk. */
+    public CompletableFuture<Void> append(List<SensorReading> readings) {
+        if (!running || readings.isEmpty()) return CompletableFuture.completedFuture(null);
+        ByteBuffer buffer = ByteBuffer.allocate(readings.stream().mapToInt(SensorWriteAheadLog::frameSize).sum());
+        for (SensorReading reading : readings) {
+            writeFrame(buffer, reading);
+        }
+        Append append = new Append(buffer.flip(), readings.size(), System.nanoTime(), new CompletableFuture<>());
+        queue.add(append);
+        return append.durable;
+    }
+
+    /**
+     * Keeps every segment that readings appended from now on can land in until {@link #unpin} is called with
+     * the returned token, which must happen once those readings have been applied.
+     */
+    public long pin() {
+        if (!running) return 0;
+        synchronized (pins) {
+            long number = segmentNumber;
+            pins.merge(number, 1, Integer::sum);
+            return number;
+        }
+    }
+
+    public void unpin(long pin) {
+        // Segment numbers start at 1; 0 is the token handed out while the log is disabled
+        if (pin == 0) return;
+        synchronized (pins) {
+            pins.computeIfPresent(pin, (number, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /** Waits for an append to be durable; throws IllegalStateException if it failed or took too long. */
+    public void await(CompletableFuture<Void> durable) {
+        try {
+            durable.get(properties.getWal().getAckTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the sensor log");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Sensor log unavailable", e);
+        }
+    }
+
+    /** Hands every reading of the previous run's segments to {@code apply}, oldest first, then deletes them. */
+    public void replay(Consumer<SensorReading> apply) {
+        for (Path path : previousSegments) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+                int count = 0;
+                while (buffer.remaining() >= FRAME_HEADER) {
+                    int start = buffer.position();
+                    int length = buffer.getInt();
+                    int crc = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining() || crc != crc(buffer, buffer.position(), length)) {
+                        buffer.position(start);
+                        break;
+                    }
+                    ByteBuffer payload = buffer.slice(buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                    apply.accept(readPayload(payload));
+                    count++;
+                }
+                if (buffer.hasRemaining()) {
+                    truncatedBytes.add(buffer.remaining());
+                    log.warn("Sensor log {} ends with {} bytes of a torn or corrupt record; ignored", path, buffer.remaining());
+                }
+                replayed.add(count);
+                Files.delete(path);
+                log.info("Replayed {} sensor readings from {}", count, path.getFileName());
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to replay sensor log {}; left in place", path, e);
+            }
+        }
+        previousSegments = List.of();
+    }
+
+    public WalStatsResponse getStats() {
+        return WalStatsResponse.builder()
+                .enabled(running)
+                .directory(directory != null ? directory.toAbsolutePath().toString() : null)
+                .records(records.sum())
+                .bytes(bytes.sum())
+                .fsyncs(fsyncs.sum())
+                .pendingAppends(queue.size())
+                .batchRecordsP50(batchRecords.percentile(50))
+                .batchRecordsP99(batchRecords.percentile(99))
+                .batchRecordsMax(batchRecords.max())
+                .ackLatencyP50Ms(ackLatency.percentile(50) / 1_000_000.0)
+                .ackLatencyP99Ms(ackLatency.percentile(99) / 1_000_000.0)
+                .ackLatencyMaxMs(ackLatency.max() / 1_000_000.0)
+                .replayedRecords(replayed.sum())
+                .truncatedBytes(truncatedBytes.sum())
+                .checkpointedSegments(checkpointed.sum())
+                .build();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    private void writeLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getWal().getFlushIntervalMs());
+        long lastFlush = 0;
+        List<Append> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Append first = queue.poll(100, TimeUnit.MILLISECONDS);
+                checkpoint();
+                if (first == null) continue;
+                // Appends arriving until the interval is up share this fsync
+                long wait = lastFlush + intervalNanos - System.nanoTime();
+                if (wait > 0 && running) LockSupport.parkNanos(wait);
+                batch.add(first);
+                queue.drainTo(batch, properties.getWal().getMaxBatchAppends() - 1);
+                flush(batch);
+                lastFlush = System.nanoTime();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Append> batch) {
+        PersistenceFlushEvent event = PersistenceFlushEvent.start(PersistenceFlushEvent.SENSOR_LOG);
+        try {
+            ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+            long size = 0;
+            int batchSize = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = batch.get(i).frames;
+                size += buffers[i].remaining();
+                batchSize += batch.get(i).records;
+            }
+            if (segmentSize > 0 && segmentSize + size > properties.getWal().getSegmentBytes()) {
+                rollSegment();
+            }
+            while (hasRemaining(buffers)) {
+                segment.write(buffers);
+            }
+            segment.force(false);
+            segmentSize += size;
+            event.finish(batchSize, size);
+
+            long now = System.nanoTime();
+            for (Append append : batch) {
+                append.durable.complete(null);
+                ackLatency.record(now - append.queuedAt);
+            }
+            records.add(batchSize);
+            bytes.add(size);
+            fsyncs.increment();
+            batchRecords.record(batchSize);
+        } catch (IOException e) {
+            log.error("Sensor log write failed", e);
+            batch.forEach(append -> append.durable.completeExceptionally(e));
+            discardPartialWrite();
+        }
+    }
+
+    // Part of a failed batch may be in the segment; replay would stop there and lose every later record
+    private void discardPartialWrite() {
+        try {
+            segment.truncate(segmentSize);
+            segment.position(segmentSize);
+            segment.force(true);
+            return;
+        } catch (IOException e) {
+            log.warn("Failed to truncate sensor log {}; rolling over", segmentPath, e);
+        }
+        try {
+            rollSegment();
+        } catch (IOException e) {
+            log.error("Failed to roll sensor log", e);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+            rolled.add(new RolledSegment(segmentPath, segmentNumber));
+        }
+        long number = nextSegment++;
+        segmentPath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        segment = openSegment(segmentPath);
+        segmentSize = 0;
+        segmentNumber = number;
+    }
+
+    // Overridden by tests to fail writes
+    FileChannel openSegment(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    // Runs on the writer thread. A call pins the segment open at the time and its readings are written to that
+    // segment or a later one, so a rolled segment below the oldest pin can no longer receive unapplied readings.
+    private void checkpoint() {
+        if (rolled.isEmpty()) return;
+        long oldestPin;
+        synchronized (pins) {
+            oldestPin = pins.isEmpty() ? Long.MAX_VALUE : pins.firstKey();
+        }
+        long now = System.nanoTime();
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(properties.getWal().getCheckpointDelayMs());
+        for (Iterator<RolledSegment> it = rolled.iterator(); it.hasNext(); ) {
+            RolledSegment rolledSegment = it.next();
+            if (rolledSegment.number >= oldestPin) break;
+            if (!rolledSegment.applied) {
+                rolledSegment.applied = true;
+                rolledSegment.appliedAt = now;
+            }
+            if (now - rolledSegment.appliedAt < delayNanos) continue;
+            try {
+                Files.deleteIfExists(rolledSegment.path);
+                it.remove();
+                checkpointed.increment();
+                log.debug("Checkpointed sensor log {}", rolledSegment.path.getFileName());
+            } catch (IOException e) {
+                log.warn("Failed to delete checkpointed sensor log {}", rolledSegment.path, e);
+                break;
+            }
+        }
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) return true;
+        }
+        return false;
+    }
+
+    // Payload: simulationId, sourceId (UTF-8, u16 length, 0xFFFF when absent), sequence, event time
+    // (epoch millis read as UTC, Long.MIN_VALUE when absent), then 8 counts as i32 (-1 when absent)
+    private static int frameSize(SensorReading reading) {
+        return FRAME_HEADER + stringSize(reading.getSimulationId()) + stringSize(reading.getSourceId())
+                + 2 * Long.BYTES + SensorReading.CHANNELS * Integer.BYTES;
+    }
+
+    private static void writeFrame(ByteBuffer buffer, SensorReading reading) {
+        int start = buffer.position();
+        buffer.position(start + FRAME_HEADER);
+        writeString(buffer, reading.getSimulationId());
+        writeString(buffer, reading.getSourceId());
+        buffer.putLong(reading.getSequence() != null ? reading.getSequence() : MISSING);
+        buffer.putLong(reading.getTimestamp() != null
+                ? reading.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE);
+        for (int channel = 0; channel < SensorReading.CHANNELS; channel++) {
+            Integer count = reading.getCount(channel);
+            buffer.putInt(count != null ? count : MISSING);
+        }
+        int length = buffer.position() - start - FRAME_HEADER;
+        buffer.putInt(start, length);
+        buffer.putInt(start + Integer.BYTES, crc(buffer, start + FRAME_HEADER, length));
+    }
+
+    private static SensorReading readPayload(ByteBuffer payload) {
+        SensorReading reading = new SensorReading();
+        reading.setSimulationId(readString(payload));
+        reading.setSourceId(readString(payload));
+        long sequence = payload.getLong();
+        reading.setSequence(sequence != MISSING ? sequence : null);
+        long timestamp = payload.getLong();
+        reading.setTimestamp(timestamp != Long.MIN_VALUE ? LocalDateTime.ofEpochSecond(
+                Math.floorDiv(timestamp, 1000), Math.floorMod(timestamp, 1000) * 1_000_000, ZoneOffset.UTC) : null);
+        for (int channel = 0; channel < SensorReading.CHANNELS; channel++) {
+            int count = payload.getInt();
+            reading.setCount(channel, count != MISSING ? count : null);
+        }
+        return reading;
+    }
+
+    /** Whether the value can be framed in a record; longer IDs are rejected before they reach the log. */
+    static boolean fitsRecord(String value) {
+        if (value == null || value.length() <= MAX_STRING_BYTES / 3) return true;
+        return value.getBytes(StandardCharsets.UTF_8).length <= MAX_STRING_BYTES;
+    }
+
+    private static int stringSize(String value) {
+        return Short.BYTES + (value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) 0xFFFF);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) encoded.length);
+        buffer.put(encoded);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == 0xFFFF) return null;
+        byte[] encoded = new byte[length];
+        buffer.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new UncheckedIOException(new IOException("Unexpected sensor log file " + name, e));
+        }
+    }
+
+    private static final class RolledSegment {
+        private final Path path;
+        private final long number;
+        private boolean applied;
+        private long appliedAt;
+
+        private RolledSegment(Path path, long number) {
+            this.path = path;
+            this.number = number;
+        }
+    }
+
+    private record Append(ByteBuffer frames, int records, long queuedAt, CompletableFuture<Void> durable) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.traffic.service;
+
+import com.traffic.dto.TrafficStateResponse;
+import com.traffic.model.SimulationConfig;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Messages for a running simulation. They are queued in the runner's mailbox and applied, in order,
+ * by the simulation's own thread at the start of its next tick; only that thread touches the runner's state.
+ */
+public sealed interface SimulationCommand {
+
+    /** Replaces the model parameters used from the next step on. */
+    record Reconfigure(SimulationConfig config) implements SimulationCommand {
+    }
+
+    record Pause() implements SimulationCommand {
+    }
+
+    record Resume() implements SimulationCommand {
+    }
+
+    /** Completed once the runner has cancelled its schedule. */
+    record Stop(CompletableFuture<Void> stopped) implements SimulationCommand {
+    }
+
+    /** Completed with the state as of the tick boundary, after earlier commands have been applied. */
+    record Snapshot(CompletableFuture<TrafficStateResponse> state) implements SimulationCommand {
+    }
+}
@@ -0,0 +1,11 @@
+package com.traffic.service;
+
+/**
+ * Implemented by every service that keeps state per simulation outside the simulation tables. All beans of this
+ * type are called by {@link SimulationDeletionService} once a simulation's stored data is gone.
+ */
+public interface SimulationDeletionListener {
+
+    /** Drops everything held for the simulation; called after it stopped and its rows were deleted. */
+    void onSimulationDeleted(String simulationId);
+}
@@ -0,0 +1,49 @@
+package com.traffic.service;
+
+import com.traffic.repository.PerformanceMetricsRepository;
+import com.traffic.repository.SimulationConfigRepository;
+import com.traffic.repository.TrafficStateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+
+/**
+ * Deletes a simulation: stops it if it runs, deletes its states, metrics and configuration in one transaction,
+ * and then has every {@link SimulationDeletionListener} drop what it holds for it. A service that keeps state per
+ * simulation implements the listener rather than being added here.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SimulationDeletionService {
+
+    private final TrafficSimulationService simulationService;
+    private final TrafficStateRepository stateRepository;
+    private final PerformanceMetricsRepository metricsRepository;
+    private final SimulationConfigRepository configRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<SimulationDeletionListener> listeners;
+
+    public void deleteSimulation(String simulationId) {
+        // Stopped first, outside the transaction, so the wait for the runner's current step holds no connection
+        simulationService.stopSimulation(simulationId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            stateRepository.deleteBySimulationId(simulationId);
+            metricsRepository.deleteBySimulationId(simulationId);
+            configRepository.deleteBySimulationId(simulationId);
+        });
+
+        for (SimulationDeletionListener listener : listeners) {
+            try {
+                listener.onSimulationDeleted(simulationId);
+            } catch (RuntimeException e) {
+                // The rows are gone; one cache failing to let go must not keep the others holding on
+                log.warn("{} failed to drop deleted simulation {}", listener.getClass().getSimpleName(), simulationId, e);
+            }
+        }
+        log.info("Deleted simulation {}", simulationId);
+    }
+}
@@ -0,0 +1,300 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-Sent Events delivery of simulation states. Every event is a full state with the stream
+ * sequence number as its id, so a client reconnecting with {@code Last-Event-ID} is replayed the
+ * frames it missed from {@link StateHistoryService}.
+ * <p>
+ * Connections are servlet async requests: no thread is held per client. Each client has a bounded
+ * queue drained by a small shared sender pool; a client whose queue fills up is disconnected and
+ * can resume from its last event id.
+ * <p>
+ * Sends are blocking servlet writes, so a client that stops reading can hold a sender thread until the
+ * container's socket timeout. A watchdog disconnects any client whose send has run longer than
+ * {@code sse-write-timeout-ms} and adds a sender thread for as long as that write stays blocked, so the
+ * other streams keep their full sender capacity.
+ */
+@Service
+@Slf4j
+public class SimulationEventStreamService implements SimulationDeletionListener {
+
+    private static final String EVENT_NAME = "state";
+    private static final long ABANDONED = -1;
+
+    private final StateHistoryService historyService;
+    private final TrafficProperties properties;
+    private final ThreadPoolExecutor sender;
+    private final ScheduledExecutorService watchdog;
+    private final int senderThreads;
+    private final long writeTimeoutNanos;
+    private final long epochNanos = System.nanoTime();
+    // Sends past their deadline that are still blocked; guarded by the sender pool
+    private int abandonedSends;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final LongAdder sentEvents = new LongAdder();
+    private final LongAdder slowDisconnects = new LongAdder();
+    private final LongAdder writeTimeouts = new LongAdder();
+
+    public SimulationEventStreamService(StateHistoryService historyService, TrafficProperties properties) {
+        this.historyService = historyService;
+        this.properties = properties;
+        this.senderThreads = properties.getStreaming().getSseSenderThreads();
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getStreaming().getSseWriteTimeoutMs());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-write-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMs = Math.max(10, Math.min(1000, properties.getStreaming().getSseWriteTimeoutMs() / 4));
+        watchdog.scheduleAtFixedRate(this::expireBlockedSends, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a stream for one client. Without {@code lastEventId} the client starts from the latest state;
+     * with it, buffered frames after that id are replayed first. Frames older than the buffer are not
+     * replayed, but since each event is a full state the client is consistent again after the first one.
+     */
+    public SseEmitter open(String simulationId, Long lastEventId) {
+        return open(simulationId, lastEventId, new SseEmitter(properties.getStreaming().getSseTimeoutMs()));
+    }
+
+    SseEmitter open(String simulationId, Long lastEventId, SseEmitter emitter) {
+        Channel channel = channels.computeIfAbsent(simulationId, id -> new Channel());
+
+        // Registering and queueing the backlog under the channel lock keeps live frames behind it
+        Client client;
+        synchronized (channel) {
+            List<StreamFrame> backlog = lastEventId != null
+                    ? historyService.since(simulationId, lastEventId)
+                    : historyService.latest(simulationId).map(List::of).orElse(List.of());
+            // The replay must not count against the client's allowance for falling behind
+            client = new Client(channel, emitter, properties.getStreaming().getSseClientBuffer() + backlog.size());
+            channel.clients.add(client);
+            backlog.forEach(client::offer);
+        }
+        emitter.onCompletion(client::close);
+        emitter.onTimeout(client::close);
+        emitter.onError(e -> client.close());
+        log.debug("SSE client connected to simulation {} (last event id {})", simulationId, lastEventId);
+        return emitter;
+    }
+
+    public void publish(StreamFrame frame) {
+        Channel channel = channels.get(frame.getSimulationId());
+        if (channel == null || channel.clients.isEmpty()) return;
+
+        synchronized (channel) {
+            for (Client client : channel.clients) {
+                client.offer(frame);
+            }
+        }
+    }
+
+    /** Ends every stream of a simulation that no longer exists. */
+    public void close(String simulationId) {
+        Channel channel = channels.remove(simulationId);
+        if (channel != null) {
+            channel.clients.forEach(Client::end);
+        }
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        close(simulationId);
+    }
+
+    public int getConnectionCount() {
+        return channels.values().stream().mapToInt(channel -> channel.clients.size()).sum();
+    }
+
+    public long getSentEvents() {
+        return sentEvents.sum();
+    }
+
+    public long getSlowDisconnects() {
+        return slowDisconnects.sum();
+    }
+
+    /** Clients disconnected because one send blocked past {@code sse-write-timeout-ms}; included in slow disconnects. */
+    public long getWriteTimeouts() {
+        return writeTimeouts.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    private void expireBlockedSends() {
+        long now = clock();
+        for (Channel channel : channels.values()) {
+            for (Client client : channel.clients) {
+                long started = client.sendStarted.get();
+                if (started > 0 && now - started > writeTimeoutNanos
+                        && client.sendStarted.compareAndSet(started, ABANDONED)) {
+                    log.debug("Disconnecting SSE client: send blocked for more than {} ms",
+                            TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+                    writeTimeouts.increment();
+                    slowDisconnects.increment();
+                    client.close();
+                    // The blocked write keeps its thread; the emitter is completed once the write returns
+                    adjustSenders(1);
+                }
+            }
+        }
+    }
+
+    // Nanoseconds since the service started, plus one, so that it never collides with idle or ABANDONED
+    private long clock() {
+        return System.nanoTime() - epochNanos + 1;
+    }
+
+    // Keeps senderThreads threads free for other clients while abandoned sends are still blocked
+    private void adjustSenders(int delta) {
+        synchronized (sender) {
+            abandonedSends += delta;
+            int size = senderThreads + Math.max(0, abandonedSends);
+            if (size > sender.getMaximumPoolSize()) {
+                sender.setMaximumPoolSize(size);
+                sender.setCorePoolSize(size);
+            } else {
+                sender.setCorePoolSize(size);
+                sender.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private static final class Channel {
+        private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    }
+
+    private final class Client implements Runnable {
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamFrame> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // clock() when the send in progress began, 0 while idle, ABANDONED once the watchdog gave up on it
+        private final AtomicLong sendStarted = new AtomicLong();
+        private volatile boolean closed;
+        // Set when the server ends the stream; the sender completes the emitter once no write is in flight
+        private volatile boolean ending;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // Guarded by the channel lock; drops frames that were both replayed and published live
+        private long lastQueuedSeq = -1;
+
+        Client(Channel channel, SseEmitter emitter, int capacity) {
+            this.channel = channel;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(StreamFrame frame) {
+            if (closed || frame.getSeq() <= lastQueuedSeq) return;
+            lastQueuedSeq = frame.getSeq();
+            if (!queue.offer(frame)) {
+                log.debug("Disconnecting SSE client of simulation {}: {} frames behind",
+                        frame.getSimulationId(), queue.size());
+                slowDisconnects.increment();
+                end();
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                StreamFrame frame;
+                while (!closed && (frame = queue.poll()) != null) {
+                    send(frame);
+                }
+                if (ending && completed.compareAndSet(false, true)) {
+                    emitter.complete();
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // A frame may have been queued, or the stream ended, after the last check but before the flag was cleared
+            if (pending() && scheduled.compareAndSet(false, true)) {
+                sender.execute(this);
+            }
+        }
+
+        private boolean pending() {
+            return closed ? ending && !completed.get() : !queue.isEmpty();
+        }
+
+        private void send(StreamFrame frame) {
+            sendStarted.set(clock());
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(frame.getSeq()))
+                        .name(EVENT_NAME)
+                        .data(frame.getSnapshot().getJson(), MediaType.APPLICATION_JSON));
+                sentEvents.increment();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("SSE client went away: {}", e.getMessage());
+                close();
+            }
+            if (sendStarted.getAndSet(0) == ABANDONED) {
+                adjustSenders(-1);
+                if (completed.compareAndSet(false, true)) {
+                    emitter.completeWithError(new TimeoutException("SSE send blocked past the write timeout"));
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+            channel.clients.remove(this);
+        }
+
+        /**
+         * Closes the client and completes its emitter on a sender thread. Completing here would contend for
+         * the emitter's lock with a blocked send, stalling whoever holds the channel lock.
+         */
+        void end() {
+            ending = true;
+            close();
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this);
+            }
+        }
+    }
+}
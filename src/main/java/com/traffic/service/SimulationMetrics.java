@@ -0,0 +1,152 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.model.ControlMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters for the simulation hot path, exported on {@code /actuator/prometheus}. Per-runner meters carry a
+ * {@code simulation} tag unless {@code traffic.metrics.simulation-tags} is off, in which case all runners share
+ * one series per meter and the tick-lag gauge reports the largest lag; tagged meters are removed when the runner stops.
+ */
+@Component
+public class SimulationMetrics {
+
+    private static final String SIMULATION_TAG = "simulation";
+
+    private final MeterRegistry registry;
+    private final TrafficProperties properties;
+    // Lag of every active runner, for the untagged gauge
+    private final Set<AtomicLong> tickLags = ConcurrentHashMap.newKeySet();
+
+    public SimulationMetrics(MeterRegistry registry, TrafficProperties properties) {
+        this.registry = registry;
+        this.properties = properties;
+        if (!properties.getMetrics().isSimulationTags()) {
+            Gauge.builder("traffic.simulation.tick.lag", tickLags,
+                            lags -> lags.stream().mapToLong(AtomicLong::get).max().orElse(0) / 1_000_000.0)
+                    .description("Delay between a tick's scheduled and actual start, largest across runners")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+    }
+
+    public void bindEngine(Map<String, ?> activeSimulations, ExecutorService executor) {
+        Gauge.builder("traffic.simulation.active", activeSimulations, Map::size)
+                .description("Simulation runners currently scheduled")
+                .register(registry);
+        // Pool size, active threads and queued tasks, as executor.queued{name="simulation"} etc.
+        new ExecutorServiceMetrics(executor, "simulation", Tags.empty()).bindTo(registry);
+    }
+
+    public RunnerMeters forRunner(String simulationId, ControlMode mode) {
+        return new RunnerMeters(simulationId, mode);
+    }
+
+    // Not tagged: metrics are calculated for finished simulations too, which never deregister
+    public Timer performanceMetricsTimer() {
+        return timer("traffic.simulation.performance.metrics", "Performance metrics calculation", Tags.empty());
+    }
+
+    private Tags tags(String simulationId) {
+        return properties.getMetrics().isSimulationTags() ? Tags.of(SIMULATION_TAG, simulationId) : Tags.empty();
+    }
+
+    private Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram(properties.getMetrics().isPercentileHistograms())
+                .register(registry);
+    }
+
+    private Counter counter(String name, String description, Tags tags) {
+        return Counter.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+
+    public final class RunnerMeters {
+        private final Timer step;
+        private final Timer persist;
+        private final Timer broadcast;
+        private final Timer tickDelay;
+        private final Counter lateTicks;
+        private final Counter skippedSteps;
+        private final Counter degradedTicks;
+        private final AtomicLong tickLagNanos = new AtomicLong();
+        private final List<Meter> owned = new ArrayList<>();
+
+        private RunnerMeters(String simulationId, ControlMode mode) {
+            Tags tags = tags(simulationId).and("mode", mode.name());
+            step = timer("traffic.simulation.step", "Next-state calculation", tags);
+            persist = timer("traffic.simulation.persist", "Traffic state save", tags);
+            broadcast = timer("traffic.simulation.broadcast", "Snapshot publish and WebSocket send", tags);
+            tickDelay = timer("traffic.simulation.tick.delay", "Distribution of tick start lag", tags);
+            lateTicks = counter("traffic.simulation.ticks.late", "Ticks that started later than the drift tolerance", tags);
+            skippedSteps = counter("traffic.simulation.steps.skipped", "Steps dropped by the SKIP drift policy", tags);
+            degradedTicks = counter("traffic.simulation.ticks.degraded", "Ticks run at the DEGRADE policy's slower cadence", tags);
+            if (properties.getMetrics().isSimulationTags()) {
+                owned.addAll(List.of(step, persist, broadcast, tickDelay, lateTicks, skippedSteps, degradedTicks));
+                owned.add(Gauge.builder("traffic.simulation.tick.lag", tickLagNanos, lag -> lag.get() / 1_000_000.0)
+                        .description("Delay between the last tick's scheduled and actual start")
+                        .baseUnit("milliseconds")
+                        .tags(tags)
+                        .register(registry));
+            } else {
+                tickLags.add(tickLagNanos);
+            }
+        }
+
+        public Timer step() {
+            return step;
+        }
+
+        public Timer persist() {
+            return persist;
+        }
+
+        public Timer broadcast() {
+            return broadcast;
+        }
+
+        public Counter lateTicks() {
+            return lateTicks;
+        }
+
+        public Counter skippedSteps() {
+            return skippedSteps;
+        }
+
+        public Counter degradedTicks() {
+            return degradedTicks;
+        }
+
+        public void recordTickLag(long lagNanos) {
+            long lag = Math.max(0, lagNanos);
+            tickLagNanos.set(lag);
+            tickDelay.record(lag, TimeUnit.NANOSECONDS);
+        }
+
+        public void close() {
+            tickLags.remove(tickLagNanos);
+            owned.forEach(registry::remove);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.traffic.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * One simulation tick, from the mailbox drain to the state save. Only ticks over the threshold are recorded,
+ * so a recording shows the stalls next to the GC, lock and socket events that explain them; lower it with
+ * {@code jfr configure} or a recording setting such as {@code traffic.SimulationStep#threshold=0 ms}.
+ */
+@Name("traffic.SimulationStep")
+@Label("Simulation Step")
+@Category({"Traffic", "Simulation"})
+@Description("A simulation tick, with the time spent in each part")
+@Threshold("20 ms")
+@StackTrace(false)
+class SimulationStepEvent extends Event {
+
+    @Label("Simulation")
+    String simulationId;
+
+    @Label("Time Step")
+    long timeStep;
+
+    @Label("Control Mode")
+    String controlMode;
+
+    @Label("Tick Lag")
+    @Description("Delay between the tick's scheduled and actual start")
+    @Timespan(Timespan.NANOSECONDS)
+    long tickLag;
+
+    @Label("Step")
+    @Description("Next-state calculation")
+    @Timespan(Timespan.NANOSECONDS)
+    long step;
+
+    @Label("Broadcast")
+    @Description("Snapshot publish and WebSocket send")
+    @Timespan(Timespan.NANOSECONDS)
+    long broadcast;
+
+    @Label("Persist")
+    @Description("Traffic state save")
+    @Timespan(Timespan.NANOSECONDS)
+    long persist;
+}
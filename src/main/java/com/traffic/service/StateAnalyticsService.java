@@ -0,0 +1,334 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.AnalyticsBucket;
+import com.traffic.dto.PhaseStats;
+import com.traffic.dto.SeriesStats;
+import com.traffic.dto.StateAnalyticsResponse;
+import com.traffic.model.TrafficPhase;
+import com.traffic.repository.TrafficStateScanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bucketed aggregations over the stored state history of a simulation: average, minimum, maximum and one
+ * percentile of every queue, and per phase the green time and density, for each {@code bucketSteps} time steps
+ * and for the whole range. Each simulation is read in one ordered pass over {@code traffic_states}; several
+ * simulations are aggregated in parallel on {@code traffic.analytics.threads} threads.
+ * <p>
+ * Results for simulations that are not running are cached per simulation and query. A cached result is used
+ * while the row count and last time step of the history are unchanged; sensor updates of the latest stored state
+ * and deletion evict it explicitly.
+ */
+@Service
+@Slf4j
+public class StateAnalyticsService implements SimulationDeletionListener {
+
+    private final TrafficStateScanRepository scanRepository;
+    private final TrafficSimulationService simulationService;
+    private final TrafficProperties properties;
+    private final ExecutorService workers;
+    private final Map<CacheKey, CacheEntry> cache;
+
+    public StateAnalyticsService(TrafficStateScanRepository scanRepository, TrafficSimulationService simulationService,
+                                 TrafficProperties properties) {
+        this.scanRepository = scanRepository;
+        this.simulationService = simulationService;
+        this.properties = properties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getAnalytics().getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "state-analytics-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int cacheSize = properties.getAnalytics().getCacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /** Query parameters; null ones take their defaults in {@link #query}. */
+    public record Query(int bucketSteps, Long fromStep, Long toStep, double percentile, Double densityThreshold) {
+    }
+
+    public Query query(Integer bucketSteps, Long fromStep, Long toStep, Double percentile, Double densityThreshold) {
+        int steps = bucketSteps != null ? bucketSteps : properties.getAnalytics().getDefaultBucketSteps();
+        double pct = percentile != null ? percentile : 95.0;
+        if (steps < 1) throw new IllegalArgumentException("bucketSteps must be at least 1");
+        if (!(pct > 0 && pct <= 100)) throw new IllegalArgumentException("percentile must be in (0, 100]");
+        if (fromStep != null && toStep != null && fromStep > toStep) {
+            throw new IllegalArgumentException("fromStep must not be after toStep");
+        }
+        return new Query(steps, fromStep, toStep, pct, densityThreshold);
+    }
+
+    public StateAnalyticsResponse analyze(String simulationId, Query query) {
+        boolean complete = !simulationService.isRunning(simulationId);
+        if (!complete) {
+            return compute(simulationId, query, false);
+        }
+        long[] stamp = scanRepository.stamp(simulationId);
+        CacheKey key = new CacheKey(simulationId, query);
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null && Arrays.equals(entry.stamp(), stamp)) {
+            return copy(entry.response(), true);
+        }
+        StateAnalyticsResponse response = compute(simulationId, query, true);
+        // A start between the check above and here would make the stamp stale, and the entry unused
+        synchronized (cache) {
+            cache.put(key, new CacheEntry(stamp, response));
+        }
+        return copy(response, false);
+    }
+
+    /** Aggregates several simulations in parallel; results are in the order of the IDs, duplicates removed. */
+    public List<StateAnalyticsResponse> analyzeAll(List<String> simulationIds, Query query) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>(simulationIds);
+        if (ids.size() > properties.getAnalytics().getMaxSimulations()) {
+            throw new IllegalArgumentException("At most " + properties.getAnalytics().getMaxSimulations()
+                    + " simulations per request");
+        }
+        List<CompletableFuture<StateAnalyticsResponse>> results = ids.stream()
+                .map(id -> CompletableFuture.supplyAsync(() -> analyze(id, query), workers))
+                .toList();
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    public void evict(String simulationId) {
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.simulationId().equals(simulationId));
+        }
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        evict(simulationId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private StateAnalyticsResponse compute(String simulationId, Query query, boolean complete) {
+        long started = System.nanoTime();
+        Aggregation aggregation = new Aggregation(query);
+        scanRepository.scan(simulationId, query.fromStep(), query.toStep(), aggregation::add);
+        List<AnalyticsBucket> buckets = aggregation.finish();
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        if (log.isDebugEnabled()) {
+            log.debug("Analytics for simulation {}: {} states in {} buckets, {} ms",
+                    simulationId, aggregation.total.samples, buckets.size(), elapsedMs);
+        }
+        return StateAnalyticsResponse.builder()
+                .simulationId(simulationId)
+                .bucketSteps(query.bucketSteps())
+                .fromStep(query.fromStep())
+                .toStep(query.toStep())
+                .percentile(query.percentile())
+                .densityThreshold(query.densityThreshold())
+                .complete(complete)
+                .cached(false)
+                .elapsedMs(elapsedMs)
+                .computedAt(LocalDateTime.now())
+                .total(aggregation.total.samples > 0 ? aggregation.total.toBucket(query) : null)
+                .buckets(buckets)
+                .build();
+    }
+
+    private static StateAnalyticsResponse copy(StateAnalyticsResponse response, boolean cached) {
+        return StateAnalyticsResponse.builder()
+                .simulationId(response.getSimulationId())
+                .bucketSteps(response.getBucketSteps())
+                .fromStep(response.getFromStep())
+                .toStep(response.getToStep())
+                .percentile(response.getPercentile())
+                .densityThreshold(response.getDensityThreshold())
+                .complete(response.getComplete())
+                .cached(cached)
+                .elapsedMs(response.getElapsedMs())
+                .computedAt(response.getComputedAt())
+                .total(response.getTotal())
+                .buckets(response.getBuckets())
+                .build();
+    }
+
+    private record CacheKey(String simulationId, Query query) {
+    }
+
+    private record CacheEntry(long[] stamp, StateAnalyticsResponse response) {
+    }
+
+    /** One pass over rows in time step order: rows go into the open bucket and the total. */
+    private static final class Aggregation {
+        private static final String[] COLUMNS = {
+                "vehicles_north", "vehicles_south", "vehicles_east", "vehicles_west",
+                "pedestrians_north", "pedestrians_south", "pedestrians_east", "pedestrians_west",
+                "phase1_density", "phase2_density"
+        };
+
+        private final Query query;
+        private final long origin;
+        private final Accumulator total;
+        private final List<AnalyticsBucket> buckets = new ArrayList<>();
+        private final double[] values = new double[COLUMNS.length];
+        private Accumulator bucket;
+        private long bucketIndex = Long.MIN_VALUE;
+
+        Aggregation(Query query) {
+            this.query = query;
+            this.origin = query.fromStep() != null ? query.fromStep() : 0;
+            this.total = new Accumulator(Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+
+        void add(ResultSet rs) throws SQLException {
+            long timeStep = rs.getLong("time_step");
+            long index = Math.floorDiv(timeStep - origin, query.bucketSteps());
+            if (index != bucketIndex) {
+                if (bucket != null) buckets.add(bucket.toBucket(query));
+                long fromStep = origin + index * query.bucketSteps();
+                bucket = new Accumulator(fromStep, fromStep + query.bucketSteps() - 1);
+                bucketIndex = index;
+            }
+            Timestamp timestamp = rs.getTimestamp("timestamp");
+            LocalDateTime time = timestamp != null ? timestamp.toLocalDateTime() : null;
+            String phase = rs.getString("current_phase");
+            TrafficPhase green = phase != null ? TrafficPhase.valueOf(phase) : null;
+            for (int i = 0; i < COLUMNS.length; i++) {
+                values[i] = rs.getDouble(COLUMNS[i]);
+            }
+            bucket.add(timeStep, time, green, values, query.densityThreshold());
+            total.add(timeStep, time, green, values, query.densityThreshold());
+        }
+
+        List<AnalyticsBucket> finish() {
+            if (bucket != null) buckets.add(bucket.toBucket(query));
+            return buckets;
+        }
+    }
+
+    private static final class Accumulator {
+        private static final int PHASE_1_DENSITY = 8;
+
+        private final Series[] series = new Series[10];
+        private final long[] greenSteps = new long[TrafficPhase.values().length];
+        private final long[] aboveThreshold = new long[TrafficPhase.values().length];
+        private long fromStep;
+        private long toStep;
+        private long samples;
+        private LocalDateTime firstTimestamp;
+        private LocalDateTime lastTimestamp;
+
+        // Bounds of MIN_VALUE take the range of the steps seen
+        Accumulator(long fromStep, long toStep) {
+            this.fromStep = fromStep;
+            this.toStep = toStep;
+            for (int i = 0; i < series.length; i++) series[i] = new Series();
+        }
+
+        void add(long timeStep, LocalDateTime time, TrafficPhase green, double[] values, Double densityThreshold) {
+            if (samples == 0) {
+                if (fromStep == Long.MIN_VALUE) fromStep = timeStep;
+                firstTimestamp = time;
+            }
+            if (toStep == Long.MIN_VALUE || timeStep > toStep) toStep = timeStep;
+            lastTimestamp = time;
+            samples++;
+            for (int i = 0; i < values.length; i++) series[i].add(values[i]);
+            if (green != null) greenSteps[green.ordinal()]++;
+            if (densityThreshold != null) {
+                for (TrafficPhase phase : TrafficPhase.values()) {
+                    if (values[PHASE_1_DENSITY + phase.ordinal()] > densityThreshold) aboveThreshold[phase.ordinal()]++;
+                }
+            }
+        }
+
+        AnalyticsBucket toBucket(Query query) {
+            Map<TrafficPhase, PhaseStats> phases = new EnumMap<>(TrafficPhase.class);
+            for (TrafficPhase phase : TrafficPhase.values()) {
+                int i = phase.ordinal();
+                phases.put(phase, PhaseStats.builder()
+                        .greenSteps(greenSteps[i])
+                        .greenShare((double) greenSteps[i] / samples)
+                        .density(series[PHASE_1_DENSITY + i].stats(query.percentile()))
+                        .stepsAboveThreshold(query.densityThreshold() != null ? aboveThreshold[i] : null)
+                        .build());
+            }
+            double pct = query.percentile();
+            return AnalyticsBucket.builder()
+                    .fromStep(fromStep)
+                    .toStep(toStep)
+                    .samples(samples)
+                    .firstTimestamp(firstTimestamp)
+                    .lastTimestamp(lastTimestamp)
+                    .vehiclesNorth(series[0].stats(pct))
+                    .vehiclesSouth(series[1].stats(pct))
+                    .vehiclesEast(series[2].stats(pct))
+                    .vehiclesWest(series[3].stats(pct))
+                    .pedestriansNorth(series[4].stats(pct))
+                    .pedestriansSouth(series[5].stats(pct))
+                    .pedestriansEast(series[6].stats(pct))
+                    .pedestriansWest(series[7].stats(pct))
+                    .phases(phases)
+                    .build();
+        }
+    }
+
+    /** Values of one column, kept for an exact percentile. */
+    private static final class Series {
+        private double[] values = new double[64];
+        private int count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);
+            values[count++] = value;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        SeriesStats stats(double percentile) {
+            if (count == 0) return null;
+            double[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * count);
+            return SeriesStats.builder()
+                    .avg(sum / count)
+                    .min(min)
+                    .max(max)
+                    .percentile(sorted[Math.max(0, rank - 1)])
+                    .build();
+        }
+    }
+}
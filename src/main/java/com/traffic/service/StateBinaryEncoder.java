@@ -0,0 +1,88 @@
+package com.traffic.service;
+
+import com.traffic.dto.TrafficStateResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Fixed-layout binary form of a {@link TrafficStateResponse}, for clients that negotiate
+ * {@code x-encoding: binary} on their subscription. Every record is {@value #RECORD_SIZE} bytes, little-endian:
+ * <pre>
+ * offset type  field
+ *  0     u8    version ({@value #VERSION})
+ *  1     u8    currentPhase (1 or 2, 0 when unknown)
+ *  2     u16   currentGreenTime
+ *  4     u16   calculatedGreenTime
+ *  6     u16   reserved
+ *  8     i64   timeStep
+ * 16     i64   timestamp, epoch millis of the local timestamp read as UTC
+ * 24     i32   vehiclesNorth, vehiclesSouth, vehiclesEast, vehiclesWest
+ * 40     i32   pedestriansNorth, pedestriansSouth, pedestriansEast, pedestriansWest
+ * 56     f32   phase1Density
+ * 60     f32   phase2Density
+ * </pre>
+ * Missing values are written as -1 (0xFFFF for u16 fields, {@code Long.MIN_VALUE} for the timestamp, NaN for densities).
+ * The matching decoder is served from {@code /js/traffic-state-decoder.js}.
+ */
+public final class StateBinaryEncoder {
+
+    public static final int RECORD_SIZE = 64;
+    public static final int VERSION = 1;
+
+    private static final int U16_MISSING = 0xFFFF;
+
+    private StateBinaryEncoder() {
+    }
+
+    public static byte[] encode(TrafficStateResponse state) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) (state.getCurrentPhase() != null ? state.getCurrentPhase().getValue() : 0));
+        buffer.putShort(u16(state.getCurrentGreenTime()));
+        buffer.putShort(u16(state.getCalculatedGreenTime()));
+        buffer.putShort((short) 0);
+        buffer.putLong(state.getTimeStep() != null ? state.getTimeStep() : -1L);
+        buffer.putLong(epochMillis(state.getTimestamp()));
+        buffer.putInt(i32(state.getVehiclesNorth()));
+        buffer.putInt(i32(state.getVehiclesSouth()));
+        buffer.putInt(i32(state.getVehiclesEast()));
+        buffer.putInt(i32(state.getVehiclesWest()));
+        buffer.putInt(i32(state.getPedestriansNorth()));
+        buffer.putInt(i32(state.getPedestriansSouth()));
+        buffer.putInt(i32(state.getPedestriansEast()));
+        buffer.putInt(i32(state.getPedestriansWest()));
+        buffer.putFloat(f32(state.getPhase1Density()));
+        buffer.putFloat(f32(state.getPhase2Density()));
+        return buffer.array();
+    }
+
+    /** Concatenates the records of several frames, oldest first, for a late subscriber's history batch. */
+    public static byte[] encodeAll(List<StreamFrame> frames) {
+        byte[] records = new byte[frames.size() * RECORD_SIZE];
+        for (int i = 0; i < frames.size(); i++) {
+            System.arraycopy(frames.get(i).getBinary(), 0, records, i * RECORD_SIZE, RECORD_SIZE);
+        }
+        return records;
+    }
+
+    private static short u16(Integer value) {
+        if (value == null || value < 0) return (short) U16_MISSING;
+        // Saturate rather than wrap; the top value is reserved for "missing"
+        return (short) Math.min(value, U16_MISSING - 1);
+    }
+
+    private static int i32(Integer value) {
+        return value != null ? value : -1;
+    }
+
+    private static float f32(Double value) {
+        return value != null ? value.floatValue() : Float.NaN;
+    }
+
+    private static long epochMillis(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE;
+    }
+}
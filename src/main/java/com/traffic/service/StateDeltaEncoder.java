@@ -0,0 +1,218 @@
+package com.traffic.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.RawJson;
+import com.traffic.dto.StateSnapshot;
+import com.traffic.dto.TrafficStateResponse;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes the per-simulation delta stream. Every frame carries a sequence number; a keyframe
+ * holds the full state and the frames after it only the fields that changed since the previous frame:
+ * <pre>
+ * {"seq":41,"keyframe":{...full TrafficStateResponse...}}
+ * {"seq":42,"delta":{"t":42,"g":7,"ve":3}}
+ * </pre>
+ * A delta computed against an older frame than the previous one names that frame in {@code base}
+ * (sent to rate-capped subscribers that skipped frames), e.g. {@code {"seq":50,"base":45,"delta":{...}}}.
+ * Delta keys are shortened to keep frames small:
+ * t=timeStep, ts=timestamp, vn/vs/ve/vw=vehicles, pn/ps/pe/pw=pedestrians, ph=currentPhase,
+ * g=currentGreenTime, cg=calculatedGreenTime, d1=phase1Density, d2=phase2Density.
+ * A client that sees a gap in the sequence asks for a resync and receives the current keyframe.
+ */
+@Service
+public class StateDeltaEncoder implements SimulationDeletionListener {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JsonFactory jsonFactory;
+    private final TrafficProperties properties;
+
+    private final Map<String, DeltaStream> streams = new ConcurrentHashMap<>();
+
+    public StateDeltaEncoder(ObjectMapper objectMapper, TrafficProperties properties) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.properties = properties;
+    }
+
+    /**
+     * Encodes the next frame of a simulation's stream. Called only from the simulation's runner,
+     * so frames of one stream are never encoded concurrently.
+     */
+    public StreamFrame encode(StateSnapshot snapshot) {
+        DeltaStream stream = streams.computeIfAbsent(snapshot.getSimulationId(), id -> new DeltaStream());
+        StreamFrame previous = stream.lastFrame;
+        long seq = previous != null ? previous.getSeq() + 1 : 1;
+
+        StreamFrame frame;
+        if (previous == null || stream.framesSinceKeyframe >= properties.getStreaming().getKeyframeInterval()) {
+            stream.framesSinceKeyframe = 0;
+            frame = new StreamFrame(snapshot, seq, null, keyframe(seq, snapshot), this);
+        } else {
+            stream.framesSinceKeyframe++;
+            RawJson delta = delta(seq, -1, previous.getSnapshot().getState(), snapshot.getState());
+            frame = new StreamFrame(snapshot, seq, delta, null, this);
+        }
+
+        stream.lastFrame = frame;
+        return frame;
+    }
+
+    /**
+     * Advances the stream without encoding anything, for ticks nobody is subscribed to.
+     * The frame is recorded as a keyframe whose bytes are only built if someone later asks for them,
+     * so the next encoded frame still follows on and late subscribers can start from it.
+     */
+    public StreamFrame skip(StateSnapshot snapshot) {
+        DeltaStream stream = streams.computeIfAbsent(snapshot.getSimulationId(), id -> new DeltaStream());
+        StreamFrame previous = stream.lastFrame;
+        long seq = previous != null ? previous.getSeq() + 1 : 1;
+
+        StreamFrame frame = new StreamFrame(snapshot, seq, null, null, this);
+        stream.framesSinceKeyframe = 0;
+        stream.lastFrame = frame;
+        return frame;
+    }
+
+    /** Returns the most recent frame of a simulation's stream. */
+    public Optional<StreamFrame> latest(String simulationId) {
+        DeltaStream stream = streams.get(simulationId);
+        return Optional.ofNullable(stream != null ? stream.lastFrame : null);
+    }
+
+    /** Returns a keyframe for the last encoded frame, for a client that lost track of the stream. */
+    public Optional<RawJson> resync(String simulationId) {
+        return latest(simulationId).map(StreamFrame::getKeyframe);
+    }
+
+    public void evict(String simulationId) {
+        streams.remove(simulationId);
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        evict(simulationId);
+    }
+
+    /** Encodes the changes between two frames of the same stream that are not necessarily adjacent. */
+    public RawJson deltaSince(StreamFrame base, StreamFrame frame) {
+        long baseSeq = base.getSeq() == frame.getSeq() - 1 ? -1 : base.getSeq();
+        return delta(frame.getSeq(), baseSeq, base.getSnapshot().getState(), frame.getSnapshot().getState());
+    }
+
+    /**
+     * Batches buffered frames into one message for a late subscriber: {@code {"history":[...states...]}},
+     * oldest first. For delta subscribers the batch also carries the sequence number of its last state
+     * and stands in for a keyframe.
+     */
+    public RawJson history(List<StreamFrame> frames, boolean withSeq) {
+        int estimate = frames.isEmpty() ? 32 : 32 + frames.size() * (frames.get(0).getSnapshot().getJson().size() + 1);
+        ByteArrayBuilder buffer = new ByteArrayBuilder(estimate);
+        try (JsonGenerator gen = jsonFactory.createGenerator(buffer)) {
+            gen.writeStartObject();
+            if (withSeq && !frames.isEmpty()) {
+                gen.writeNumberField("seq", frames.get(frames.size() - 1).getSeq());
+            }
+            gen.writeArrayFieldStart("history");
+            for (StreamFrame frame : frames) {
+                frame.getSnapshot().getJson().writeTo(gen);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return RawJson.of(buffer.toByteArray());
+    }
+
+    RawJson keyframe(long seq, StateSnapshot snapshot) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(snapshot.getJson().size() + 32);
+        try (JsonGenerator gen = jsonFactory.createGenerator(buffer)) {
+            gen.writeStartObject();
+            gen.writeNumberField("seq", seq);
+            gen.writeFieldName("keyframe");
+            snapshot.getJson().writeTo(gen);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return RawJson.of(buffer.toByteArray());
+    }
+
+    private RawJson delta(long seq, long baseSeq, TrafficStateResponse previous, TrafficStateResponse current) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(96);
+        try (JsonGenerator gen = jsonFactory.createGenerator(buffer)) {
+            gen.writeStartObject();
+            gen.writeNumberField("seq", seq);
+            if (baseSeq >= 0) {
+                gen.writeNumberField("base", baseSeq);
+            }
+            gen.writeObjectFieldStart("delta");
+            writeIfChanged(gen, "t", previous.getTimeStep(), current.getTimeStep());
+            writeIfChanged(gen, "ts", previous.getTimestamp(), current.getTimestamp());
+            writeIfChanged(gen, "vn", previous.getVehiclesNorth(), current.getVehiclesNorth());
+            writeIfChanged(gen, "vs", previous.getVehiclesSouth(), current.getVehiclesSouth());
+            writeIfChanged(gen, "ve", previous.getVehiclesEast(), current.getVehiclesEast());
+            writeIfChanged(gen, "vw", previous.getVehiclesWest(), current.getVehiclesWest());
+            writeIfChanged(gen, "pn", previous.getPedestriansNorth(), current.getPedestriansNorth());
+            writeIfChanged(gen, "ps", previous.getPedestriansSouth(), current.getPedestriansSouth());
+            writeIfChanged(gen, "pe", previous.getPedestriansEast(), current.getPedestriansEast());
+            writeIfChanged(gen, "pw", previous.getPedestriansWest(), current.getPedestriansWest());
+            writeIfChanged(gen, "ph", previous.getCurrentPhase(), current.getCurrentPhase());
+            writeIfChanged(gen, "g", previous.getCurrentGreenTime(), current.getCurrentGreenTime());
+            writeIfChanged(gen, "cg", previous.getCalculatedGreenTime(), current.getCalculatedGreenTime());
+            writeIfChanged(gen, "d1", previous.getPhase1Density(), current.getPhase1Density());
+            writeIfChanged(gen, "d2", previous.getPhase2Density(), current.getPhase2Density());
+            gen.writeEndObject();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return RawJson.of(buffer.toByteArray());
+    }
+
+    private void writeIfChanged(JsonGenerator gen, String field, Object previous, Object current) throws IOException {
+        if (previous instanceof LocalDateTime before && current instanceof LocalDateTime after) {
+            // Timestamps are published with second precision
+            previous = before.truncatedTo(ChronoUnit.SECONDS);
+            current = after.truncatedTo(ChronoUnit.SECONDS);
+        }
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        gen.writeFieldName(field);
+        if (current == null) {
+            gen.writeNull();
+        } else if (current instanceof Integer value) {
+            gen.writeNumber(value);
+        } else if (current instanceof Long value) {
+            gen.writeNumber(value);
+        } else if (current instanceof Double value) {
+            gen.writeNumber(value);
+        } else if (current instanceof LocalDateTime value) {
+            gen.writeString(TIMESTAMP_FORMAT.format(value));
+        } else {
+            gen.writeString(current.toString());
+        }
+    }
+
+    private static final class DeltaStream {
+        // Written by the runner thread, read by resync requests
+        private volatile StreamFrame lastFrame;
+        private int framesSinceKeyframe;
+    }
+}
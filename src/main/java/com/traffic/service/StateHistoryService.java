@@ -0,0 +1,59 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.util.RingBuffer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last {@code traffic.streaming.history-size} stream frames of every simulation in memory,
+ * so reconnecting clients and late subscribers can catch up without touching the database. Only stream
+ * frames are kept; {@code /states} queries always read the table, which also holds the initial state and
+ * sensor updates of idle simulations.
+ */
+@Service
+@RequiredArgsConstructor
+public class StateHistoryService implements SimulationDeletionListener {
+
+    private final TrafficProperties properties;
+
+    private final Map<String, RingBuffer<StreamFrame>> histories = new ConcurrentHashMap<>();
+
+    public void record(StreamFrame frame) {
+        histories.computeIfAbsent(frame.getSimulationId(),
+                id -> new RingBuffer<>(properties.getStreaming().getHistorySize())).add(frame);
+    }
+
+    public Optional<StreamFrame> latest(String simulationId) {
+        RingBuffer<StreamFrame> history = histories.get(simulationId);
+        return Optional.ofNullable(history != null ? history.latest() : null);
+    }
+
+    /** Buffered frames with a sequence number above {@code seq}, oldest first. */
+    public List<StreamFrame> since(String simulationId, long seq) {
+        RingBuffer<StreamFrame> history = histories.get(simulationId);
+        if (history == null) return List.of();
+        return history.toList().stream().filter(frame -> frame.getSeq() > seq).toList();
+    }
+
+    /** The most recent {@code limit} buffered frames, oldest first. */
+    public List<StreamFrame> recent(String simulationId, int limit) {
+        RingBuffer<StreamFrame> history = histories.get(simulationId);
+        if (history == null || limit < 1) return List.of();
+        List<StreamFrame> frames = history.toList();
+        return frames.subList(Math.max(0, frames.size() - limit), frames.size());
+    }
+
+    public void evict(String simulationId) {
+        histories.remove(simulationId);
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        evict(simulationId);
+    }
+}
@@ -0,0 +1,62 @@
+package com.traffic.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.dto.RawJson;
+import com.traffic.dto.StateSnapshot;
+import com.traffic.dto.TrafficLightStatus;
+import com.traffic.dto.TrafficStateResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the latest state of every simulation in serialized form. Each state is turned
+ * into JSON at most once, when first read; REST endpoints and WebSocket pushes share
+ * those bytes until the runner produces the next state.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StateSnapshotService implements SimulationDeletionListener {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, StateSnapshot> latestSnapshots = new ConcurrentHashMap<>();
+
+    public StateSnapshot publish(String simulationId, TrafficStateResponse state) {
+        StateSnapshot snapshot = new StateSnapshot(simulationId, state, this::toRawJson);
+        latestSnapshots.put(simulationId, snapshot);
+        return snapshot;
+    }
+
+    public Optional<StateSnapshot> getLatest(String simulationId) {
+        return Optional.ofNullable(latestSnapshots.get(simulationId));
+    }
+
+    public Optional<RawJson> getTrafficLightStatus(String simulationId) {
+        return getLatest(simulationId)
+                .map(snapshot -> snapshot.getTrafficLight(() ->
+                        toRawJson(TrafficLightStatus.fromState(simulationId, snapshot.getState()))));
+    }
+
+    public void evict(String simulationId) {
+        latestSnapshots.remove(simulationId);
+    }
+
+    @Override
+    public void onSimulationDeleted(String simulationId) {
+        evict(simulationId);
+    }
+
+    public RawJson toRawJson(Object value) {
+        try {
+            return RawJson.of(objectMapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+}
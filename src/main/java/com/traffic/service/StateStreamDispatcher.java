@@ -0,0 +1,402 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.RawJson;
+import com.traffic.dto.StreamingStatsResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers simulation state streams to each STOMP subscriber individually instead of through the
+ * simple broker. Every subscription has a single pending slot: a frame that arrives while the previous
+ * one is still being written replaces it (conflation), and at most one frame per subscriber is ever
+ * queued for the socket. Subscribers may cap their frame rate with an {@code x-max-fps} SUBSCRIBE header.
+ * Publishing never blocks, so a slow browser costs the simulation nothing and holds one frame of memory.
+ * <p>
+ * Managed destinations: {@code /topic/simulation/{id}} (full state) and {@code /topic/simulation/{id}/delta}.
+ * Sessions opened on the plain WebSocket endpoint may send {@code x-encoding: binary} to receive
+ * {@link StateBinaryEncoder} records instead of JSON on either destination; SockJS sessions always get JSON
+ * because SockJS only carries text.
+ * A new subscriber immediately receives the latest frame of its simulation rather than waiting for the next tick.
+ * With an {@code x-history: N} SUBSCRIBE header it instead receives up to N recent states in a single message
+ * marked {@code x-frame: history}: a JSON {@code {"history":[...]}} batch (with {@code seq} on the delta
+ * destination) or concatenated binary records.
+ */
+@Service
+@Slf4j
+public class StateStreamDispatcher {
+
+    public static final String DELIVERY_CALLBACK_HEADER = "trafficStreamDeliveryCallback";
+    public static final String MAX_FPS_HEADER = "x-max-fps";
+    public static final String ENCODING_HEADER = "x-encoding";
+    public static final String HISTORY_HEADER = "x-history";
+    public static final String FRAME_TYPE_HEADER = "x-frame";
+    /** Session attribute set during the handshake of sessions that can receive binary frames. */
+    public static final String BINARY_CAPABLE_ATTRIBUTE = "trafficBinaryCapable";
+
+    private static final String DESTINATION_PREFIX = "/topic/simulation/";
+    private static final String DELTA_SUFFIX = "/delta";
+
+    private final MessageChannel clientOutboundChannel;
+    private final StateDeltaEncoder deltaEncoder;
+    private final StateHistoryService historyService;
+    private final TrafficProperties properties;
+
+    private final Map<String, Set<Subscriber>> subscribersBySimulation = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Subscriber>> subscribersBySession = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService pacer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stream-pacer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder deliveredFrames = new LongAdder();
+    private final LongAdder conflatedFrames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+
+    public StateStreamDispatcher(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                 StateDeltaEncoder deltaEncoder, StateHistoryService historyService,
+                                 TrafficProperties properties) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.deltaEncoder = deltaEncoder;
+        this.historyService = historyService;
+        this.properties = properties;
+    }
+
+    public enum StreamFormat {
+        STATE, DELTA
+    }
+
+    public enum StreamEncoding {
+        JSON, BINARY
+    }
+
+    public void publish(StreamFrame frame) {
+        Set<Subscriber> subscribers = subscribersBySimulation.get(frame.getSimulationId());
+        if (subscribers == null) return;
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    public boolean hasSubscribers(String simulationId) {
+        return subscribersBySimulation.containsKey(simulationId);
+    }
+
+    public StreamingStatsResponse getStats() {
+        int subscriptions = subscribersBySimulation.values().stream().mapToInt(Set::size).sum();
+        return StreamingStatsResponse.builder()
+                .activeSubscriptions(subscriptions)
+                .deliveredFrames(deliveredFrames.sum())
+                .conflatedFrames(conflatedFrames.sum())
+                .droppedFrames(droppedFrames.sum())
+                .build();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) return;
+
+        String rest = destination.substring(DESTINATION_PREFIX.length());
+        StreamFormat format;
+        String simulationId;
+        if (rest.endsWith(DELTA_SUFFIX)) {
+            format = StreamFormat.DELTA;
+            simulationId = rest.substring(0, rest.length() - DELTA_SUFFIX.length());
+        } else {
+            format = StreamFormat.STATE;
+            simulationId = rest;
+        }
+        // Other sub-topics such as /status stay with the broker
+        if (simulationId.isEmpty() || simulationId.contains("/")) return;
+
+        Subscriber subscriber = new Subscriber(accessor.getSessionId(), accessor.getSubscriptionId(),
+                destination, simulationId, format, encoding(accessor), maxFps(accessor));
+        subscribersBySession.computeIfAbsent(subscriber.sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriber.subscriptionId, subscriber);
+        subscribersBySimulation.compute(simulationId, (id, subscribers) -> {
+            Set<Subscriber> result = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        log.debug("Stream subscription {} for simulation {} ({}, {}, max {} fps)",
+                subscriber.subscriptionId, simulationId, format, subscriber.encoding, subscriber.maxFps);
+
+        // Ticks published while nobody was subscribed were never encoded, so start the subscriber from the latest one
+        int history = historyLimit(accessor);
+        if (history > 0) {
+            subscriber.offerHistory(historyService.recent(simulationId, history));
+        } else {
+            historyService.latest(simulationId).ifPresent(subscriber::offer);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, Subscriber> sessionSubscribers = subscribersBySession.get(accessor.getSessionId());
+        if (sessionSubscribers == null) return;
+
+        Subscriber subscriber = sessionSubscribers.remove(accessor.getSubscriptionId());
+        if (subscriber != null) {
+            remove(subscriber);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Subscriber> sessionSubscribers = subscribersBySession.remove(sessionId(event));
+        if (sessionSubscribers == null) return;
+
+        sessionSubscribers.values().forEach(this::remove);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pacer.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscriber.pending.getAndSet(null) != null) {
+            droppedFrames.increment();
+        }
+        subscribersBySimulation.computeIfPresent(subscriber.simulationId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private int maxFps(SimpMessageHeaderAccessor accessor) {
+        String requested = accessor.getFirstNativeHeader(MAX_FPS_HEADER);
+        if (requested != null) {
+            try {
+                return Math.max(0, Integer.parseInt(requested.trim()));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring invalid {} header: {}", MAX_FPS_HEADER, requested);
+            }
+        }
+        return properties.getStreaming().getDefaultMaxFps();
+    }
+
+    private int historyLimit(SimpMessageHeaderAccessor accessor) {
+        String requested = accessor.getFirstNativeHeader(HISTORY_HEADER);
+        if (requested == null) return 0;
+        try {
+            return Math.max(0, Integer.parseInt(requested.trim()));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid {} header: {}", HISTORY_HEADER, requested);
+            return 0;
+        }
+    }
+
+    private StreamEncoding encoding(SimpMessageHeaderAccessor accessor) {
+        String requested = accessor.getFirstNativeHeader(ENCODING_HEADER);
+        if (requested == null || !requested.trim().equalsIgnoreCase("binary")) {
+            return StreamEncoding.JSON;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE))) {
+            log.debug("Binary encoding requested on session {} that cannot carry binary frames; using JSON",
+                    accessor.getSessionId());
+            return StreamEncoding.JSON;
+        }
+        return StreamEncoding.BINARY;
+    }
+
+    private static String sessionId(AbstractSubProtocolEvent event) {
+        return SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+    }
+
+    /**
+     * One STOMP subscription. {@code inFlight} guarantees a single frame between this subscriber
+     * and its socket; {@code pending} holds at most one frame waiting behind it.
+     */
+    private final class Subscriber implements Runnable {
+        private final String sessionId;
+        private final String subscriptionId;
+        private final String destination;
+        private final String simulationId;
+        private final StreamFormat format;
+        private final StreamEncoding encoding;
+        private final int maxFps;
+        private final long minIntervalNanos;
+
+        private final AtomicReference<StreamFrame> pending = new AtomicReference<>();
+        // Sent ahead of any pending frame, once
+        private volatile List<StreamFrame> pendingHistory;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private final AtomicBoolean pacerArmed = new AtomicBoolean();
+        private volatile boolean closed;
+        // Only touched by the thread holding inFlight
+        private long lastSentNanos;
+        private StreamFrame lastSentFrame;
+
+        Subscriber(String sessionId, String subscriptionId, String destination, String simulationId,
+                   StreamFormat format, StreamEncoding encoding, int maxFps) {
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.destination = destination;
+            this.simulationId = simulationId;
+            this.format = format;
+            this.encoding = encoding;
+            this.maxFps = maxFps;
+            this.minIntervalNanos = maxFps > 0 ? TimeUnit.SECONDS.toNanos(1) / maxFps : 0;
+        }
+
+        void offer(StreamFrame frame) {
+            if (closed) return;
+            if (pending.getAndSet(frame) != null) {
+                conflatedFrames.increment();
+            }
+            drain();
+        }
+
+        void offerHistory(List<StreamFrame> frames) {
+            if (closed || frames.isEmpty()) return;
+            pendingHistory = frames;
+            drain();
+        }
+
+        void drain() {
+            while (!closed && (pendingHistory != null || pending.get() != null) && inFlight.compareAndSet(false, true)) {
+                long waitNanos = lastSentNanos + minIntervalNanos - System.nanoTime();
+                if (lastSentNanos != 0 && waitNanos > 0) {
+                    inFlight.set(false);
+                    if (pacerArmed.compareAndSet(false, true)) {
+                        pacer.schedule(() -> {
+                            pacerArmed.set(false);
+                            drain();
+                        }, waitNanos, TimeUnit.NANOSECONDS);
+                    }
+                    return;
+                }
+
+                List<StreamFrame> history = pendingHistory;
+                if (history != null) {
+                    pendingHistory = null;
+                    if (sendHistory(history)) {
+                        return;
+                    }
+                    inFlight.set(false);
+                    continue;
+                }
+
+                StreamFrame frame = pending.getAndSet(null);
+                // Frames already covered by the history batch are skipped
+                if (frame == null || (lastSentFrame != null && frame.getSeq() <= lastSentFrame.getSeq())) {
+                    inFlight.set(false);
+                    continue;
+                }
+                if (send(frame)) {
+                    // inFlight is released by run() once the outbound channel has handled the frame
+                    return;
+                }
+                inFlight.set(false);
+            }
+        }
+
+        private boolean send(StreamFrame frame) {
+            return send(toMessage(frame), frame);
+        }
+
+        private boolean sendHistory(List<StreamFrame> frames) {
+            Message<byte[]> message;
+            if (encoding == StreamEncoding.BINARY) {
+                message = toMessage(StateBinaryEncoder.encodeAll(frames), MimeTypeUtils.APPLICATION_OCTET_STREAM, "history");
+            } else {
+                RawJson batch = deltaEncoder.history(frames, format == StreamFormat.DELTA);
+                message = toMessage(batch.getBytes(), MimeTypeUtils.APPLICATION_JSON, "history");
+            }
+            return send(message, frames.get(frames.size() - 1));
+        }
+
+        private boolean send(Message<byte[]> message, StreamFrame lastFrame) {
+            try {
+                lastSentNanos = System.nanoTime();
+                boolean sent = clientOutboundChannel.send(message);
+                if (sent) {
+                    lastSentFrame = lastFrame;
+                    deliveredFrames.increment();
+                } else {
+                    droppedFrames.increment();
+                }
+                return sent;
+            } catch (Exception e) {
+                log.debug("Failed to deliver frame to session {}: {}", sessionId, e.getMessage());
+                droppedFrames.increment();
+                return false;
+            }
+        }
+
+        private RawJson jsonPayload(StreamFrame frame) {
+            if (format == StreamFormat.STATE) {
+                return frame.getSnapshot().getJson();
+            }
+            if (lastSentFrame == null || frame.isKeyframe()) {
+                return frame.getKeyframe();
+            }
+            if (frame.getSeq() == lastSentFrame.getSeq() + 1) {
+                return frame.getDelta();
+            }
+            // Frames were conflated away, so diff against what this subscriber actually has
+            return deltaEncoder.deltaSince(lastSentFrame, frame);
+        }
+
+        private Message<byte[]> toMessage(StreamFrame frame) {
+            if (encoding == StreamEncoding.BINARY) {
+                // Every binary record is a full state, so the delta destination needs no special handling
+                return toMessage(frame.getBinary(), MimeTypeUtils.APPLICATION_OCTET_STREAM, null);
+            }
+            return toMessage(jsonPayload(frame).getBytes(), MimeTypeUtils.APPLICATION_JSON, null);
+        }
+
+        private Message<byte[]> toMessage(byte[] payload, MimeType contentType, String frameType) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(destination);
+            accessor.setContentType(contentType);
+            if (frameType != null) {
+                accessor.setNativeHeader(FRAME_TYPE_HEADER, frameType);
+            }
+            accessor.setHeader(DELIVERY_CALLBACK_HEADER, this);
+            accessor.setLeaveMutable(true);
+            return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        }
+
+        /** Delivery callback: the previous frame has been handed to the socket. */
+        @Override
+        public void run() {
+            inFlight.set(false);
+            drain();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.traffic.service;
+
+import com.traffic.dto.RawJson;
+import com.traffic.dto.StateSnapshot;
+
+/**
+ * One tick of a simulation's outbound stream, shared by every subscriber of that simulation.
+ * Holds the full state snapshot plus its position in the delta stream; the keyframe
+ * and binary forms are only built when some subscriber actually needs them.
+ */
+public final class StreamFrame {
+
+    private final StateSnapshot snapshot;
+    private final long seq;
+    private final RawJson delta;
+    private final StateDeltaEncoder encoder;
+    private volatile RawJson keyframe;
+    private volatile byte[] binary;
+
+    StreamFrame(StateSnapshot snapshot, long seq, RawJson delta, RawJson keyframe, StateDeltaEncoder encoder) {
+        this.snapshot = snapshot;
+        this.seq = seq;
+        this.delta = delta;
+        this.keyframe = keyframe;
+        this.encoder = encoder;
+    }
+
+    public String getSimulationId() {
+        return snapshot.getSimulationId();
+    }
+
+    public StateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public boolean isKeyframe() {
+        return delta == null;
+    }
+
+    /** Changed fields since the previous frame, or the keyframe when this frame is one. */
+    public RawJson getDelta() {
+        return delta != null ? delta : getKeyframe();
+    }
+
+    public RawJson getKeyframe() {
+        RawJson frame = keyframe;
+        if (frame == null) {
+            frame = encoder.keyframe(seq, snapshot);
+            keyframe = frame;
+        }
+        return frame;
+    }
+
+    /** Full state as a {@link StateBinaryEncoder} record; binary subscribers get one on every frame. */
+    public byte[] getBinary() {
+        byte[] record = binary;
+        if (record == null) {
+            record = StateBinaryEncoder.encode(snapshot.getState());
+            binary = record;
+        }
+        return record;
+    }
+}
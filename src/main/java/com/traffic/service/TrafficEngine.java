@@ -0,0 +1,278 @@
+package com.traffic.service;
+
+import com.traffic.dto.SensorReading;
+import com.traffic.model.ControlMode;
+import com.traffic.model.PhaseSwitchReason;
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficPhase;
+import com.traffic.model.TrafficState;
+import lombok.extern.slf4j.Slf4j;
+import java.time.LocalDateTime;
+import java.util.random.RandomGenerator;
+
+/**
+ * The intersection model: one time step of arrivals, service, adaptive green time and phase switching.
+ * Stateless; randomness comes from the caller, so a seeded generator replays the same trajectory
+ * (benchmarks and traces), while running simulations use {@code ThreadLocalRandom}.
+ */
+@Slf4j
+public final class TrafficEngine {
+    
+    private TrafficEngine() {
+    }
+    
+    // Fixed mathematical model implementation
+    public static TrafficState nextState(TrafficState currentState, SimulationConfig config, RandomGenerator random) {
+        TrafficState nextState = advance(currentState);
+        
+        // Apply arrival and service rates based on current phase
+        if (currentState.getCurrentPhase() == TrafficPhase.PHASE_1) {
+            // N-S green, E-W red
+            log.debug("PHASE_1: N-S green, E-W red");
+            
+            // N-S directions: vehicles can be served (flow through)
+            nextState.setVehiclesNorth(Math.max(0, 
+                nextState.getVehiclesNorth() + generateArrivals(config.getLambdaNorth(), random) - generateService(config.getSigmaNorth(), random)));
+            nextState.setVehiclesSouth(Math.max(0, 
+                nextState.getVehiclesSouth() + generateArrivals(config.getLambdaSouth(), random) - generateService(config.getSigmaSouth(), random)));
+            
+            // E-W directions: vehicles accumulate (red light)
+            nextState.setVehiclesEast(nextState.getVehiclesEast() + generateArrivals(config.getLambdaEast(), random));
+            nextState.setVehiclesWest(nextState.getVehiclesWest() + generateArrivals(config.getLambdaWest(), random));
+            
+            // Pedestrians: N-S accumulate, E-W can cross
+            nextState.setPedestriansNorth(nextState.getPedestriansNorth() + generateArrivals(config.getMuNorth(), random));
+            nextState.setPedestriansSouth(nextState.getPedestriansSouth() + generateArrivals(config.getMuSouth(), random));
+            nextState.setPedestriansEast(Math.max(0, nextState.getPedestriansEast() - nextState.getPedestriansEast())); // All cross
+            nextState.setPedestriansWest(Math.max(0, nextState.getPedestriansWest() - nextState.getPedestriansWest())); // All cross
+            
+        } else {
+            // E-W green, N-S red
+            log.debug("PHASE_2: E-W green, N-S red");
+            
+            // N-S directions: vehicles accumulate (red light)
+            nextState.setVehiclesNorth(nextState.getVehiclesNorth() + generateArrivals(config.getLambdaNorth(), random));
+            nextState.setVehiclesSouth(nextState.getVehiclesSouth() + generateArrivals(config.getLambdaSouth(), random));
+            
+            // E-W directions: vehicles can be served (flow through)
+            nextState.setVehiclesEast(Math.max(0, 
+                nextState.getVehiclesEast() + generateArrivals(config.getLambdaEast(), random) - generateService(config.getSigmaEast(), random)));
+            nextState.setVehiclesWest(Math.max(0, 
+                nextState.getVehiclesWest() + generateArrivals(config.getLambdaWest(), random) - generateService(config.getSigmaWest(), random)));
+            
+            // Pedestrians: E-W accumulate, N-S can cross
+            nextState.setPedestriansEast(nextState.getPedestriansEast() + generateArrivals(config.getMuEast(), random));
+            nextState.setPedestriansWest(nextState.getPedestriansWest() + generateArrivals(config.getMuWest(), random));
+            nextState.setPedestriansNorth(Math.max(0, nextState.getPedestriansNorth() - nextState.getPedestriansNorth())); // All cross
+            nextState.setPedestriansSouth(Math.max(0, nextState.getPedestriansSouth() - nextState.getPedestriansSouth())); // All cross
+        }
+        
+        applyControlDecision(nextState, config);
+        
+        // Guarded: the argument array is built even when debug is off
+        if (log.isDebugEnabled()) {
+            log.debug("State updated: timeStep={}, N={}, S={}, E={}, W={}, phase={}, greenTime={}/{}", 
+                    nextState.getTimeStep(), nextState.getVehiclesNorth(), nextState.getVehiclesSouth(),
+                    nextState.getVehiclesEast(), nextState.getVehiclesWest(), 
+                    nextState.getCurrentPhase(), nextState.getCurrentGreenTime(), nextState.getCalculatedGreenTime());
+        }
+        
+        return nextState;
+    }
+    
+    /**
+     * Next state for {@link ControlMode#LIVE}: counts come from the measurement instead of random
+     * arrivals and service (counts it leaves out, or all of them without one, are held), then the
+     * same green time and switching decision as the simulated model is made.
+     */
+    public static TrafficState liveState(TrafficState currentState, SensorReading measurement, SimulationConfig config) {
+        TrafficState nextState = advance(currentState);
+        
+        if (measurement != null) {
+            if (measurement.getVehiclesNorth() != null) nextState.setVehiclesNorth(measurement.getVehiclesNorth());
+            if (measurement.getVehiclesSouth() != null) nextState.setVehiclesSouth(measurement.getVehiclesSouth());
+            if (measurement.getVehiclesEast() != null) nextState.setVehiclesEast(measurement.getVehiclesEast());
+            if (measurement.getVehiclesWest() != null) nextState.setVehiclesWest(measurement.getVehiclesWest());
+            if (measurement.getPedestriansNorth() != null) nextState.setPedestriansNorth(measurement.getPedestriansNorth());
+            if (measurement.getPedestriansSouth() != null) nextState.setPedestriansSouth(measurement.getPedestriansSouth());
+            if (measurement.getPedestriansEast() != null) nextState.setPedestriansEast(measurement.getPedestriansEast());
+            if (measurement.getPedestriansWest() != null) nextState.setPedestriansWest(measurement.getPedestriansWest());
+        }
+        
+        applyControlDecision(nextState, config);
+        return nextState;
+    }
+    
+    // One step later, same phase, with the current counts
+    private static TrafficState advance(TrafficState currentState) {
+        TrafficState nextState = TrafficState.builder()
+                .simulationId(currentState.getSimulationId())
+                .timeStep(currentState.getTimeStep() + 1)
+                .timestamp(LocalDateTime.now())
+                .currentPhase(currentState.getCurrentPhase())
+                .currentGreenTime(currentState.getCurrentGreenTime() + 1)
+                .build();
+        
+        // Initialize with current values
+        nextState.setVehiclesNorth(currentState.getVehiclesNorth());
+        nextState.setVehiclesSouth(currentState.getVehiclesSouth());
+        nextState.setVehiclesEast(currentState.getVehiclesEast());
+        nextState.setVehiclesWest(currentState.getVehiclesWest());
+        
+        nextState.setPedestriansNorth(currentState.getPedestriansNorth());
+        nextState.setPedestriansSouth(currentState.getPedestriansSouth());
+        nextState.setPedestriansEast(currentState.getPedestriansEast());
+        nextState.setPedestriansWest(currentState.getPedestriansWest());
+        return nextState;
+    }
+    
+    // Densities, adaptive green time and the phase switch, from the counts already set on the state
+    public static void applyControlDecision(TrafficState nextState, SimulationConfig config) {
+        // Calculate traffic densities
+        double phase1Density = nextState.getVehiclesNorth() + nextState.getVehiclesSouth() + 
+                              config.getPedestrianWeight() * (nextState.getPedestriansNorth() + nextState.getPedestriansSouth());
+        double phase2Density = nextState.getVehiclesEast() + nextState.getVehiclesWest() + 
+                              config.getPedestrianWeight() * (nextState.getPedestriansEast() + nextState.getPedestriansWest());
+        
+        nextState.setPhase1Density(phase1Density);
+        nextState.setPhase2Density(phase2Density);
+        
+        // Calculate adaptive green time
+        int adaptiveGreenTime = calculateAdaptiveGreenTime(nextState, config);
+        nextState.setCalculatedGreenTime(adaptiveGreenTime);
+        
+        // Check for phase switching
+        PhaseSwitchReason reason = switchReason(nextState, config);
+        if (reason != null) {
+            TrafficPhase fromPhase = nextState.getCurrentPhase();
+            int greenTime = nextState.getCurrentGreenTime();
+            nextState.setCurrentPhase(fromPhase == TrafficPhase.PHASE_1 ? 
+                                    TrafficPhase.PHASE_2 : TrafficPhase.PHASE_1);
+            nextState.setCurrentGreenTime(0);
+            nextState.setSwitchReason(reason);
+            
+            // Recalculate green time for new phase
+            adaptiveGreenTime = calculateAdaptiveGreenTime(nextState, config);
+            nextState.setCalculatedGreenTime(adaptiveGreenTime);
+            
+            PhaseSwitchEvent event = new PhaseSwitchEvent();
+            if (event.shouldCommit()) {
+                event.simulationId = nextState.getSimulationId();
+                event.timeStep = nextState.getTimeStep();
+                event.fromPhase = fromPhase.name();
+                event.toPhase = nextState.getCurrentPhase().name();
+                event.reason = reason.name();
+                event.greenTime = greenTime;
+                event.phase1Density = phase1Density;
+                event.phase2Density = phase2Density;
+                event.calculatedGreenTime = adaptiveGreenTime;
+                event.commit();
+            }
+            
+            // Kept by PhaseSwitchJournalService; the log line is for debugging only
+            if (log.isDebugEnabled()) {
+                log.debug("Phase switched to {} ({}) - N-S density: {}, E-W density: {}, Green time: {}s", 
+                        nextState.getCurrentPhase(), reason, phase1Density, phase2Density, adaptiveGreenTime);
+            }
+        }
+    }
+    
+    // Helper method to generate arrivals based on Poisson process
+    public static int generateArrivals(Double rate, RandomGenerator random) {
+        if (rate == null || rate <= 0) return 0;
+        
+        // Simple arrival generation: rate represents vehicles/second
+        // For 1-second time steps, we use Poisson distribution approximation
+        return (random.nextDouble() < rate) ? 1 : 0;
+    }
+    
+    // Helper method to generate service (vehicles processed)
+    public static int generateService(Double rate, RandomGenerator random) {
+        if (rate == null || rate <= 0) return 0;
+        
+        // Service rate represents vehicles/second that can be processed
+        return (random.nextDouble() < rate) ? 1 : 0;
+    }
+    
+    // Fixed adaptive green time calculation
+    public static int calculateAdaptiveGreenTime(TrafficState state, SimulationConfig config) {
+        double phase1Density = state.getPhase1Density();
+        double phase2Density = state.getPhase2Density();
+        double currentDensity, waitingDensity;
+        
+        if (state.getCurrentPhase() == TrafficPhase.PHASE_1) {
+            currentDensity = phase1Density;
+            waitingDensity = phase2Density;
+        } else {
+            currentDensity = phase2Density;
+            waitingDensity = phase1Density;
+        }
+        
+        int minGreenTime = config.getMinGreenTime();
+        int maxGreenTime = config.getMaxGreenTime();
+        
+        // If no cars in current direction, use minimum time
+        if (currentDensity <= 0.1) {
+            return minGreenTime;
+        }
+        
+        // If no cars waiting, extend current green time
+        if (waitingDensity <= 0.1) {
+            return maxGreenTime;
+        }
+        
+        // Standard adaptive formula: G(t) = T_min + (T_max - T_min) × (D_current / (D_current + D_waiting + ε))
+        double ratio = currentDensity / (currentDensity + waitingDensity + 1.0);
+        int adaptiveTime = minGreenTime + (int)((maxGreenTime - minGreenTime) * ratio);
+        
+        return Math.max(minGreenTime, Math.min(maxGreenTime, adaptiveTime));
+    }
+    
+    // Fixed phase switching logic
+    public static boolean shouldSwitchPhase(TrafficState state, SimulationConfig config) {
+        return switchReason(state, config) != null;
+    }
+    
+    /** Why the phase should switch at this state, or null to hold it. */
+    public static PhaseSwitchReason switchReason(TrafficState state, SimulationConfig config) {
+        double phase1Density = state.getPhase1Density();
+        double phase2Density = state.getPhase2Density();
+        
+        int currentGreenTime = state.getCurrentGreenTime();
+        int minGreenTime = config.getMinGreenTime();
+        int maxGreenTime = config.getMaxGreenTime();
+        double switchingThreshold = config.getSwitchingThreshold();
+        
+        // Ensure minimum green time is respected (safety requirement)
+        if (currentGreenTime < minGreenTime) {
+            return null;
+        }
+        
+        // Force switch if maximum green time is reached
+        if (currentGreenTime >= maxGreenTime) {
+            if (log.isDebugEnabled()) log.debug("Switching: Max green time reached ({}s)", currentGreenTime);
+            return PhaseSwitchReason.MAX_GREEN;
+        }
+        
+        // Adaptive switching based on traffic demand
+        boolean shouldSwitch;
+        if (state.getCurrentPhase() == TrafficPhase.PHASE_1) {
+            // Currently N-S green, check if E-W needs priority
+            shouldSwitch = phase2Density > switchingThreshold * phase1Density;
+            if (shouldSwitch && log.isDebugEnabled()) {
+                log.debug("Switching P1->P2: E-W density ({}) > {} × N-S density ({})", 
+                        phase2Density, switchingThreshold, phase1Density);
+            }
+        } else {
+            // Currently E-W green, check if N-S needs priority
+            shouldSwitch = phase1Density > switchingThreshold * phase2Density;
+            if (shouldSwitch && log.isDebugEnabled()) {
+                log.debug("Switching P2->P1: N-S density ({}) > {} × E-W density ({})", 
+                        phase1Density, switchingThreshold, phase2Density);
+            }
+        }
+        if (!shouldSwitch) return null;
+        // On the first step it is allowed, the switch was likely held back by the minimum green time
+        return currentGreenTime == minGreenTime ? PhaseSwitchReason.MIN_GREEN : PhaseSwitchReason.THRESHOLD;
+    }
+}
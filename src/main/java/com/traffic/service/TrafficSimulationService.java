@@ -6,17 +6,33 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.BulkSimulationResponse;
+import com.traffic.dto.LiveControlStatsResponse;
+import com.traffic.dto.PhaseSwitchRecord;
+import com.traffic.dto.ScenarioTemplate;
+import com.traffic.dto.SensorReading;
 import com.traffic.dto.SimulationRequest;
 import com.traffic.dto.SimulationConfigRequest;
 import com.traffic.dto.SimulationStatusResponse;
+import com.traffic.dto.StateSnapshot;
 import com.traffic.dto.TrafficStateResponse;
+import com.traffic.util.LatencyHistogram;
+import com.traffic.util.Mailbox;
 
 @Service
 @RequiredArgsConstructor
@@ -27,208 +43,76 @@ public class TrafficSimulationService {
     private final SimulationConfigRepository simulationConfigRepository;
     private final PerformanceMetricsRepository performanceMetricsRepository;
     private final WebSocketService webSocketService;
+    private final StateSnapshotService snapshotService;
+    private final PerformanceLeaderboardService leaderboardService;
+    private final TrafficProperties properties;
+    private final SimulationMetrics metrics;
+    private final PhaseSwitchJournalService switchJournal;
+    private final SimulationBatchRepository simulationBatchRepository;
+    
+    private static final int MAX_REPORTED_ERRORS = 100;
     
     private final Map<String, SimulationRunner> activeSimulations = new ConcurrentHashMap<>();
     private final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(10);
     
-    // Fixed mathematical model implementation
-    public TrafficState calculateNextState(TrafficState currentState, SimulationConfig config) {
-        TrafficState nextState = TrafficState.builder()
-                .simulationId(currentState.getSimulationId())
-                .timeStep(currentState.getTimeStep() + 1)
-                .timestamp(LocalDateTime.now())
-                .currentPhase(currentState.getCurrentPhase())
-                .currentGreenTime(currentState.getCurrentGreenTime() + 1)
-                .build();
-        
-        // Initialize with current values
-        nextState.setVehiclesNorth(currentState.getVehiclesNorth());
-        nextState.setVehiclesSouth(currentState.getVehiclesSouth());
-        nextState.setVehiclesEast(currentState.getVehiclesEast());
-        nextState.setVehiclesWest(currentState.getVehiclesWest());
-        
-        nextState.setPedestriansNorth(currentState.getPedestriansNorth());
-        nextState.setPedestriansSouth(currentState.getPedestriansSouth());
-        nextState.setPedestriansEast(currentState.getPedestriansEast());
-        nextState.setPedestriansWest(currentState.getPedestriansWest());
-        
-        // Apply arrival and service rates based on current phase
-        if (currentState.getCurrentPhase() == TrafficPhase.PHASE_1) {
-            // N-S green, E-W red
-            log.debug("PHASE_1: N-S green, E-W red");
-            
-            // N-S directions: vehicles can be served (flow through)
-            nextState.setVehiclesNorth(Math.max(0, 
-                nextState.getVehiclesNorth() + generateArrivals(config.getLambdaNorth()) - generateService(config.getSigmaNorth())));
-            nextState.setVehiclesSouth(Math.max(0, 
-                nextState.getVehiclesSouth() + generateArrivals(config.getLambdaSouth()) - generateService(config.getSigmaSouth())));
-            
-            // E-W directions: vehicles accumulate (red light)
-            nextState.setVehiclesEast(nextState.getVehiclesEast() + generateArrivals(config.getLambdaEast()));
-            nextState.setVehiclesWest(nextState.getVehiclesWest() + generateArrivals(config.getLambdaWest()));
-            
-            // Pedestrians: N-S accumulate, E-W can cross
-            nextState.setPedestriansNorth(nextState.getPedestriansNorth() + generateArrivals(config.getMuNorth()));
-            nextState.setPedestriansSouth(nextState.getPedestriansSouth() + generateArrivals(config.getMuSouth()));
-            nextState.setPedestriansEast(Math.max(0, nextState.getPedestriansEast() - nextState.getPedestriansEast())); // All cross
-            nextState.setPedestriansWest(Math.max(0, nextState.getPedestriansWest() - nextState.getPedestriansWest())); // All cross
-            
-        } else {
-            // E-W green, N-S red
-            log.debug("PHASE_2: E-W green, N-S red");
-            
-            // N-S directions: vehicles accumulate (red light)
-            nextState.setVehiclesNorth(nextState.getVehiclesNorth() + generateArrivals(config.getLambdaNorth()));
-            nextState.setVehiclesSouth(nextState.getVehiclesSouth() + generateArrivals(config.getLambdaSouth()));
-            
-            // E-W directions: vehicles can be served (flow through)
-            nextState.setVehiclesEast(Math.max(0, 
-                nextState.getVehiclesEast() + generateArrivals(config.getLambdaEast()) - generateService(config.getSigmaEast())));
-            nextState.setVehiclesWest(Math.max(0, 
-                nextState.getVehiclesWest() + generateArrivals(config.getLambdaWest()) - generateService(config.getSigmaWest())));
-            
-            // Pedestrians: E-W accumulate, N-S can cross
-            nextState.setPedestriansEast(nextState.getPedestriansEast() + generateArrivals(config.getMuEast()));
-            nextState.setPedestriansWest(nextState.getPedestriansWest() + generateArrivals(config.getMuWest()));
-            nextState.setPedestriansNorth(Math.max(0, nextState.getPedestriansNorth() - nextState.getPedestriansNorth())); // All cross
-            nextState.setPedestriansSouth(Math.max(0, nextState.getPedestriansSouth() - nextState.getPedestriansSouth())); // All cross
-        }
-        
-        // Calculate traffic densities
-        double phase1Density = nextState.getVehiclesNorth() + nextState.getVehiclesSouth() + 
-                              config.getPedestrianWeight() * (nextState.getPedestriansNorth() + nextState.getPedestriansSouth());
-        double phase2Density = nextState.getVehiclesEast() + nextState.getVehiclesWest() + 
-                              config.getPedestrianWeight() * (nextState.getPedestriansEast() + nextState.getPedestriansWest());
-        
-        nextState.setPhase1Density(phase1Density);
-        nextState.setPhase2Density(phase2Density);
-        
-        // Calculate adaptive green time
-        int adaptiveGreenTime = calculateAdaptiveGreenTime(nextState, config);
-        nextState.setCalculatedGreenTime(adaptiveGreenTime);
-        
-        // Check for phase switching
-        boolean shouldSwitch = shouldSwitchPhase(nextState, config);
-        if (shouldSwitch) {
-            nextState.setCurrentPhase(currentState.getCurrentPhase() == TrafficPhase.PHASE_1 ? 
-                                    TrafficPhase.PHASE_2 : TrafficPhase.PHASE_1);
-            nextState.setCurrentGreenTime(0);
-            
-            // Recalculate green time for new phase
-            adaptiveGreenTime = calculateAdaptiveGreenTime(nextState, config);
-            nextState.setCalculatedGreenTime(adaptiveGreenTime);
-            
-            log.info("Phase switched to {} - N-S density: {}, E-W density: {}, Green time: {}s", 
-                    nextState.getCurrentPhase(), phase1Density, phase2Density, adaptiveGreenTime);
-        }
-        
-        log.debug("State updated: timeStep={}, N={}, S={}, E={}, W={}, phase={}, greenTime={}/{}", 
-                nextState.getTimeStep(), nextState.getVehiclesNorth(), nextState.getVehiclesSouth(),
-                nextState.getVehiclesEast(), nextState.getVehiclesWest(), 
-                nextState.getCurrentPhase(), nextState.getCurrentGreenTime(), nextState.getCalculatedGreenTime());
-        
-        return nextState;
+    @PostConstruct
+    public void bindMetrics() {
+        metrics.bindEngine(activeSimulations, executorService);
     }
     
-    // Helper method to generate arrivals based on Poisson process
-    private int generateArrivals(Double rate) {
-        if (rate == null || rate <= 0) return 0;
-        
-        // Simple arrival generation: rate represents vehicles/second
-        // For 1-second time steps, we use Poisson distribution approximation
-        double random = Math.random();
-        return (random < rate) ? 1 : 0;
+    // Fixed mathematical model implementation
+    public TrafficState calculateNextState(TrafficState currentState, SimulationConfig config) {
+        return TrafficEngine.nextState(currentState, config, ThreadLocalRandom.current());
     }
     
-    // Helper method to generate service (vehicles processed)
-    private int generateService(Double rate) {
-        if (rate == null || rate <= 0) return 0;
-        
-        // Service rate represents vehicles/second that can be processed
-        double random = Math.random();
-        return (random < rate) ? 1 : 0;
+    /**
+     * Next state for {@link ControlMode#LIVE}: counts come from the measurement instead of random
+     * arrivals and service; see {@link TrafficEngine#liveState}.
+     */
+    public TrafficState calculateLiveState(TrafficState currentState, SensorReading measurement, SimulationConfig config) {
+        return TrafficEngine.liveState(currentState, measurement, config);
     }
     
-    // Fixed adaptive green time calculation
-    private int calculateAdaptiveGreenTime(TrafficState state, SimulationConfig config) {
-        double phase1Density = state.getPhase1Density();
-        double phase2Density = state.getPhase2Density();
-        double currentDensity, waitingDensity;
-        
-        if (state.getCurrentPhase() == TrafficPhase.PHASE_1) {
-            currentDensity = phase1Density;
-            waitingDensity = phase2Density;
-        } else {
-            currentDensity = phase2Density;
-            waitingDensity = phase1Density;
-        }
-        
-        int minGreenTime = config.getMinGreenTime();
-        int maxGreenTime = config.getMaxGreenTime();
-        
-        // If no cars in current direction, use minimum time
-        if (currentDensity <= 0.1) {
-            return minGreenTime;
-        }
+    @Transactional
+    public String createSimulation(SimulationConfigRequest request) {
+        String simulationId = UUID.randomUUID().toString();
         
-        // If no cars waiting, extend current green time
-        if (waitingDensity <= 0.1) {
-            return maxGreenTime;
-        }
+        SimulationConfig config = buildConfig(simulationId, request);
+        simulationConfigRepository.save(config);
         
-        // Standard adaptive formula: G(t) = T_min + (T_max - T_min) × (D_current / (D_current + D_waiting + ε))
-        double ratio = currentDensity / (currentDensity + waitingDensity + 1.0);
-        int adaptiveTime = minGreenTime + (int)((maxGreenTime - minGreenTime) * ratio);
+        TrafficState initialState = initialState(config);
+        trafficStateRepository.save(initialState);
         
-        return Math.max(minGreenTime, Math.min(maxGreenTime, adaptiveTime));
+        log.info("Created simulation: {} with scenario: {}, initial vehicles: N={}, S={}, E={}, W={}", 
+                simulationId, request.getScenario(), initialState.getVehiclesNorth(), initialState.getVehiclesSouth(),
+                initialState.getVehiclesEast(), initialState.getVehiclesWest());
+        return simulationId;
     }
     
-    // Fixed phase switching logic
-    private boolean shouldSwitchPhase(TrafficState state, SimulationConfig config) {
-        double phase1Density = state.getPhase1Density();
-        double phase2Density = state.getPhase2Density();
-        
-        int currentGreenTime = state.getCurrentGreenTime();
-        int minGreenTime = config.getMinGreenTime();
-        int maxGreenTime = config.getMaxGreenTime();
-        double switchingThreshold = config.getSwitchingThreshold();
-        
-        // Ensure minimum green time is respected (safety requirement)
-        if (currentGreenTime < minGreenTime) {
-            return false;
-        }
-        
-        // Force switch if maximum green time is reached
-        if (currentGreenTime >= maxGreenTime) {
-            log.debug("Switching: Max green time reached ({}s)", currentGreenTime);
-            return true;
+    /**
+     * Creates many simulations in one transaction; configs and initial states are each written
+     * in batched inserts of {@code traffic.simulation.bulk-batch-size} rows. Returns the IDs in request order.
+     */
+    @Transactional
+    public List<String> createSimulations(List<SimulationConfigRequest> requests) {
+        requireBulkSize(requests.size());
+        List<SimulationConfig> configs = new ArrayList<>(requests.size());
+        List<TrafficState> states = new ArrayList<>(requests.size());
+        for (SimulationConfigRequest request : requests) {
+            SimulationConfig config = buildConfig(UUID.randomUUID().toString(), request);
+            configs.add(config);
+            states.add(initialState(config));
         }
+        int batchSize = properties.getSimulation().getBulkBatchSize();
+        simulationBatchRepository.insertConfigs(configs, batchSize);
+        simulationBatchRepository.insertStates(states, batchSize);
         
-        // Adaptive switching based on traffic demand
-        if (state.getCurrentPhase() == TrafficPhase.PHASE_1) {
-            // Currently N-S green, check if E-W needs priority
-            boolean shouldSwitch = phase2Density > switchingThreshold * phase1Density;
-            if (shouldSwitch) {
-                log.debug("Switching P1->P2: E-W density ({}) > {} × N-S density ({})", 
-                        phase2Density, switchingThreshold, phase1Density);
-            }
-            return shouldSwitch;
-        } else {
-            // Currently E-W green, check if N-S needs priority
-            boolean shouldSwitch = phase1Density > switchingThreshold * phase2Density;
-            if (shouldSwitch) {
-                log.debug("Switching P2->P1: N-S density ({}) > {} × E-W density ({})", 
-                        phase1Density, switchingThreshold, phase2Density);
-            }
-            return shouldSwitch;
-        }
+        log.info("Created {} simulations", configs.size());
+        return configs.stream().map(SimulationConfig::getSimulationId).toList();
     }
     
-    @Transactional
-    public String createSimulation(SimulationConfigRequest request) {
-        String simulationId = UUID.randomUUID().toString();
-        
-        SimulationConfig config = SimulationConfig.builder()
+    private static SimulationConfig buildConfig(String simulationId, SimulationConfigRequest request) {
+        return SimulationConfig.builder()
                 .simulationId(simulationId)
                 .name(request.getName())
                 .scenario(request.getScenario())
@@ -255,32 +139,32 @@ public class TrafficSimulationService {
                 .createdAt(LocalDateTime.now())
                 .isActive(true)
                 .build();
-        
-        simulationConfigRepository.save(config);
-        
+    }
+    
+    private static TrafficState initialState(SimulationConfig config) {
         // Create initial state with some vehicles to match scenario
         int initialNorth = 0, initialSouth = 0, initialEast = 0, initialWest = 0;
         
         // Adjust initial state based on scenario
-        if ("HEAVY_NS".equals(request.getScenario().toString())) {
+        if ("HEAVY_NS".equals(config.getScenario().toString())) {
             initialNorth = 3;
             initialSouth = 4;
             initialEast = 1;
             initialWest = 1;
-        } else if ("BALANCED".equals(request.getScenario().toString())) {
+        } else if ("BALANCED".equals(config.getScenario().toString())) {
             initialNorth = 2;
             initialSouth = 2;
             initialEast = 2;
             initialWest = 2;
-        } else if ("RUSH_HOUR".equals(request.getScenario().toString())) {
+        } else if ("RUSH_HOUR".equals(config.getScenario().toString())) {
             initialNorth = 5;
             initialSouth = 6;
             initialEast = 4;
             initialWest = 5;
         }
         
-        TrafficState initialState = TrafficState.builder()
-                .simulationId(simulationId)
+        return TrafficState.builder()
+                .simulationId(config.getSimulationId())
                 .timeStep(0L)
                 .timestamp(LocalDateTime.now())
                 .vehiclesNorth(initialNorth)
@@ -297,12 +181,6 @@ public class TrafficSimulationService {
                 .phase1Density((double)(initialNorth + initialSouth))
                 .phase2Density((double)(initialEast + initialWest))
                 .build();
-        
-        trafficStateRepository.save(initialState);
-        
-        log.info("Created simulation: {} with scenario: {}, initial vehicles: N={}, S={}, E={}, W={}", 
-                simulationId, request.getScenario(), initialNorth, initialSouth, initialEast, initialWest);
-        return simulationId;
     }
     
     public void startSimulation(SimulationRequest request) {
@@ -323,13 +201,282 @@ public class TrafficSimulationService {
     }
     
     public void stopSimulation(String simulationId) {
-        SimulationRunner runner = activeSimulations.remove(simulationId);
+        SimulationRunner runner = activeSimulations.get(simulationId);
+        if (runner == null) return;
+        
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        if (runner.post(new SimulationCommand.Stop(stopped))) {
+            await(stopped, runner);
+            if (stopped.isDone()) {
+                log.info("Stopped simulation: {}", simulationId);
+                return;
+            }
+        }
+        // The runner did not reach the command (full mailbox or a step that hangs); stop it from here
+        runner.stop();
+        log.warn("Stopped simulation {} without waiting for its current step", simulationId);
+    }
+    
+    /**
+     * Starts many simulations with the same settings. Configs and initial states are loaded with one query each,
+     * and the first ticks are spread evenly over one time step so that the runners do not all tick at once.
+     */
+    public BulkSimulationResponse startSimulations(List<String> simulationIds, SimulationRequest settings) {
+        requireBulkSize(simulationIds.size());
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(simulationIds));
+        Map<String, SimulationConfig> configs = new HashMap<>();
+        simulationConfigRepository.findBySimulationIdIn(ids).forEach(config -> configs.put(config.getSimulationId(), config));
+        Map<String, TrafficState> initialStates = new HashMap<>();
+        trafficStateRepository.findLatestBySimulationIdIn(ids).forEach(state -> initialStates.put(state.getSimulationId(), state));
+        
+        List<String> errors = new ArrayList<>();
+        List<SimulationRunner> runners = new ArrayList<>(ids.size());
+        for (String simulationId : ids) {
+            SimulationConfig config = configs.get(simulationId);
+            TrafficState initialState = initialStates.get(simulationId);
+            if (config == null || initialState == null) {
+                addError(errors, (config == null ? "Simulation not found: " : "No initial state found: ") + simulationId);
+                continue;
+            }
+            SimulationRequest request = SimulationRequest.builder()
+                    .simulationId(simulationId)
+                    .durationSeconds(settings.getDurationSeconds())
+                    .timeStepMillis(settings.getTimeStepMillis())
+                    .realTimeMode(settings.getRealTimeMode())
+                    .controlMode(settings.getControlMode())
+                    .driftPolicy(settings.getDriftPolicy())
+                    .build();
+            SimulationRunner runner = new SimulationRunner(simulationId, config, request);
+            if (activeSimulations.putIfAbsent(simulationId, runner) != null) {
+                addError(errors, "Simulation already running: " + simulationId);
+                continue;
+            }
+            runners.add(runner);
+        }
+        
+        long staggerNanos = TimeUnit.MILLISECONDS.toNanos(settings.getTimeStepMillis());
+        List<String> started = new ArrayList<>(runners.size());
+        for (int i = 0; i < runners.size(); i++) {
+            SimulationRunner runner = runners.get(i);
+            try {
+                runner.start(initialStates.get(runner.simulationId), staggerNanos * i / runners.size());
+                started.add(runner.simulationId);
+            } catch (Exception e) {
+                activeSimulations.remove(runner.simulationId, runner);
+                addError(errors, "Failed to start " + runner.simulationId + ": " + e.getMessage());
+            }
+        }
+        
+        log.info("Started {} of {} simulations, first ticks spread over {} ms",
+                started.size(), ids.size(), settings.getTimeStepMillis());
+        return BulkSimulationResponse.builder()
+                .requested(ids.size())
+                .succeeded(started.size())
+                .failed(ids.size() - started.size())
+                .simulationIds(started)
+                .staggerMs((long) settings.getTimeStepMillis())
+                .errors(errors)
+                .build();
+    }
+    
+    /**
+     * Stops many simulations. The stop command is posted to every runner first and the replies are awaited
+     * afterwards against one deadline, so the call takes about one tick rather than one per simulation; runners
+     * that have not replied by then are stopped from here. Simulations that exist but are not running count as
+     * stopped; unknown IDs are reported as errors.
+     */
+    public BulkSimulationResponse stopSimulations(List<String> simulationIds) {
+        requireBulkSize(simulationIds.size());
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(simulationIds));
+        List<String> idle = new ArrayList<>();
+        Map<SimulationRunner, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+        long timeoutMillis = 0;
+        for (String simulationId : ids) {
+            SimulationRunner runner = activeSimulations.get(simulationId);
+            if (runner == null) {
+                idle.add(simulationId);
+                continue;
+            }
+            CompletableFuture<Void> stopped = new CompletableFuture<>();
+            if (runner.post(new SimulationCommand.Stop(stopped))) {
+                pending.put(runner, stopped);
+                timeoutMillis = Math.max(timeoutMillis, runner.commandTimeoutMillis());
+            } else {
+                runner.stop();
+            }
+        }
+        
+        if (!pending.isEmpty()) {
+            try {
+                CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+                        .get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                log.debug("Not every simulation replied to stop: {}", e.toString());
+            }
+        }
+        int forced = 0;
+        for (Map.Entry<SimulationRunner, CompletableFuture<Void>> entry : pending.entrySet()) {
+            if (!entry.getValue().isDone()) {
+                // The runner did not reach the command; stop it from here
+                entry.getKey().stop();
+                forced++;
+            }
+        }
+        if (forced > 0) {
+            log.warn("Stopped {} simulations without waiting for their current step", forced);
+        }
+        
+        List<String> errors = new ArrayList<>();
+        Set<String> unknown = new HashSet<>(idle);
+        if (!idle.isEmpty()) {
+            simulationConfigRepository.findBySimulationIdIn(idle).forEach(config -> unknown.remove(config.getSimulationId()));
+        }
+        List<String> stopped = new ArrayList<>(ids.size());
+        for (String simulationId : ids) {
+            if (unknown.contains(simulationId)) {
+                addError(errors, "Simulation not found: " + simulationId);
+            } else {
+                stopped.add(simulationId);
+            }
+        }
+        log.info("Stopped {} simulations", pending.size());
+        return BulkSimulationResponse.builder()
+                .requested(ids.size())
+                .succeeded(stopped.size())
+                .failed(unknown.size())
+                .simulationIds(stopped)
+                .errors(errors)
+                .build();
+    }
+    
+    private void requireBulkSize(int size) {
+        int max = properties.getSimulation().getBulkMaxSimulations();
+        if (size > max) {
+            throw new IllegalArgumentException("At most " + max + " simulations are accepted per request");
+        }
+    }
+    
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) errors.add(error);
+    }
+    
+    public boolean isRunning(String simulationId) {
+        return activeSimulations.containsKey(simulationId);
+    }
+    
+    /** Pauses a running simulation and returns the state it holds at. */
+    public TrafficStateResponse pauseSimulation(String simulationId) {
+        SimulationRunner runner = requireRunner(simulationId);
+        post(runner, new SimulationCommand.Pause());
+        return requestSnapshot(runner);
+    }
+    
+    public void resumeSimulation(String simulationId) {
+        post(requireRunner(simulationId), new SimulationCommand.Resume());
+    }
+    
+    /**
+     * Hands a detector reading, already passed through {@link SensorFilterService}, to the simulation's runner,
+     * to be applied before its next step. Returns false if the simulation is not running here, in which case
+     * the caller writes the stored state instead.
+     * <p>
+     * Readings bypass the mailbox and are merged into the runner's pending measurement, so a busy runner
+     * never rejects one: the reading has already been sequenced by then, and a retry would be dropped as a duplicate.
+     */
+    public boolean submitSensorReading(SensorReading reading) {
+        SimulationRunner runner = activeSimulations.get(reading.getSimulationId());
+        if (runner == null) return false;
+        runner.offerMeasurement(reading);
+        return true;
+    }
+    
+    public LiveControlStatsResponse getLiveControlStats(String simulationId) {
+        SimulationRunner runner = requireRunner(simulationId);
+        if (!runner.live) {
+            throw new IllegalStateException("Simulation is not in LIVE control mode");
+        }
+        return runner.getLiveStats();
+    }
+    
+    /** Copies a scenario's parameters into the simulation's configuration; a running simulation picks them up on its next step. */
+    @Transactional
+    public void applyScenario(String simulationId, ScenarioTemplate template) {
+        SimulationConfig config = simulationConfigRepository.findBySimulationId(simulationId)
+                .orElseThrow(() -> new IllegalArgumentException("Simulation not found"));
+        
+        config.setScenario(template.getScenario());
+        config.setLambdaNorth(template.getLambdaNorth());
+        config.setLambdaSouth(template.getLambdaSouth());
+        config.setLambdaEast(template.getLambdaEast());
+        config.setLambdaWest(template.getLambdaWest());
+        config.setMuNorth(template.getMuNorth());
+        config.setMuSouth(template.getMuSouth());
+        config.setMuEast(template.getMuEast());
+        config.setMuWest(template.getMuWest());
+        config.setSigmaNorth(template.getSigmaNorth());
+        config.setSigmaSouth(template.getSigmaSouth());
+        config.setSigmaEast(template.getSigmaEast());
+        config.setSigmaWest(template.getSigmaWest());
+        config.setMinGreenTime(template.getMinGreenTime());
+        config.setMaxGreenTime(template.getMaxGreenTime());
+        config.setYellowTime(template.getYellowTime());
+        config.setRedClearanceTime(template.getRedClearanceTime());
+        config.setPedestrianWeight(template.getPedestrianWeight());
+        config.setSwitchingThreshold(template.getSwitchingThreshold());
+        config.setVehiclePerformanceWeight(template.getVehiclePerformanceWeight());
+        config.setPedestrianPerformanceWeight(template.getPedestrianPerformanceWeight());
+        SimulationConfig saved = simulationConfigRepository.save(config);
+        
+        SimulationRunner runner = activeSimulations.get(simulationId);
         if (runner != null) {
-            runner.stop();
-            log.info("Stopped simulation: {}", simulationId);
+            // The runner gets its own copy; the managed entity stays with this transaction
+            post(runner, new SimulationCommand.Reconfigure(saved.toBuilder().build()));
+        }
+        log.info("Applied scenario {} to simulation {}", template.getScenario(), simulationId);
+    }
+    
+    private SimulationRunner requireRunner(String simulationId) {
+        SimulationRunner runner = activeSimulations.get(simulationId);
+        if (runner == null) {
+            throw new IllegalStateException("Simulation is not running");
+        }
+        return runner;
+    }
+    
+    private void post(SimulationRunner runner, SimulationCommand command) {
+        if (!runner.post(command)) {
+            throw new IllegalStateException("Simulation is busy, too many pending commands");
         }
     }
     
+    private TrafficStateResponse requestSnapshot(SimulationRunner runner) {
+        CompletableFuture<TrafficStateResponse> state = new CompletableFuture<>();
+        post(runner, new SimulationCommand.Snapshot(state));
+        TrafficStateResponse response = await(state, runner);
+        // A runner that stopped before the command was drained still has its last published state
+        return response != null ? response : snapshotService.getLatest(runner.simulationId).map(StateSnapshot::getState).orElse(null);
+    }
+    
+    private <T> T await(CompletableFuture<T> reply, SimulationRunner runner) {
+        try {
+            return reply.get(runner.commandTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("No reply from simulation {}: {}", runner.simulationId, e.toString());
+        }
+        return null;
+    }
+    
+    /** Scenario of every running simulation, keyed by simulation ID. Reads only in-memory runner state. */
+    public Map<String, TrafficScenario> getActiveSimulationScenarios() {
+        Map<String, TrafficScenario> scenarios = new HashMap<>();
+        activeSimulations.forEach((simulationId, runner) -> scenarios.put(simulationId, runner.config.getScenario()));
+        return scenarios;
+    }
+    
     public SimulationStatusResponse getSimulationStatus(String simulationId) {
         SimulationRunner runner = activeSimulations.get(simulationId);
         
@@ -355,6 +502,15 @@ public class TrafficSimulationService {
     }
     
     public PerformanceMetrics calculatePerformanceMetrics(String simulationId) {
+        long start = System.nanoTime();
+        try {
+            return computePerformanceMetrics(simulationId);
+        } finally {
+            metrics.performanceMetricsTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private PerformanceMetrics computePerformanceMetrics(String simulationId) {
         List<TrafficState> states = trafficStateRepository.findBySimulationIdOrderByTimeStepAsc(simulationId);
         
         if (states.isEmpty()) {
@@ -403,74 +559,330 @@ public class TrafficSimulationService {
                 .calculatedAt(LocalDateTime.now())
                 .build();
         
-        return performanceMetricsRepository.save(metrics);
+        PerformanceMetrics saved = performanceMetricsRepository.save(metrics);
+        leaderboardService.record(saved, config.getScenario());
+        return saved;
     }
     
     private class SimulationRunner {
         private final String simulationId;
-        private final SimulationConfig config;
         private final SimulationRequest request;
+        // Written only by the simulation thread; read by status and overview requests
+        private volatile SimulationConfig config;
+        private final Mailbox<SimulationCommand> mailbox;
+        private final boolean live;
+        // Readings not yet applied, merged; taken whole by the simulation thread at its next tick
+        private final AtomicReference<SensorReading> pendingMeasurement = new AtomicReference<>();
+        private final LongAdder measurementsReceived = new LongAdder();
+        private final LatencyHistogram decisionLatency = new LatencyHistogram();
+        private volatile long measurementsApplied;
+        private volatile long budgetMisses;
+        private volatile LocalDateTime lastMeasurementAt;
         private volatile boolean running = false;
+        private volatile boolean paused = false;
         private volatile String status = "IDLE";
         private volatile long currentTimeStep = 0;
         private volatile String errorMessage;
-        private ScheduledFuture<?> scheduledTask;
+        // Rescheduled by every tick; cancelled by stop()
+        private volatile ScheduledFuture<?> scheduledTask;
+        private SimulationMetrics.RunnerMeters meters;
         private TrafficState currentState; // Fixed: maintain state reference
+        // Tick drift, written by the simulation thread
+        private final DriftPolicy driftPolicy;
+        private long intervalNanos;
+        private long nextTickNanos;
+        private int onTimeTicks;
+        private volatile long driftNanos;
+        private volatile long maxDriftNanos;
+        private volatile long lateTicks;
+        private volatile long skippedSteps;
+        private volatile boolean degraded;
         
         public SimulationRunner(String simulationId, SimulationConfig config, SimulationRequest request) {
             this.simulationId = simulationId;
             this.config = config;
             this.request = request;
+            this.mailbox = new Mailbox<>(properties.getSimulation().getMailboxCapacity());
+            this.live = request.getControlMode() == ControlMode.LIVE;
+            this.driftPolicy = request.getDriftPolicy() != null
+                    ? request.getDriftPolicy() : properties.getSimulation().getDriftPolicy();
+        }
+        
+        public boolean post(SimulationCommand command) {
+            return mailbox.post(command);
+        }
+        
+        public void offerMeasurement(SensorReading reading) {
+            measurementsReceived.increment();
+            lastMeasurementAt = LocalDateTime.now();
+            pendingMeasurement.accumulateAndGet(reading, TrafficSimulationService::mergeMeasurement);
+        }
+        
+        // Long enough for the runner to reach its next tick boundary, at the degraded cadence too
+        public long commandTimeoutMillis() {
+            long interval = request.getTimeStepMillis();
+            if (driftPolicy == DriftPolicy.DEGRADE) interval *= properties.getSimulation().getDegradedIntervalFactor();
+            return 2L * interval + 1000;
         }
         
         public void start() {
+            start(null, 0);
+        }
+        
+        /** Starts from the given state, or the latest stored one, with the first tick {@code delayNanos} from now. */
+        public void start(TrafficState initialState, long delayNanos) {
             if (running) return;
             
             running = true;
             status = "RUNNING";
             
             // Get initial state
-            currentState = trafficStateRepository.findLatestBySimulationId(simulationId)
+            currentState = initialState != null ? initialState : trafficStateRepository.findLatestBySimulationId(simulationId)
                     .orElseThrow(() -> new IllegalArgumentException("No initial state found"));
             
             currentTimeStep = currentState.getTimeStep();
+            snapshotService.publish(simulationId, convertToResponse(currentState));
             
-            long totalSteps = request.getDurationSeconds();
-            int stepInterval = request.getTimeStepMillis();
+            meters = metrics.forRunner(simulationId, request.getControlMode());
+            intervalNanos = TimeUnit.MILLISECONDS.toNanos(request.getTimeStepMillis());
+            nextTickNanos = System.nanoTime() + delayNanos;
             
-            // Fixed: proper state management in loop
-            scheduledTask = executorService.scheduleAtFixedRate(() -> {
-                try {
-                    if (!running || currentTimeStep >= totalSteps) {
-                        stop();
-                        return;
+            // Each tick schedules the next one, so the drift policy decides when that is
+            scheduledTask = executorService.schedule(this::tick, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        
+        private void tick() {
+            if (!running) return;
+            long scheduledNanos = nextTickNanos;
+            long tickLag = System.nanoTime() - scheduledNanos;
+            boolean late = recordDrift(tickLag);
+            try {
+                runStep(tickLag);
+            } catch (Exception e) {
+                log.error("Error in simulation step: ", e);
+                errorMessage = e.getMessage();
+                status = "ERROR";
+                stop();
+            }
+            if (running) {
+                scheduleNext(scheduledNanos, late);
+            }
+        }
+        
+        private void runStep(long tickLag) {
+            SimulationStepEvent event = new SimulationStepEvent();
+            event.begin();
+            
+            // Commands posted since the last tick are applied before the step, in posting order
+            mailbox.drain(this::handle, mailbox.capacity());
+            if (!live) {
+                SensorReading reading = pendingMeasurement.getAndSet(null);
+                if (reading != null) applyReading(reading);
+            }
+            if (!running) return;
+            
+            if (currentTimeStep >= request.getDurationSeconds()) {
+                stop();
+                return;
+            }
+            if (paused) return;
+            
+            // Calculate next state
+            long decisionStart = System.nanoTime();
+            TrafficState nextState;
+            if (live) {
+                SensorReading measurement = pendingMeasurement.getAndSet(null);
+                if (measurement != null) measurementsApplied++;
+                nextState = calculateLiveState(currentState, measurement, config);
+            } else {
+                nextState = calculateNextState(currentState, config);
+            }
+            long stepNanos = System.nanoTime() - decisionStart;
+            meters.step().record(stepNanos, TimeUnit.NANOSECONDS);
+            if (nextState.getSwitchReason() != null) {
+                recordSwitch(nextState);
+            }
+            
+            // Update current state reference (CRITICAL FIX)
+            currentState = nextState;
+            currentTimeStep = nextState.getTimeStep();
+            
+            // Shared with WebSocket and REST consumers; serialized only if one of them reads it
+            long broadcastStart = System.nanoTime();
+            StateSnapshot snapshot = snapshotService.publish(simulationId, convertToResponse(nextState));
+            webSocketService.sendTrafficUpdate(simulationId, snapshot);
+            long broadcastNanos = System.nanoTime() - broadcastStart;
+            meters.broadcast().record(broadcastNanos, TimeUnit.NANOSECONDS);
+            if (live) {
+                recordDecision(System.nanoTime() - decisionStart);
+            }
+            
+            // Persisted after publishing so the write is not on the decision path
+            long persistStart = System.nanoTime();
+            PersistenceFlushEvent flush = PersistenceFlushEvent.start(PersistenceFlushEvent.TRAFFIC_STATE);
+            trafficStateRepository.save(nextState);
+            flush.finish(1, 0);
+            long persistNanos = System.nanoTime() - persistStart;
+            meters.persist().record(persistNanos, TimeUnit.NANOSECONDS);
+            
+            // Recorded only for ticks over the event's threshold
+            event.end();
+            if (event.shouldCommit()) {
+                event.simulationId = simulationId;
+                event.timeStep = currentTimeStep;
+                event.controlMode = request.getControlMode().name();
+                event.tickLag = Math.max(0, tickLag);
+                event.step = stepNanos;
+                event.broadcast = broadcastNanos;
+                event.persist = persistNanos;
+                event.commit();
+            }
+        }
+        
+        private void recordSwitch(TrafficState nextState) {
+            switchJournal.record(PhaseSwitchRecord.builder()
+                    .simulationId(simulationId)
+                    .timeStep(nextState.getTimeStep())
+                    .timestamp(nextState.getTimestamp())
+                    .fromPhase(currentState.getCurrentPhase())
+                    .toPhase(nextState.getCurrentPhase())
+                    .reason(nextState.getSwitchReason())
+                    .phase1Density(nextState.getPhase1Density())
+                    .phase2Density(nextState.getPhase2Density())
+                    .greenTime(nextState.getCalculatedGreenTime())
+                    .build());
+        }
+        
+        // Returns whether the tick is later than the tolerance
+        private boolean recordDrift(long tickLag) {
+            driftNanos = Math.max(0, tickLag);
+            maxDriftNanos = Math.max(maxDriftNanos, driftNanos);
+            meters.recordTickLag(tickLag);
+            if (tickLag <= TimeUnit.MILLISECONDS.toNanos(properties.getSimulation().getDriftToleranceMs())) {
+                return false;
+            }
+            lateTicks++;
+            meters.lateTicks().increment();
+            return true;
+        }
+        
+        private void scheduleNext(long scheduledNanos, boolean late) {
+            long now = System.nanoTime();
+            long degradedIntervalNanos = intervalNanos * properties.getSimulation().getDegradedIntervalFactor();
+            long next;
+            switch (driftPolicy) {
+                case SKIP -> {
+                    // Deadlines already passed are dropped; the runner stays on its original schedule
+                    next = scheduledNanos + intervalNanos;
+                    if (now > next) {
+                        long missed = (now - next) / intervalNanos;
+                        if (missed > 0) {
+                            next += missed * intervalNanos;
+                            skippedSteps += missed;
+                            meters.skippedSteps().increment(missed);
+                            log.debug("Simulation {} skipped {} steps at step {}", simulationId, missed, currentTimeStep);
+                        }
                     }
-                    
-                    // Calculate next state
-                    TrafficState nextState = calculateNextState(currentState, config);
-                    trafficStateRepository.save(nextState);
-                    
-                    // Update current state reference (CRITICAL FIX)
-                    currentState = nextState;
-                    currentTimeStep = nextState.getTimeStep();
-                    
-                    // Send real-time update via WebSocket
-                    webSocketService.sendTrafficUpdate(simulationId, convertToResponse(nextState));
-                    
-                } catch (Exception e) {
-                    log.error("Error in simulation step: ", e);
-                    errorMessage = e.getMessage();
-                    status = "ERROR";
-                    stop();
                 }
-            }, 0, stepInterval, TimeUnit.MILLISECONDS);
+                case DEGRADE -> {
+                    if (late) {
+                        onTimeTicks = 0;
+                        if (!degraded) {
+                            degraded = true;
+                            log.warn("Simulation {} is {} ms behind; ticking every {} ms until it keeps up",
+                                    simulationId, driftNanos / 1_000_000, degradedIntervalNanos / 1_000_000);
+                        }
+                        // The backlog is dropped and the slower cadence starts from now
+                        next = now + degradedIntervalNanos;
+                    } else if (degraded) {
+                        if (++onTimeTicks >= properties.getSimulation().getRecoveryTicks()) {
+                            degraded = false;
+                            log.info("Simulation {} is back on its {} ms cadence", simulationId, request.getTimeStepMillis());
+                        }
+                        next = scheduledNanos + degradedIntervalNanos;
+                    } else {
+                        next = scheduledNanos + intervalNanos;
+                    }
+                    if (degraded) meters.degradedTicks().increment();
+                }
+                // Fixed-rate behaviour: late ticks run back to back until the schedule is met again
+                default -> next = scheduledNanos + intervalNanos;
+            }
+            nextTickNanos = next;
+            scheduledTask = executorService.schedule(this::tick, Math.max(0, next - now), TimeUnit.NANOSECONDS);
+        }
+        
+        private void recordDecision(long latencyNanos) {
+            decisionLatency.record(latencyNanos);
+            long budgetNanos = TimeUnit.MILLISECONDS.toNanos(properties.getLive().getDecisionBudgetMs());
+            if (latencyNanos > budgetNanos) {
+                budgetMisses++;
+                log.debug("Decision for simulation {} at step {} took {} µs, over the {} ms budget",
+                        simulationId, currentTimeStep, latencyNanos / 1000, properties.getLive().getDecisionBudgetMs());
+            }
+        }
+        
+        public LiveControlStatsResponse getLiveStats() {
+            return LiveControlStatsResponse.builder()
+                    .simulationId(simulationId)
+                    .decisions(decisionLatency.count())
+                    .measurementsReceived(measurementsReceived.sum())
+                    .measurementsApplied(measurementsApplied)
+                    .budgetMisses(budgetMisses)
+                    .decisionBudgetMs(properties.getLive().getDecisionBudgetMs())
+                    .latencyP50Ms(toMillis(decisionLatency.percentile(50)))
+                    .latencyP90Ms(toMillis(decisionLatency.percentile(90)))
+                    .latencyP99Ms(toMillis(decisionLatency.percentile(99)))
+                    .latencyMaxMs(toMillis(decisionLatency.max()))
+                    .lastMeasurementAt(lastMeasurementAt)
+                    .build();
+        }
+        
+        private void handle(SimulationCommand command) {
+            if (command instanceof SimulationCommand.Reconfigure reconfigure) {
+                config = reconfigure.config();
+                log.info("Reconfigured simulation {} at step {}", simulationId, currentTimeStep);
+            } else if (command instanceof SimulationCommand.Pause) {
+                if (running && !paused) {
+                    paused = true;
+                    status = "PAUSED";
+                    log.info("Paused simulation {} at step {}", simulationId, currentTimeStep);
+                }
+            } else if (command instanceof SimulationCommand.Resume) {
+                if (running && paused) {
+                    paused = false;
+                    status = "RUNNING";
+                    log.info("Resumed simulation {} at step {}", simulationId, currentTimeStep);
+                }
+            } else if (command instanceof SimulationCommand.Stop stop) {
+                stop();
+                stop.stopped().complete(null);
+            } else if (command instanceof SimulationCommand.Snapshot snapshot) {
+                snapshot.state().complete(convertToResponse(currentState));
+            }
+        }
+        
+        // The next step starts from the detector counts; the step itself recomputes densities
+        private void applyReading(SensorReading reading) {
+            if (reading.getVehiclesNorth() != null) currentState.setVehiclesNorth(reading.getVehiclesNorth());
+            if (reading.getVehiclesSouth() != null) currentState.setVehiclesSouth(reading.getVehiclesSouth());
+            if (reading.getVehiclesEast() != null) currentState.setVehiclesEast(reading.getVehiclesEast());
+            if (reading.getVehiclesWest() != null) currentState.setVehiclesWest(reading.getVehiclesWest());
+            if (reading.getPedestriansNorth() != null) currentState.setPedestriansNorth(reading.getPedestriansNorth());
+            if (reading.getPedestriansSouth() != null) currentState.setPedestriansSouth(reading.getPedestriansSouth());
+            if (reading.getPedestriansEast() != null) currentState.setPedestriansEast(reading.getPedestriansEast());
+            if (reading.getPedestriansWest() != null) currentState.setPedestriansWest(reading.getPedestriansWest());
         }
         
         public void stop() {
             running = false;
+            paused = false;
             if (scheduledTask != null) {
                 scheduledTask.cancel(false);
             }
+            if (meters != null) {
+                meters.close();
+            }
             
             if ("ERROR".equals(status)) {
                 status = "ERROR";
@@ -480,7 +892,7 @@ public class TrafficSimulationService {
                 status = "STOPPED";
             }
             
-            activeSimulations.remove(simulationId);
+            activeSimulations.remove(simulationId, this);
         }
         
         public SimulationStatusResponse getStatus() {
@@ -493,30 +905,41 @@ public class TrafficSimulationService {
                     .currentTimeStep(currentTimeStep)
                     .totalTimeSteps((long) request.getDurationSeconds())
                     .progress(progress)
-                    .currentState(currentState != null ? convertToResponse(currentState) : null)
+                    .currentState(snapshotService.getLatest(simulationId).orElse(null))
                     .message(errorMessage)
+                    .driftPolicy(driftPolicy.name())
+                    .driftMs(driftNanos / 1_000_000.0)
+                    .maxDriftMs(maxDriftNanos / 1_000_000.0)
+                    .lateTicks(lateTicks)
+                    .skippedSteps(skippedSteps)
+                    .degraded(degraded)
                     .lastUpdate(LocalDateTime.now())
                     .build();
         }
     }
     
-    private TrafficStateResponse convertToResponse(TrafficState state) {
-        return TrafficStateResponse.builder()
-                .timeStep(state.getTimeStep())
-                .timestamp(state.getTimestamp())
-                .vehiclesNorth(state.getVehiclesNorth())
-                .vehiclesSouth(state.getVehiclesSouth())
-                .vehiclesEast(state.getVehiclesEast())
-                .vehiclesWest(state.getVehiclesWest())
-                .pedestriansNorth(state.getPedestriansNorth())
-                .pedestriansSouth(state.getPedestriansSouth())
-                .pedestriansEast(state.getPedestriansEast())
-                .pedestriansWest(state.getPedestriansWest())
-                .currentPhase(state.getCurrentPhase())
-                .currentGreenTime(state.getCurrentGreenTime())
-                .calculatedGreenTime(state.getCalculatedGreenTime())
-                .phase1Density(state.getPhase1Density())
-                .phase2Density(state.getPhase2Density())
+    // Counts in the newer reading win; the older one fills in what it leaves out
+    private static SensorReading mergeMeasurement(SensorReading older, SensorReading newer) {
+        if (older == null) return newer;
+        return SensorReading.builder()
+                .simulationId(newer.getSimulationId())
+                .timestamp(newer.getTimestamp() != null ? newer.getTimestamp() : older.getTimestamp())
+                .vehiclesNorth(newer.getVehiclesNorth() != null ? newer.getVehiclesNorth() : older.getVehiclesNorth())
+                .vehiclesSouth(newer.getVehiclesSouth() != null ? newer.getVehiclesSouth() : older.getVehiclesSouth())
+                .vehiclesEast(newer.getVehiclesEast() != null ? newer.getVehiclesEast() : older.getVehiclesEast())
+                .vehiclesWest(newer.getVehiclesWest() != null ? newer.getVehiclesWest() : older.getVehiclesWest())
+                .pedestriansNorth(newer.getPedestriansNorth() != null ? newer.getPedestriansNorth() : older.getPedestriansNorth())
+                .pedestriansSouth(newer.getPedestriansSouth() != null ? newer.getPedestriansSouth() : older.getPedestriansSouth())
+                .pedestriansEast(newer.getPedestriansEast() != null ? newer.getPedestriansEast() : older.getPedestriansEast())
+                .pedestriansWest(newer.getPedestriansWest() != null ? newer.getPedestriansWest() : older.getPedestriansWest())
                 .build();
     }
+    
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+    
+    private TrafficStateResponse convertToResponse(TrafficState state) {
+        return TrafficStateResponse.from(state);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.traffic.service;
 
-import com.traffic.dto.TrafficStateResponse;
+import com.traffic.dto.StateSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -12,10 +12,21 @@ import org.springframework.stereotype.Service;
 public class WebSocketService {
     
     private final SimpMessagingTemplate messagingTemplate;
-    public void sendTrafficUpdate(String simulationId, TrafficStateResponse state) {
+    private final StateDeltaEncoder deltaEncoder;
+    private final StateStreamDispatcher streamDispatcher;
+    private final StateHistoryService historyService;
+    private final SimulationEventStreamService eventStreamService;
+    
+    public void sendTrafficUpdate(String simulationId, StateSnapshot snapshot) {
         try {
-            String destination = "/topic/simulation/" + simulationId;
-            messagingTemplate.convertAndSend(destination, state);
+            // Without STOMP subscribers the stream only advances; payloads are built when someone reads them
+            StreamFrame frame = streamDispatcher.hasSubscribers(simulationId)
+                    ? deltaEncoder.encode(snapshot)
+                    : deltaEncoder.skip(snapshot);
+            historyService.record(frame);
+            // Full-state, delta and SSE subscribers are all served from the same shared frame
+            streamDispatcher.publish(frame);
+            eventStreamService.publish(frame);
             log.debug("Sent traffic update for simulation: {}", simulationId);
         } catch (Exception e) {
             log.error("Failed to send WebSocket message for simulation: {}", simulationId, e);
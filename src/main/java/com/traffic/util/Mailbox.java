@@ -0,0 +1,57 @@
+package com.traffic.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer, single-consumer message queue. Any thread may {@link #post}; exactly one
+ * thread at a time may {@link #drain}. Posting never blocks and takes no lock.
+ */
+public class Mailbox<T> {
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    public Mailbox(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /** Returns false, leaving the mailbox unchanged, if it already holds {@code capacity} messages. */
+    public boolean post(T message) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.offer(message);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code max} messages to {@code handler} in posting order and returns how many were handled.
+     * The limit keeps a flood of producers from holding the consumer in the loop indefinitely.
+     */
+    public int drain(Consumer<? super T> handler, int max) {
+        int drained = 0;
+        T message;
+        while (drained < max && (message = queue.poll()) != null) {
+            size.decrementAndGet();
+            drained++;
+            handler.accept(message);
+        }
+        return drained;
+    }
+
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
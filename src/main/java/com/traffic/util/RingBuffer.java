@@ -0,0 +1,50 @@
+package com.traffic.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity buffer that keeps the most recently added elements, overwriting the oldest.
+ * Thread-safe; intended for one writer and occasional readers.
+ */
+public class RingBuffer<T> {
+
+    private final Object[] elements;
+    private long added;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.elements = new Object[capacity];
+    }
+
+    public synchronized void add(T element) {
+        elements[(int) (added % elements.length)] = element;
+        added++;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(added, elements.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized T latest() {
+        return added == 0 ? null : (T) elements[(int) ((added - 1) % elements.length)];
+    }
+
+    /** Returns the buffered elements, oldest first. */
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> toList() {
+        int size = size();
+        List<T> result = new ArrayList<>(size);
+        for (long i = added - size; i < added; i++) {
+            result.add((T) elements[(int) (i % elements.length)]);
+        }
+        return result;
+    }
+}
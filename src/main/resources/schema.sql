@@ -1,4 +1,5 @@
 -- Drop tables if they exist (for clean restart)
+DROP TABLE IF EXISTS phase_switches;
 DROP TABLE IF EXISTS performance_metrics;
 DROP TABLE IF EXISTS traffic_states;
 DROP TABLE IF EXISTS simulation_configs;
@@ -71,8 +72,25 @@ CREATE TABLE performance_metrics (
     FOREIGN KEY (simulation_id) REFERENCES simulation_configs(simulation_id)
 );
 
+-- Create phase_switches table (written in batches by PhaseSwitchJournalService; no foreign key,
+-- so a batch in flight when a simulation is deleted does not fail)
+CREATE TABLE phase_switches (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    simulation_id VARCHAR(255) NOT NULL,
+    time_step BIGINT NOT NULL,
+    timestamp TIMESTAMP,
+    from_phase VARCHAR(20) NOT NULL,
+    to_phase VARCHAR(20) NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    phase1_density DOUBLE NOT NULL,
+    phase2_density DOUBLE NOT NULL,
+    green_time INTEGER NOT NULL
+);
+
 -- Create indexes for better performance
 CREATE INDEX idx_simulation_configs_simulation_id ON simulation_configs(simulation_id);
 CREATE INDEX idx_traffic_states_simulation_id ON traffic_states(simulation_id);
 CREATE INDEX idx_traffic_states_time_step ON traffic_states(time_step);
-CREATE INDEX idx_performance_metrics_simulation_id ON performance_metrics(simulation_id);
\ No newline at end of file
+CREATE INDEX idx_traffic_states_simulation_step ON traffic_states(simulation_id, time_step);
+CREATE INDEX idx_performance_metrics_simulation_id ON performance_metrics(simulation_id);
+CREATE INDEX idx_phase_switches_simulation_step ON phase_switches(simulation_id, time_step);
\ No newline at end of file
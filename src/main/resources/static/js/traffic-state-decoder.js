@@ -0,0 +1,113 @@
+/**
+ * Decoder for binary traffic state frames (layout version 1, 64 bytes, little-endian).
+ *
+ * Subscribe on the plain WebSocket endpoint (/api/ws-raw) with an "x-encoding: binary" header:
+ *
+ *   client.subscribe(`/topic/simulation/${id}`, (message) => {
+ *     if (message.headers['x-frame'] === 'history') {
+ *       const states = decodeTrafficStates(message.binaryBody);
+ *     } else {
+ *       const state = decodeTrafficState(message.binaryBody);
+ *     }
+ *   }, { 'x-encoding': 'binary' });
+ *
+ * A frame marked "x-frame: history" carries the buffered states a late subscriber missed, oldest
+ * first, as 64-byte records back to back; every other frame carries one record.
+ *
+ * The result has the same field names as the JSON TrafficStateResponse. The timestamp is
+ * returned as the server's local time in "yyyy-MM-dd HH:mm:ss" form, as in JSON frames.
+ */
+
+export const TRAFFIC_STATE_RECORD_SIZE = 64;
+export const TRAFFIC_STATE_VERSION = 1;
+
+const PHASES = [null, 'PHASE_1', 'PHASE_2'];
+const U16_MISSING = 0xffff;
+const I64_MISSING = -(2n ** 63n);
+
+/**
+ * @param {ArrayBuffer|ArrayBufferView} data one binary frame body
+ * @returns {object} the decoded state
+ */
+export function decodeTrafficState(data) {
+  const view = toView(data);
+  if (view.byteLength < TRAFFIC_STATE_RECORD_SIZE) {
+    throw new Error(`Traffic state record too short: ${view.byteLength} bytes`);
+  }
+  return decodeRecord(view);
+}
+
+/**
+ * @param {ArrayBuffer|ArrayBufferView} data the body of an "x-frame: history" frame
+ * @returns {object[]} the decoded states, oldest first
+ */
+export function decodeTrafficStates(data) {
+  const view = toView(data);
+  if (view.byteLength % TRAFFIC_STATE_RECORD_SIZE !== 0) {
+    throw new Error(`Traffic state history is not a whole number of records: ${view.byteLength} bytes`);
+  }
+  const states = [];
+  for (let offset = 0; offset < view.byteLength; offset += TRAFFIC_STATE_RECORD_SIZE) {
+    states.push(decodeRecord(new DataView(view.buffer, view.byteOffset + offset, TRAFFIC_STATE_RECORD_SIZE)));
+  }
+  return states;
+}
+
+function toView(data) {
+  return ArrayBuffer.isView(data)
+    ? new DataView(data.buffer, data.byteOffset, data.byteLength)
+    : new DataView(data);
+}
+
+function decodeRecord(view) {
+  const version = view.getUint8(0);
+  if (version !== TRAFFIC_STATE_VERSION) {
+    throw new Error(`Unsupported traffic state record version ${version}`);
+  }
+
+  return {
+    timeStep: i64(view, 8),
+    timestamp: timestamp(view.getBigInt64(16, true)),
+    vehiclesNorth: i32(view, 24),
+    vehiclesSouth: i32(view, 28),
+    vehiclesEast: i32(view, 32),
+    vehiclesWest: i32(view, 36),
+    pedestriansNorth: i32(view, 40),
+    pedestriansSouth: i32(view, 44),
+    pedestriansEast: i32(view, 48),
+    pedestriansWest: i32(view, 52),
+    currentPhase: PHASES[view.getUint8(1)] ?? null,
+    currentGreenTime: u16(view, 2),
+    calculatedGreenTime: u16(view, 4),
+    phase1Density: f32(view, 56),
+    phase2Density: f32(view, 60),
+  };
+}
+
+function i64(view, offset) {
+  const value = view.getBigInt64(offset, true);
+  return value < 0n ? null : Number(value);
+}
+
+function i32(view, offset) {
+  const value = view.getInt32(offset, true);
+  return value < 0 ? null : value;
+}
+
+function u16(view, offset) {
+  const value = view.getUint16(offset, true);
+  return value === U16_MISSING ? null : value;
+}
+
+function f32(view, offset) {
+  const value = view.getFloat32(offset, true);
+  // Densities are sent as float32; round away the float noise JSON clients never see
+  return Number.isNaN(value) ? null : Math.round(value * 1e4) / 1e4;
+}
+
+function timestamp(millis) {
+  if (millis === I64_MISSING) return null;
+  // The server writes its local wall-clock time as if it were UTC
+  const iso = new Date(Number(millis)).toISOString();
+  return `${iso.slice(0, 10)} ${iso.slice(11, 19)}`;
+}
@@ -0,0 +1,88 @@
+package com.traffic.service;
+
+import com.traffic.dto.SensorReading;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetectorPacketCodecTest {
+
+    private static final String SIMULATION_ID = "3f2504e0-4f89-11d3-9a0c-0305e82c3301";
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 5, 1, 8, 30, 15, 250_000_000);
+
+    @Test
+    void encodesFixedLittleEndianLayout() {
+        ByteBuffer buffer = ByteBuffer.allocate(DetectorPacketCodec.RECORD_SIZE);
+        DetectorPacketCodec.encode(buffer, 7, 41, reading());
+
+        assertThat(buffer.position()).isEqualTo(DetectorPacketCodec.RECORD_SIZE);
+        assertThat(buffer.order()).isEqualTo(ByteOrder.LITTLE_ENDIAN);
+        UUID uuid = UUID.fromString(SIMULATION_ID);
+        assertThat(DetectorPacketCodec.version(buffer, 0)).isEqualTo(DetectorPacketCodec.VERSION);
+        assertThat(DetectorPacketCodec.sourceId(buffer, 0)).isEqualTo(7);
+        assertThat(DetectorPacketCodec.sequence(buffer, 0)).isEqualTo(41);
+        assertThat(DetectorPacketCodec.simulationMsb(buffer, 0)).isEqualTo(uuid.getMostSignificantBits());
+        assertThat(DetectorPacketCodec.simulationLsb(buffer, 0)).isEqualTo(uuid.getLeastSignificantBits());
+        assertThat(buffer.getShort(DetectorPacketCodec.COUNTS)).isEqualTo((short) 12);
+    }
+
+    @Test
+    void roundTripsReading() {
+        ByteBuffer buffer = ByteBuffer.allocate(DetectorPacketCodec.RECORD_SIZE);
+        DetectorPacketCodec.encode(buffer, 7, 41, reading());
+
+        SensorReading decoded = DetectorPacketCodec.toReading(buffer, 0, SIMULATION_ID, "detector-7");
+
+        assertThat(decoded.getSimulationId()).isEqualTo(SIMULATION_ID);
+        assertThat(decoded.getSourceId()).isEqualTo("detector-7");
+        assertThat(decoded.getSequence()).isEqualTo(41L);
+        assertThat(decoded.getTimestamp()).isEqualTo(TIMESTAMP);
+        assertThat(decoded.getVehiclesNorth()).isEqualTo(12);
+        assertThat(decoded.getVehiclesSouth()).isEqualTo(0);
+        assertThat(decoded.getVehiclesEast()).isNull();
+        assertThat(decoded.getVehiclesWest()).isEqualTo(65534);
+        assertThat(decoded.getPedestriansNorth()).isEqualTo(3);
+        assertThat(decoded.getPedestriansSouth()).isNull();
+        assertThat(decoded.getPedestriansEast()).isNull();
+        assertThat(decoded.getPedestriansWest()).isNull();
+    }
+
+    @Test
+    void readsUnsignedFieldsAboveSignedRange() {
+        ByteBuffer buffer = ByteBuffer.allocate(DetectorPacketCodec.RECORD_SIZE);
+        DetectorPacketCodec.encode(buffer, 0xFFFF_FFF0L, 0xFFFF_FFFFL, reading());
+
+        assertThat(DetectorPacketCodec.sourceId(buffer, 0)).isEqualTo(0xFFFF_FFF0L);
+        assertThat(DetectorPacketCodec.sequence(buffer, 0)).isEqualTo(0xFFFF_FFFFL);
+    }
+
+    @Test
+    void decodesRecordsBackToBack() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * DetectorPacketCodec.RECORD_SIZE);
+        DetectorPacketCodec.encode(buffer, 1, 100, reading());
+        DetectorPacketCodec.encode(buffer, 2, 200, reading());
+        int position = buffer.position();
+
+        assertThat(DetectorPacketCodec.sourceId(buffer, DetectorPacketCodec.RECORD_SIZE)).isEqualTo(2);
+        assertThat(DetectorPacketCodec.sequence(buffer, DetectorPacketCodec.RECORD_SIZE)).isEqualTo(200);
+        assertThat(DetectorPacketCodec.count(buffer, DetectorPacketCodec.RECORD_SIZE, 0)).isEqualTo(12);
+        assertThat(buffer.position()).isEqualTo(position);
+    }
+
+    private static SensorReading reading() {
+        return SensorReading.builder()
+                .simulationId(SIMULATION_ID)
+                .timestamp(TIMESTAMP)
+                .vehiclesNorth(12)
+                .vehiclesSouth(0)
+                .vehiclesWest(100_000)
+                .pedestriansNorth(3)
+                .pedestriansSouth(-1)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorChannelHealth;
+import com.traffic.dto.SensorReading;
+import com.traffic.model.SensorHealth;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SensorFilterServiceTest {
+
+    private static final String SIMULATION_ID = "sim-1";
+
+    private TrafficProperties properties;
+    private SensorFilterService filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TrafficProperties();
+        properties.getSensors().setStuckReadings(3);
+        filter = new SensorFilterService(properties);
+    }
+
+    @Test
+    void passesSteadyCountsThrough() {
+        SensorReading filtered = filter.filter(reading(10));
+
+        assertThat(filtered.getVehiclesNorth()).isEqualTo(10);
+        assertThat(filtered.getVehiclesSouth()).isNull();
+        assertThat(health().getHealth()).isEqualTo(SensorHealth.OK);
+    }
+
+    @Test
+    void replacesSpikeWithMeanUntilConfirmed() {
+        for (int i = 0; i < 2; i++) {
+            filter.filter(reading(10));
+            filter.filter(reading(11));
+        }
+
+        assertThat(filter.filter(reading(100)).getVehiclesNorth()).isBetween(10, 11);
+        assertThat(health().getHealth()).isEqualTo(SensorHealth.SPIKE);
+        assertThat(filter.filter(reading(101)).getVehiclesNorth()).isBetween(10, 11);
+
+        // The third spike in a row is taken as the new level
+        assertThat(filter.filter(reading(100)).getVehiclesNorth()).isEqualTo(100);
+        assertThat(health().getHealth()).isEqualTo(SensorHealth.OK);
+        assertThat(health().getSpikes()).isEqualTo(3);
+    }
+
+    @Test
+    void dropsCountsFromStuckChannel() {
+        assertThat(filter.filter(reading(7)).getVehiclesNorth()).isEqualTo(7);
+        assertThat(filter.filter(reading(7)).getVehiclesNorth()).isEqualTo(7);
+        assertThat(filter.filter(reading(7)).getVehiclesNorth()).isNull();
+        assertThat(health().getHealth()).isEqualTo(SensorHealth.STUCK);
+
+        assertThat(filter.filter(reading(8)).getVehiclesNorth()).isEqualTo(7);
+        assertThat(health().getHealth()).isEqualTo(SensorHealth.OK);
+    }
+
+    @Test
+    void repeatedZeroIsNotStuck() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(filter.filter(reading(0)).getVehiclesNorth()).isZero();
+        }
+        assertThat(health().getHealth()).isEqualTo(SensorHealth.OK);
+    }
+
+    @Test
+    void reportsDropoutAfterSilence() throws InterruptedException {
+        properties.getSensors().setDropoutMs(20);
+        filter.filter(reading(10));
+
+        Thread.sleep(60);
+
+        List<SensorChannelHealth> channels = filter.getHealth(SIMULATION_ID);
+        assertThat(channels.get(0).getHealth()).isEqualTo(SensorHealth.DROPOUT);
+        assertThat(channels.get(1).getHealth()).isEqualTo(SensorHealth.NO_DATA);
+        assertThat(SensorFilterService.vehicleLoopStatus(channels)).isEqualTo("ERROR");
+        assertThat(SensorFilterService.pedestrianDetectionStatus(channels)).isEqualTo("INACTIVE");
+    }
+
+    @Test
+    void evictForgetsChannels() {
+        filter.filter(reading(10));
+        filter.evict(SIMULATION_ID);
+
+        assertThat(health().getHealth()).isEqualTo(SensorHealth.NO_DATA);
+        assertThat(health().getReadings()).isZero();
+    }
+
+    private SensorChannelHealth health() {
+        return filter.getHealth(SIMULATION_ID).get(0);
+    }
+
+    private static SensorReading reading(int vehiclesNorth) {
+        return SensorReading.builder().simulationId(SIMULATION_ID).vehiclesNorth(vehiclesNorth).build();
+    }
+}
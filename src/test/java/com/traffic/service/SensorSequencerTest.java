@@ -0,0 +1,153 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorReading;
+import com.traffic.dto.SensorSequencingStats;
+import com.traffic.model.LateDataPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SensorSequencerTest {
+
+    private static final String SIMULATION_ID = "sim-1";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    private TrafficProperties properties;
+    private SensorSequencer sequencer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TrafficProperties();
+        properties.getSensors().setReorderWindow(4);
+        sequencer = new SensorSequencer(properties);
+    }
+
+    @Test
+    void passesUnsequencedReadingsThrough() {
+        SensorReading reading = SensorReading.builder().simulationId(SIMULATION_ID).vehiclesNorth(3).build();
+
+        assertThat(sequencer.sequence(reading)).isSameAs(reading);
+        assertThat(sequencer.sequence(reading)).isSameAs(reading);
+    }
+
+    @Test
+    void dropsDuplicatesInsideWindow() {
+        assertThat(sequencer.sequence(reading("a", 5, 0, 10, null))).isNotNull();
+        assertThat(sequencer.sequence(reading("a", 4, 0, null, 9))).isNotNull();
+
+        assertThat(sequencer.sequence(reading("a", 5, 0, 10, null))).isNull();
+        assertThat(sequencer.sequence(reading("a", 4, 0, null, 9))).isNull();
+        assertThat(stats().getDuplicates()).isEqualTo(2);
+    }
+
+    @Test
+    void reorderedReadingOnlySetsCountsNoNewerReadingHas() {
+        sequencer.sequence(reading("a", 5, 1, 10, null));
+
+        SensorReading applied = sequencer.sequence(reading("a", 3, 0, 7, 4));
+
+        assertThat(applied.getVehiclesNorth()).isNull();
+        assertThat(applied.getVehiclesSouth()).isEqualTo(4);
+        assertThat(applied.getSequence()).isEqualTo(3L);
+        assertThat(stats().getReordered()).isEqualTo(1);
+    }
+
+    @Test
+    void fullySupersededReadingIsSkipped() {
+        sequencer.sequence(reading("a", 5, 1, 10, 2));
+
+        assertThat(sequencer.sequence(reading("a", 4, 0, 7, 4))).isNull();
+        assertThat(stats().getSuperseded()).isEqualTo(1);
+    }
+
+    @Test
+    void sourcesAreSequencedSeparately() {
+        assertThat(sequencer.sequence(reading("a", 5, 0, 10, null))).isNotNull();
+        assertThat(sequencer.sequence(reading("b", 5, 0, null, 3))).isNotNull();
+
+        assertThat(stats().getSources()).isEqualTo(2);
+        assertThat(stats().getAccepted()).isEqualTo(2);
+    }
+
+    @Test
+    void dropsLateReadingByDefault() {
+        sequencer.sequence(reading("a", 10, 5, 10, null));
+
+        assertThat(sequencer.sequence(reading("a", 2, 0, 7, 4))).isNull();
+        assertThat(stats().getLateDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void lateReadingWithNewerEventTimeRestartsSource() {
+        sequencer.sequence(reading("a", 1000, 5, 10, null));
+
+        SensorReading restarted = sequencer.sequence(reading("a", 1, 6, 2, null));
+
+        assertThat(restarted.getVehiclesNorth()).isEqualTo(2);
+        assertThat(stats().getRestarts()).isEqualTo(1);
+        assertThat(sequencer.sequence(reading("a", 2, 7, 3, null))).isNotNull();
+    }
+
+    @Test
+    void applyPolicyKeepsCountsNoNewerReadingSet() {
+        properties.getSensors().setLateDataPolicy(LateDataPolicy.APPLY);
+        sequencer.sequence(reading("a", 10, 5, 10, null));
+
+        SensorReading applied = sequencer.sequence(reading("a", 2, 0, 7, 4));
+
+        assertThat(applied.getVehiclesNorth()).isNull();
+        assertThat(applied.getVehiclesSouth()).isEqualTo(4);
+        assertThat(stats().getLateApplied()).isEqualTo(1);
+    }
+
+    @Test
+    void restartPolicyRestartsWindowAtLateSequence() {
+        properties.getSensors().setLateDataPolicy(LateDataPolicy.RESTART);
+        sequencer.sequence(reading("a", 10, 5, 10, null));
+
+        assertThat(sequencer.sequence(reading("a", 2, 0, 7, null)).getVehiclesNorth()).isEqualTo(7);
+        assertThat(sequencer.sequence(reading("a", 3, 0, 8, null))).isNotNull();
+        assertThat(stats().getRestarts()).isEqualTo(1);
+    }
+
+    @Test
+    void jumpBeyondSixtyFourClearsWindow() {
+        properties.getSensors().setReorderWindow(64);
+        sequencer.sequence(reading("a", 1, 0, 1, null));
+        sequencer.sequence(reading("a", 200, 1, 2, null));
+
+        // 199 behind the newest sequence, so late rather than a duplicate
+        assertThat(sequencer.sequence(reading("a", 1, 0, 1, null))).isNull();
+        assertThat(stats().getLateDropped()).isEqualTo(1);
+        assertThat(stats().getDuplicates()).isZero();
+    }
+
+    @Test
+    void evictForgetsSources() {
+        sequencer.sequence(reading("a", 5, 0, 10, null));
+        sequencer.evict(SIMULATION_ID);
+
+        assertThat(sequencer.sequence(reading("a", 5, 0, 10, null))).isNotNull();
+        assertThat(stats().getDuplicates()).isZero();
+    }
+
+    private SensorSequencingStats stats() {
+        return sequencer.getStats(SIMULATION_ID);
+    }
+
+    private static SensorReading reading(String sourceId, long sequence, int minutes,
+                                         Integer vehiclesNorth, Integer vehiclesSouth) {
+        return SensorReading.builder()
+                .simulationId(SIMULATION_ID)
+                .sourceId(sourceId)
+                .sequence(sequence)
+                .timestamp(START.plusMinutes(minutes))
+                .vehiclesNorth(vehiclesNorth)
+                .vehiclesSouth(vehiclesSouth)
+                .build();
+    }
+}
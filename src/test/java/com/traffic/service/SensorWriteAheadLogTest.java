@@ -0,0 +1,300 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorReading;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SensorWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private TrafficProperties properties;
+    private SensorWriteAheadLog log;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TrafficProperties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(directory.toString());
+        properties.getWal().setFlushIntervalMs(1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (log != null) log.close();
+    }
+
+    @Test
+    void replaysReadingsOfPreviousRunInOrder() throws IOException {
+        SensorReading first = reading("sim-1", "loop-a", 1L, 12, null);
+        SensorReading second = reading("sim-2", null, null, null, 0);
+        log = open();
+        log.await(log.append(List.of(first, second)));
+        log.close();
+
+        log = open();
+        List<SensorReading> replayed = replay(log);
+
+        assertThat(replayed).containsExactly(first, second);
+        assertThat(segments()).hasSize(1);
+        assertThat(log.getStats().getReplayedRecords()).isEqualTo(2);
+    }
+
+    @Test
+    void stopsAtTornTail() throws IOException {
+        log = open();
+        log.await(log.append(List.of(reading("sim-1", null, 1L, 5, null))));
+        log.await(log.append(List.of(reading("sim-1", null, 2L, 6, null))));
+        log.close();
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        log = open();
+        List<SensorReading> replayed = replay(log);
+
+        assertThat(replayed).extracting(SensorReading::getSequence).containsExactly(1L);
+        assertThat(log.getStats().getTruncatedBytes()).isPositive();
+    }
+
+    @Test
+    void stopsAtCorruptRecord() throws IOException {
+        log = open();
+        log.await(log.append(List.of(reading("sim-1", null, 1L, 5, null))));
+        log.await(log.append(List.of(reading("sim-1", null, 2L, 6, null))));
+        log.close();
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(segment, bytes);
+
+        log = open();
+
+        assertThat(replay(log)).extracting(SensorReading::getSequence).containsExactly(1L);
+    }
+
+    @Test
+    void dropsPartOfFailedWriteSoLaterRecordsReplay() throws IOException {
+        AtomicBoolean failNextWrite = new AtomicBoolean();
+        log = new SensorWriteAheadLog(properties) {
+            @Override
+            FileChannel openSegment(Path path) throws IOException {
+                return new FailingChannel(super.openSegment(path), failNextWrite);
+            }
+        };
+        log.open();
+        log.await(log.append(List.of(reading("sim-1", null, 1L, 5, null))));
+        failNextWrite.set(true);
+        assertThatThrownBy(() -> log.await(log.append(List.of(reading("sim-1", null, 2L, 6, null)))))
+                .isInstanceOf(IllegalStateException.class);
+        log.await(log.append(List.of(reading("sim-1", null, 3L, 7, null))));
+        log.close();
+
+        log = open();
+
+        assertThat(replay(log)).extracting(SensorReading::getSequence).containsExactly(1L, 3L);
+        assertThat(log.getStats().getTruncatedBytes()).isZero();
+    }
+
+    @Test
+    void checkpointsRolledSegmentOnceUnpinned() throws Exception {
+        properties.getWal().setSegmentBytes(1);
+        properties.getWal().setCheckpointDelayMs(0);
+        log = open();
+
+        long pin = log.pin();
+        log.await(log.append(List.of(reading("sim-1", null, 1L, 5, null))));
+        // Does not fit the first segment, which is rolled while still pinned
+        log.await(log.append(List.of(reading("sim-1", null, 2L, 6, null))));
+        Thread.sleep(300);
+        assertThat(segments()).hasSize(2);
+
+        log.unpin(pin);
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (log.getStats().getCheckpointedSegments() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(log.getStats().getCheckpointedSegments()).isEqualTo(1);
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void keepsSegmentsWhileDisabled() {
+        properties.getWal().setEnabled(false);
+        log = new SensorWriteAheadLog(properties);
+
+        assertThat(log.pin()).isZero();
+        assertThat(log.append(List.of(reading("sim-1", null, 1L, 5, null)))).isDone();
+    }
+
+    @Test
+    void rejectsIdsTooLongToFrame() {
+        assertThat(SensorWriteAheadLog.fitsRecord(null)).isTrue();
+        assertThat(SensorWriteAheadLog.fitsRecord("x".repeat(0xFFFE))).isTrue();
+        assertThat(SensorWriteAheadLog.fitsRecord("x".repeat(0xFFFF))).isFalse();
+        assertThat(SensorWriteAheadLog.fitsRecord("é".repeat(0x8000))).isFalse();
+    }
+
+    private SensorWriteAheadLog open() throws IOException {
+        SensorWriteAheadLog opened = new SensorWriteAheadLog(properties);
+        opened.open();
+        return opened;
+    }
+
+    private static List<SensorReading> replay(SensorWriteAheadLog log) {
+        List<SensorReading> replayed = new ArrayList<>();
+        log.replay(replayed::add);
+        return replayed;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    /** Writes half of the first pending buffer and then fails, once armed, like a disk that fills up. */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final AtomicBoolean failNextWrite;
+
+        FailingChannel(FileChannel delegate, AtomicBoolean failNextWrite) {
+            this.delegate = delegate;
+            this.failNextWrite = failNextWrite;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (failNextWrite.compareAndSet(true, false)) {
+                for (int i = offset; i < offset + length; i++) {
+                    if (!srcs[i].hasRemaining()) continue;
+                    ByteBuffer half = srcs[i].slice(srcs[i].position(), srcs[i].remaining() / 2);
+                    srcs[i].position(srcs[i].position() + delegate.write(half));
+                    break;
+                }
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return (int) write(new ByteBuffer[] {src}, 0, 1);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static SensorReading reading(String simulationId, String sourceId, Long sequence,
+                                         Integer vehiclesNorth, Integer pedestriansWest) {
+        return SensorReading.builder()
+                .simulationId(simulationId)
+                .sourceId(sourceId)
+                .sequence(sequence)
+                .timestamp(LocalDateTime.of(2024, 5, 1, 8, 30, 15, 250_000_000))
+                .vehiclesNorth(vehiclesNorth)
+                .pedestriansWest(pedestriansWest)
+                .build();
+    }
+}
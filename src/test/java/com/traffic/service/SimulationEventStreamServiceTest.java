@@ -0,0 +1,186 @@
+package com.traffic.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.RawJson;
+import com.traffic.dto.StateSnapshot;
+import com.traffic.dto.TrafficStateResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimulationEventStreamServiceTest {
+
+    private static final String SIMULATION = "sim";
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private SimulationEventStreamService service;
+    private StateDeltaEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        TrafficProperties properties = new TrafficProperties();
+        properties.getStreaming().setSseSenderThreads(2);
+        properties.getStreaming().setSseWriteTimeoutMs(200);
+        properties.getStreaming().setSseClientBuffer(1000);
+        service = new SimulationEventStreamService(new StateHistoryService(properties), properties);
+        encoder = new StateDeltaEncoder(new ObjectMapper(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void clientsThatStopReadingDoNotStallOtherStreams() throws Exception {
+        // As many stalled clients as sender threads: without a write deadline nothing else is ever sent
+        service.open(SIMULATION, null, new StalledEmitter());
+        service.open(SIMULATION, null, new StalledEmitter());
+        RecordingEmitter healthy = new RecordingEmitter();
+        service.open(SIMULATION, null, healthy);
+
+        int frames = 20;
+        for (int step = 1; step <= frames; step++) {
+            service.publish(encoder.encode(snapshot(step)));
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+
+        assertThat(healthy.awaitEvents(frames, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.getWriteTimeouts()).isEqualTo(2);
+        assertThat(service.getConnectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void stalledClientIsCompletedOnceItsWriteReturns() throws Exception {
+        StalledEmitter stalled = new StalledEmitter();
+        service.open(SIMULATION, null, stalled);
+        service.publish(encoder.encode(snapshot(1)));
+
+        assertThat(stalled.entered.await(2, TimeUnit.SECONDS)).isTrue();
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertThat(service.getConnectionCount()).isZero();
+
+        unblock.countDown();
+        assertThat(stalled.failed.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void overflowingClientIsCompletedOffThePublishingThread() throws Exception {
+        service.shutdown();
+        TrafficProperties properties = new TrafficProperties();
+        properties.getStreaming().setSseClientBuffer(2);
+        properties.getStreaming().setSseWriteTimeoutMs(60_000);
+        service = new SimulationEventStreamService(new StateHistoryService(properties), properties);
+        BlockingEmitter blocked = new BlockingEmitter();
+        service.open(SIMULATION, null, blocked);
+        service.publish(encoder.encode(snapshot(1)));
+        assertThat(blocked.entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+        // The send holds the emitter lock, so completing the emitter here would block the publisher
+        Thread publisher = new Thread(() -> {
+            for (int step = 2; step <= 10; step++) {
+                service.publish(encoder.encode(snapshot(step)));
+            }
+        });
+        publisher.start();
+        publisher.join(2000);
+        assertThat(publisher.isAlive()).isFalse();
+        assertThat(service.getSlowDisconnects()).isEqualTo(1);
+        assertThat(service.getConnectionCount()).isZero();
+        assertThat(blocked.completed.getCount()).isEqualTo(1);
+
+        unblock.countDown();
+        assertThat(blocked.completed.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void deletedSimulationCompletesIdleClients() throws Exception {
+        BlockingEmitter idle = new BlockingEmitter();
+        service.open(SIMULATION, null, idle);
+
+        service.close(SIMULATION);
+
+        assertThat(idle.completed.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.getConnectionCount()).isZero();
+    }
+
+    private StateSnapshot snapshot(long step) {
+        TrafficStateResponse state = TrafficStateResponse.builder().timeStep(step).vehiclesNorth((int) step).build();
+        return new StateSnapshot(SIMULATION, state, s -> RawJson.of(("{\"timeStep\":" + s.getTimeStep() + "}").getBytes()));
+    }
+
+    /** A client whose socket buffer is full: every send blocks, and interrupts do not help. */
+    private final class StalledEmitter extends SseEmitter {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch failed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            entered.countDown();
+            boolean interrupted = false;
+            while (unblock.getCount() > 0) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+
+        @Override
+        public synchronized void completeWithError(Throwable ex) {
+            failed.countDown();
+        }
+    }
+
+    /** Like {@link SseEmitter}, sends and completion share the emitter lock; here every send blocks. */
+    private final class BlockingEmitter extends SseEmitter {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) {
+            entered.countDown();
+            boolean interrupted = false;
+            while (unblock.getCount() > 0) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final AtomicInteger events = new AtomicInteger();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.incrementAndGet();
+        }
+
+        boolean awaitEvents(int count, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (events.get() < count && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            return events.get() >= count;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.AnalyticsBucket;
+import com.traffic.dto.StateAnalyticsResponse;
+import com.traffic.model.TrafficPhase;
+import com.traffic.repository.TrafficStateScanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StateAnalyticsServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 1, 8, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private TrafficSimulationService simulationService;
+    private StateAnalyticsService analytics;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE traffic_states (
+                    simulation_id VARCHAR(64), time_step BIGINT, timestamp TIMESTAMP,
+                    vehicles_north INT, vehicles_south INT, vehicles_east INT, vehicles_west INT,
+                    pedestrians_north INT, pedestrians_south INT, pedestrians_east INT, pedestrians_west INT,
+                    current_phase VARCHAR(16), phase1_density DOUBLE, phase2_density DOUBLE)
+                """);
+        simulationService = mock(TrafficSimulationService.class);
+        analytics = new StateAnalyticsService(new TrafficStateScanRepository(jdbcTemplate), simulationService,
+                new TrafficProperties());
+        // Steps 0-9: vehiclesNorth equals the step, PHASE_1 green for steps 0-5, phase 1 density 2x the step
+        for (int step = 0; step < 10; step++) {
+            insert("sim-a", step, step < 6 ? TrafficPhase.PHASE_1 : TrafficPhase.PHASE_2);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        analytics.shutdown();
+    }
+
+    @Test
+    void bucketsStepsFromZero() {
+        StateAnalyticsResponse response = analytics.analyze("sim-a", analytics.query(4, null, null, 95.0, null));
+
+        List<AnalyticsBucket> buckets = response.getBuckets();
+        assertThat(buckets).extracting(AnalyticsBucket::getFromStep).containsExactly(0L, 4L, 8L);
+        assertThat(buckets).extracting(AnalyticsBucket::getToStep).containsExactly(3L, 7L, 11L);
+        assertThat(buckets).extracting(AnalyticsBucket::getSamples).containsExactly(4L, 4L, 2L);
+
+        AnalyticsBucket first = buckets.get(0);
+        assertThat(first.getVehiclesNorth().getAvg()).isEqualTo(1.5);
+        assertThat(first.getVehiclesNorth().getMin()).isEqualTo(0.0);
+        assertThat(first.getVehiclesNorth().getMax()).isEqualTo(3.0);
+        assertThat(first.getVehiclesNorth().getPercentile()).isEqualTo(3.0);
+        assertThat(first.getFirstTimestamp()).isEqualTo(START);
+        assertThat(first.getLastTimestamp()).isEqualTo(START.plusSeconds(3));
+
+        AnalyticsBucket second = buckets.get(1);
+        assertThat(second.getPhases().get(TrafficPhase.PHASE_1).getGreenSteps()).isEqualTo(2);
+        assertThat(second.getPhases().get(TrafficPhase.PHASE_2).getGreenShare()).isEqualTo(0.5);
+    }
+
+    @Test
+    void totalCoversStepsSeen() {
+        StateAnalyticsResponse response = analytics.analyze("sim-a", analytics.query(4, null, null, 50.0, 10.0));
+
+        AnalyticsBucket total = response.getTotal();
+        assertThat(total.getFromStep()).isEqualTo(0);
+        assertThat(total.getToStep()).isEqualTo(9);
+        assertThat(total.getSamples()).isEqualTo(10);
+        assertThat(total.getVehiclesNorth().getAvg()).isEqualTo(4.5);
+        assertThat(total.getVehiclesNorth().getPercentile()).isEqualTo(4.0);
+        assertThat(total.getPhases().get(TrafficPhase.PHASE_1).getGreenSteps()).isEqualTo(6);
+        // Phase 1 density 12, 14, 16, 18 are above 10
+        assertThat(total.getPhases().get(TrafficPhase.PHASE_1).getStepsAboveThreshold()).isEqualTo(4);
+        assertThat(response.getComplete()).isTrue();
+    }
+
+    @Test
+    void rangeStartsBucketsAtFromStep() {
+        StateAnalyticsResponse response = analytics.analyze("sim-a", analytics.query(4, 2L, 8L, 95.0, null));
+
+        assertThat(response.getBuckets()).extracting(AnalyticsBucket::getFromStep).containsExactly(2L, 6L);
+        assertThat(response.getBuckets()).extracting(AnalyticsBucket::getSamples).containsExactly(4L, 3L);
+        assertThat(response.getTotal().getFromStep()).isEqualTo(2);
+        assertThat(response.getTotal().getToStep()).isEqualTo(8);
+    }
+
+    @Test
+    void emptyHistoryHasNoTotal() {
+        StateAnalyticsResponse response = analytics.analyze("sim-b", analytics.query(4, null, null, 95.0, null));
+
+        assertThat(response.getBuckets()).isEmpty();
+        assertThat(response.getTotal()).isNull();
+    }
+
+    @Test
+    void reusesResultUntilHistoryChanges() {
+        StateAnalyticsService.Query query = analytics.query(4, null, null, 95.0, null);
+
+        assertThat(analytics.analyze("sim-a", query).getCached()).isFalse();
+        assertThat(analytics.analyze("sim-a", query).getCached()).isTrue();
+
+        insert("sim-a", 10, TrafficPhase.PHASE_2);
+        StateAnalyticsResponse changed = analytics.analyze("sim-a", query);
+        assertThat(changed.getCached()).isFalse();
+        assertThat(changed.getTotal().getSamples()).isEqualTo(11);
+
+        analytics.evict("sim-a");
+        assertThat(analytics.analyze("sim-a", query).getCached()).isFalse();
+    }
+
+    @Test
+    void runningSimulationIsNeitherCompleteNorCached() {
+        when(simulationService.isRunning("sim-a")).thenReturn(true);
+        StateAnalyticsService.Query query = analytics.query(4, null, null, 95.0, null);
+
+        analytics.analyze("sim-a", query);
+        StateAnalyticsResponse response = analytics.analyze("sim-a", query);
+
+        assertThat(response.getComplete()).isFalse();
+        assertThat(response.getCached()).isFalse();
+    }
+
+    @Test
+    void analyzesSeveralSimulationsInOrder() {
+        insert("sim-b", 0, TrafficPhase.PHASE_1);
+
+        List<StateAnalyticsResponse> responses = analytics.analyzeAll(List.of("sim-b", "sim-a", "sim-b"),
+                analytics.query(4, null, null, 95.0, null));
+
+        assertThat(responses).extracting(StateAnalyticsResponse::getSimulationId).containsExactly("sim-b", "sim-a");
+    }
+
+    @Test
+    void rejectsInvalidQuery() {
+        assertThatThrownBy(() -> analytics.query(0, null, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> analytics.query(4, null, null, 0.0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> analytics.query(4, 5L, 4L, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(analytics.query(null, null, null, null, null).bucketSteps()).isEqualTo(60);
+    }
+
+    private void insert(String simulationId, int step, TrafficPhase green) {
+        jdbcTemplate.update("INSERT INTO traffic_states VALUES (?, ?, ?, ?, 0, 0, 0, 0, 0, 0, 0, ?, ?, 1.0)",
+                simulationId, step, Timestamp.valueOf(START.plusSeconds(step)), step, green.name(), 2.0 * step);
+    }
+}
@@ -0,0 +1,74 @@
+package com.traffic.service;
+
+import com.traffic.dto.TrafficStateResponse;
+import com.traffic.model.TrafficPhase;
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateBinaryEncoderTest {
+
+    @Test
+    void encodesEveryFieldAtItsDocumentedOffset() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 3, 1, 12, 30, 15);
+        TrafficStateResponse state = TrafficStateResponse.builder()
+                .timeStep(123_456_789_012L)
+                .timestamp(timestamp)
+                .vehiclesNorth(1).vehiclesSouth(2).vehiclesEast(3).vehiclesWest(4)
+                .pedestriansNorth(5).pedestriansSouth(6).pedestriansEast(7).pedestriansWest(8)
+                .currentPhase(TrafficPhase.PHASE_2)
+                .currentGreenTime(17)
+                .calculatedGreenTime(45)
+                .phase1Density(3.25)
+                .phase2Density(11.5)
+                .build();
+
+        ByteBuffer record = decode(StateBinaryEncoder.encode(state));
+
+        assertThat(record.get(0)).isEqualTo((byte) StateBinaryEncoder.VERSION);
+        assertThat(record.get(1)).isEqualTo((byte) 2);
+        assertThat(record.getShort(2)).isEqualTo((short) 17);
+        assertThat(record.getShort(4)).isEqualTo((short) 45);
+        assertThat(record.getShort(6)).isZero();
+        assertThat(record.getLong(8)).isEqualTo(123_456_789_012L);
+        assertThat(record.getLong(16)).isEqualTo(timestamp.toInstant(ZoneOffset.UTC).toEpochMilli());
+        for (int i = 0; i < 8; i++) {
+            assertThat(record.getInt(24 + 4 * i)).isEqualTo(i + 1);
+        }
+        assertThat(record.getFloat(56)).isEqualTo(3.25f);
+        assertThat(record.getFloat(60)).isEqualTo(11.5f);
+    }
+
+    @Test
+    void missingValuesUseSentinels() {
+        ByteBuffer record = decode(StateBinaryEncoder.encode(new TrafficStateResponse()));
+
+        assertThat(record.get(1)).isZero();
+        assertThat(record.getShort(2) & 0xFFFF).isEqualTo(0xFFFF);
+        assertThat(record.getShort(4) & 0xFFFF).isEqualTo(0xFFFF);
+        assertThat(record.getLong(8)).isEqualTo(-1L);
+        assertThat(record.getLong(16)).isEqualTo(Long.MIN_VALUE);
+        assertThat(record.getInt(24)).isEqualTo(-1);
+        assertThat(record.getFloat(56)).isNaN();
+        assertThat(record.getFloat(60)).isNaN();
+    }
+
+    @Test
+    void largeGreenTimesSaturateBelowMissingMarker() {
+        TrafficStateResponse state = TrafficStateResponse.builder().currentGreenTime(100_000).calculatedGreenTime(-5).build();
+
+        ByteBuffer record = decode(StateBinaryEncoder.encode(state));
+
+        assertThat(record.getShort(2) & 0xFFFF).isEqualTo(0xFFFE);
+        assertThat(record.getShort(4) & 0xFFFF).isEqualTo(0xFFFF);
+    }
+
+    private static ByteBuffer decode(byte[] bytes) {
+        assertThat(bytes).hasSize(StateBinaryEncoder.RECORD_SIZE);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,174 @@
+package com.traffic.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.RawJson;
+import com.traffic.dto.StateSnapshot;
+import com.traffic.dto.TrafficStateResponse;
+import com.traffic.model.TrafficPhase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateDeltaEncoderTest {
+
+    private static final Map<String, String> FIELDS = Map.ofEntries(
+            Map.entry("t", "timeStep"), Map.entry("ts", "timestamp"),
+            Map.entry("vn", "vehiclesNorth"), Map.entry("vs", "vehiclesSouth"),
+            Map.entry("ve", "vehiclesEast"), Map.entry("vw", "vehiclesWest"),
+            Map.entry("pn", "pedestriansNorth"), Map.entry("ps", "pedestriansSouth"),
+            Map.entry("pe", "pedestriansEast"), Map.entry("pw", "pedestriansWest"),
+            Map.entry("ph", "currentPhase"), Map.entry("g", "currentGreenTime"),
+            Map.entry("cg", "calculatedGreenTime"), Map.entry("d1", "phase1Density"),
+            Map.entry("d2", "phase2Density"));
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private StateDeltaEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        TrafficProperties properties = new TrafficProperties();
+        properties.getStreaming().setKeyframeInterval(3);
+        encoder = new StateDeltaEncoder(mapper, properties);
+    }
+
+    @Test
+    void firstFrameIsKeyframeWithFullState() throws Exception {
+        StreamFrame frame = encoder.encode(snapshot(state(0)));
+
+        JsonNode json = read(frame.getDelta());
+        assertThat(frame.isKeyframe()).isTrue();
+        assertThat(json.get("seq").asLong()).isEqualTo(1);
+        assertThat(json.get("keyframe")).isEqualTo(json(state(0)));
+    }
+
+    @Test
+    void deltasApplied_toKeyframe_reproduceEveryState() throws Exception {
+        ObjectNode client = null;
+        for (int step = 0; step < 10; step++) {
+            TrafficStateResponse state = state(step);
+            JsonNode frame = read(encoder.encode(snapshot(state)).getDelta());
+            assertThat(frame.get("seq").asLong()).isEqualTo(step + 1);
+            if (frame.has("keyframe")) {
+                client = (ObjectNode) frame.get("keyframe").deepCopy();
+            } else {
+                apply(client, frame.get("delta"));
+            }
+            assertThat(client).isEqualTo(json(state));
+        }
+    }
+
+    @Test
+    void keyframeIsSentAfterConfiguredInterval() {
+        boolean[] keyframes = new boolean[9];
+        for (int step = 0; step < keyframes.length; step++) {
+            keyframes[step] = encoder.encode(snapshot(state(step))).isKeyframe();
+        }
+        assertThat(keyframes).containsExactly(true, false, false, false, true, false, false, false, true);
+    }
+
+    @Test
+    void unchangedFieldsAreLeftOutOfDelta() throws Exception {
+        encoder.encode(snapshot(state(1)));
+        TrafficStateResponse next = state(1);
+        next.setTimeStep(2L);
+        next.setVehiclesEast(42);
+
+        JsonNode delta = read(encoder.encode(snapshot(next)).getDelta()).get("delta");
+
+        assertThat(iterable(delta.fieldNames())).containsExactlyInAnyOrder("t", "ve");
+        assertThat(delta.get("ve").asInt()).isEqualTo(42);
+    }
+
+    @Test
+    void deltaSinceOlderFrameNamesItsBase() throws Exception {
+        StreamFrame base = encoder.encode(snapshot(state(0)));
+        encoder.encode(snapshot(state(1)));
+        StreamFrame current = encoder.encode(snapshot(state(2)));
+
+        JsonNode frame = read(encoder.deltaSince(base, current));
+        ObjectNode client = (ObjectNode) json(state(0));
+        apply(client, frame.get("delta"));
+
+        assertThat(frame.get("base").asLong()).isEqualTo(base.getSeq());
+        assertThat(client).isEqualTo(json(state(2)));
+    }
+
+    @Test
+    void skippedFrameKeepsSequenceAndBuildsKeyframeOnDemand() throws Exception {
+        encoder.encode(snapshot(state(0)));
+        StreamFrame skipped = encoder.skip(snapshot(state(1)));
+        StreamFrame next = encoder.encode(snapshot(state(2)));
+
+        assertThat(skipped.getSeq()).isEqualTo(2);
+        assertThat(read(skipped.getKeyframe()).get("keyframe")).isEqualTo(json(state(1)));
+        assertThat(next.getSeq()).isEqualTo(3);
+        assertThat(encoder.resync("sim")).map(RawJson::toString).contains(next.getKeyframe().toString());
+    }
+
+    @Test
+    void evictRestartsStream() {
+        encoder.encode(snapshot(state(0)));
+        encoder.encode(snapshot(state(1)));
+        encoder.evict("sim");
+
+        StreamFrame frame = encoder.encode(snapshot(state(2)));
+
+        assertThat(frame.getSeq()).isEqualTo(1);
+        assertThat(frame.isKeyframe()).isTrue();
+    }
+
+    private StateSnapshot snapshot(TrafficStateResponse state) {
+        return new StateSnapshot("sim", state, s -> {
+            try {
+                return RawJson.of(mapper.writeValueAsBytes(s));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    // Parsed rather than converted, so numbers get the same node types as in decoded frames
+    private JsonNode json(TrafficStateResponse state) throws Exception {
+        return mapper.readTree(mapper.writeValueAsBytes(state));
+    }
+
+    private JsonNode read(RawJson json) throws Exception {
+        return mapper.readTree(json.getBytes());
+    }
+
+    private static void apply(ObjectNode state, JsonNode delta) {
+        delta.fields().forEachRemaining(field -> state.set(FIELDS.get(field.getKey()), field.getValue()));
+    }
+
+    private static <T> Iterable<T> iterable(Iterator<T> iterator) {
+        return () -> iterator;
+    }
+
+    private static TrafficStateResponse state(int step) {
+        return TrafficStateResponse.builder()
+                .timeStep((long) step)
+                .timestamp(LocalDateTime.of(2024, 1, 1, 8, 0).plusSeconds(step))
+                .vehiclesNorth(step % 4)
+                .vehiclesSouth(3)
+                .vehiclesEast(step * 2)
+                .vehiclesWest(1)
+                .pedestriansNorth(step % 2)
+                .pedestriansSouth(0)
+                .pedestriansEast(1)
+                .pedestriansWest(step % 3)
+                .currentPhase(step < 5 ? TrafficPhase.PHASE_1 : TrafficPhase.PHASE_2)
+                .currentGreenTime(step % 5)
+                .calculatedGreenTime(30)
+                .phase1Density(step * 0.5)
+                .phase2Density(2.0)
+                .build();
+    }
+}
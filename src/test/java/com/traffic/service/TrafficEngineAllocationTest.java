@@ -0,0 +1,103 @@
+package com.traffic.service;
+
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-thread allocated bytes ({@code ThreadMXBean}) of the step engine over warm loops, so a tuned hot path stays
+ * tuned. The decision math (adaptive green time, switch reason, arrivals and service) must not allocate at all; a
+ * full step returns a new entity, which brings its timestamp and boxed fields along, but nothing else. Each figure
+ * is the lowest of {@value #ROUNDS} rounds, so a stray compilation does not fail the test.
+ */
+@Tag("slow")
+class TrafficEngineAllocationTest {
+
+    // About 270 bytes per step on JDK 17: the state, its builder, LocalDateTime.now() and two boxed densities
+    private static final long STEP_BUDGET_BYTES = 300;
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+    private static final int ROUNDS = 3;
+
+    private static volatile long sink;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeEach
+    void setUp() {
+        TrafficEngineFixtures.quietEngineLogging();
+        assertThat(threads.isThreadAllocatedMemorySupported()).as("per-thread allocation is measurable").isTrue();
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void decisionMathDoesNotAllocate() {
+        TrafficEngineFixtures.presetConfigs().forEach((scenario, config) -> {
+            TrafficState[] inputs = TrafficEngineFixtures.trace(config, TrafficEngineFixtures.TRACE_STEPS).toArray(TrafficState[]::new);
+
+            assertThat(lowest(decide(inputs, config)))
+                    .as("bytes allocated by the %s decision math over %d iterations", scenario, MEASURED_ITERATIONS)
+                    .isZero();
+        });
+    }
+
+    @Test
+    void stepStaysWithinBudget() {
+        TrafficEngineFixtures.presetConfigs().forEach((scenario, config) -> {
+            TrafficState[] inputs = TrafficEngineFixtures.trace(config, TrafficEngineFixtures.TRACE_STEPS).toArray(TrafficState[]::new);
+
+            double stepBytes = (double) lowest(step(inputs, config)) / MEASURED_ITERATIONS;
+            assertThat(stepBytes).as("bytes per %s step", scenario).isLessThanOrEqualTo(STEP_BUDGET_BYTES);
+        });
+    }
+
+    // Warms the loop up, then returns the fewest bytes it allocated in any measured round
+    private long lowest(Loop loop) {
+        loop.run(WARMUP_ITERATIONS, new SplittableRandom(TrafficEngineFixtures.SEED));
+        long lowest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            SplittableRandom random = new SplittableRandom(TrafficEngineFixtures.SEED);
+            long before = threads.getCurrentThreadAllocatedBytes();
+            loop.run(MEASURED_ITERATIONS, random);
+            lowest = Math.min(lowest, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+        return lowest;
+    }
+
+    private static Loop decide(TrafficState[] inputs, SimulationConfig config) {
+        return (iterations, random) -> {
+            long result = 0;
+            for (int i = 0; i < iterations; i++) {
+                TrafficState state = inputs[i % inputs.length];
+                result += TrafficEngine.calculateAdaptiveGreenTime(state, config);
+                if (TrafficEngine.switchReason(state, config) != null) result++;
+                result += TrafficEngine.generateArrivals(config.getLambdaNorth(), random);
+                result += TrafficEngine.generateService(config.getSigmaNorth(), random);
+            }
+            sink = result;
+        };
+    }
+
+    private static Loop step(TrafficState[] inputs, SimulationConfig config) {
+        return (iterations, random) -> {
+            long result = 0;
+            for (int i = 0; i < iterations; i++) {
+                result += TrafficEngine.nextState(inputs[i % inputs.length], config, random).getCurrentGreenTime();
+            }
+            sink = result;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Loop {
+        void run(int iterations, SplittableRandom random);
+    }
+}
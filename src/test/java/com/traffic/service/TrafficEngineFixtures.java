@@ -0,0 +1,76 @@
+package com.traffic.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.traffic.controller.ScenarioController;
+import com.traffic.dto.ScenarioTemplate;
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficPhase;
+import com.traffic.model.TrafficScenario;
+import com.traffic.model.TrafficState;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded step-engine runs over every scenario preset, shared by the golden-trace and allocation tests and by
+ * {@code TrafficEngineBenchmark}, so that all of them exercise the same states.
+ */
+public final class TrafficEngineFixtures {
+
+    public static final long SEED = 42L;
+    static final int TRACE_STEPS = 300;
+
+    private TrafficEngineFixtures() {
+    }
+
+    /** Engine logging would allocate, and print, on every step. */
+    public static void quietEngineLogging() {
+        ((Logger) LoggerFactory.getLogger(TrafficEngine.class)).setLevel(Level.WARN);
+    }
+
+    /** Config per preset, by scenario name, in preset order. */
+    static Map<String, SimulationConfig> presetConfigs() {
+        Map<String, SimulationConfig> configs = new LinkedHashMap<>();
+        for (ScenarioTemplate preset : ScenarioController.PRESETS) {
+            configs.put(preset.getScenario().name(), SimulationConfig.fromTemplate(preset));
+        }
+        return configs;
+    }
+
+    public static SimulationConfig presetConfig(TrafficScenario scenario) {
+        return ScenarioController.PRESETS.stream()
+                .filter(preset -> preset.getScenario() == scenario)
+                .map(SimulationConfig::fromTemplate)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /** {@code steps} states stepped from a small fixed starting queue with the fixed seed. */
+    public static List<TrafficState> trace(SimulationConfig config, int steps) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        TrafficState state = TrafficState.builder()
+                .simulationId("trace")
+                .timeStep(0L)
+                .timestamp(LocalDateTime.of(2025, 6, 1, 8, 0))
+                .vehiclesNorth(5).vehiclesSouth(3).vehiclesEast(8).vehiclesWest(6)
+                .pedestriansNorth(2).pedestriansSouth(1).pedestriansEast(3).pedestriansWest(2)
+                .currentPhase(TrafficPhase.PHASE_1)
+                .currentGreenTime(0)
+                .calculatedGreenTime(config.getMinGreenTime())
+                .phase1Density(0.0)
+                .phase2Density(0.0)
+                .build();
+        List<TrafficState> trace = new ArrayList<>(steps);
+        for (int i = 0; i < steps; i++) {
+            state = TrafficEngine.nextState(state, config, random);
+            trace.add(state);
+        }
+        return trace;
+    }
+}
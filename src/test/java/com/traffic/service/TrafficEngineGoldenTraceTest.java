@@ -0,0 +1,98 @@
+package com.traffic.service;
+
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every scenario preset is stepped {@value TrafficEngineFixtures#TRACE_STEPS} times from a fixed state and seed,
+ * and each state must equal the stored reference, so a tuned or rewritten engine stays faithful. A change that is
+ * meant to alter the model regenerates the reference with {@code -Dgate.update-golden=true}, and the diff is reviewed.
+ */
+class TrafficEngineGoldenTraceTest {
+
+    private static final String GOLDEN_TRACE = "/golden/traffic-engine-trace.csv";
+    private static final Path GOLDEN_SOURCE = Path.of("src/test/resources/golden/traffic-engine-trace.csv");
+    private static final String HEADER = "scenario,timeStep,currentPhase,currentGreenTime,calculatedGreenTime,"
+            + "vehiclesNorth,vehiclesSouth,vehiclesEast,vehiclesWest,"
+            + "pedestriansNorth,pedestriansSouth,pedestriansEast,pedestriansWest,phase1Density,phase2Density";
+
+    @BeforeEach
+    void setUp() {
+        TrafficEngineFixtures.quietEngineLogging();
+    }
+
+    @Test
+    void presetsMatchGoldenTrace() throws IOException {
+        Map<String, List<String>> traces = new LinkedHashMap<>();
+        TrafficEngineFixtures.presetConfigs().forEach((scenario, config) -> traces.put(scenario, rows(scenario, config)));
+
+        if (Boolean.getBoolean("gate.update-golden")) {
+            writeGolden(traces);
+            return;
+        }
+        Map<String, List<String>> expected = readGolden();
+        assertThat(expected.keySet()).containsExactlyElementsOf(traces.keySet());
+        traces.forEach((scenario, rows) -> assertThat(rows)
+                .as("golden trace %s", scenario)
+                .containsExactlyElementsOf(expected.get(scenario)));
+    }
+
+    private static List<String> rows(String scenario, SimulationConfig config) {
+        List<String> rows = new ArrayList<>(TrafficEngineFixtures.TRACE_STEPS);
+        for (TrafficState state : TrafficEngineFixtures.trace(config, TrafficEngineFixtures.TRACE_STEPS)) {
+            rows.add(row(scenario, state));
+        }
+        return rows;
+    }
+
+    // Everything the model decides; the timestamp is wall-clock time and left out
+    private static String row(String scenario, TrafficState state) {
+        return String.join(",", scenario,
+                String.valueOf(state.getTimeStep()), String.valueOf(state.getCurrentPhase()),
+                String.valueOf(state.getCurrentGreenTime()), String.valueOf(state.getCalculatedGreenTime()),
+                String.valueOf(state.getVehiclesNorth()), String.valueOf(state.getVehiclesSouth()),
+                String.valueOf(state.getVehiclesEast()), String.valueOf(state.getVehiclesWest()),
+                String.valueOf(state.getPedestriansNorth()), String.valueOf(state.getPedestriansSouth()),
+                String.valueOf(state.getPedestriansEast()), String.valueOf(state.getPedestriansWest()),
+                String.valueOf(state.getPhase1Density()), String.valueOf(state.getPhase2Density()));
+    }
+
+    private static Map<String, List<String>> readGolden() throws IOException {
+        InputStream resource = TrafficEngineGoldenTraceTest.class.getResourceAsStream(GOLDEN_TRACE);
+        if (resource == null) throw new IOException("Missing golden trace " + GOLDEN_TRACE);
+        Map<String, List<String>> rows = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#") || line.equals(HEADER)) continue;
+                rows.computeIfAbsent(line.substring(0, line.indexOf(',')), scenario -> new ArrayList<>()).add(line);
+            }
+        }
+        return rows;
+    }
+
+    private static void writeGolden(Map<String, List<String>> traces) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Seeded TrafficEngine.nextState trace per scenario preset; see TrafficEngineGoldenTraceTest."
+                + " Regenerate only for intended model changes.");
+        lines.add(HEADER);
+        traces.values().forEach(lines::addAll);
+        Files.write(GOLDEN_SOURCE, lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.traffic.service;
+
+import com.traffic.config.TrafficProperties;
+import com.traffic.dto.SensorReading;
+import com.traffic.dto.SimulationRequest;
+import com.traffic.model.SimulationConfig;
+import com.traffic.model.TrafficPhase;
+import com.traffic.model.TrafficScenario;
+import com.traffic.model.TrafficState;
+import com.traffic.repository.PerformanceMetricsRepository;
+import com.traffic.repository.SimulationBatchRepository;
+import com.traffic.repository.SimulationConfigRepository;
+import com.traffic.repository.TrafficStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrafficSimulationServiceTest {
+
+    private static final String SIMULATION = "sim";
+
+    private final TrafficStateRepository stateRepository = mock(TrafficStateRepository.class);
+    private TrafficSimulationService service;
+
+    @BeforeEach
+    void setUp() {
+        TrafficProperties properties = new TrafficProperties();
+        properties.setSimulation(new TrafficProperties.SimulationConfig());
+        properties.getSimulation().setMailboxCapacity(2);
+        SimulationConfigRepository configRepository = mock(SimulationConfigRepository.class);
+        when(configRepository.findBySimulationId(SIMULATION)).thenReturn(Optional.of(config()));
+        when(stateRepository.findLatestBySimulationId(SIMULATION)).thenReturn(Optional.of(initialState()));
+        service = new TrafficSimulationService(stateRepository, configRepository,
+                mock(PerformanceMetricsRepository.class), mock(WebSocketService.class), mock(StateSnapshotService.class),
+                mock(PerformanceLeaderboardService.class), properties,
+                new SimulationMetrics(new SimpleMeterRegistry(), properties),
+                mock(PhaseSwitchJournalService.class), mock(SimulationBatchRepository.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stopSimulation(SIMULATION);
+    }
+
+    @Test
+    void sensorReadingsAreTakenWhileTheMailboxIsFull() {
+        service.startSimulation(SimulationRequest.builder()
+                .simulationId(SIMULATION).durationSeconds(60).timeStepMillis(1000).build());
+        verify(stateRepository, timeout(2000)).save(any(TrafficState.class));
+
+        // Between ticks nothing drains the mailbox
+        service.resumeSimulation(SIMULATION);
+        service.resumeSimulation(SIMULATION);
+        assertThatThrownBy(() -> service.resumeSimulation(SIMULATION)).hasMessageContaining("busy");
+
+        // An already sequenced reading has no retry; it must not be turned away
+        assertThat(service.submitSensorReading(SensorReading.builder()
+                .simulationId(SIMULATION).vehiclesNorth(17).build())).isTrue();
+
+        ArgumentCaptor<TrafficState> saved = ArgumentCaptor.forClass(TrafficState.class);
+        verify(stateRepository, timeout(3000).atLeast(2)).save(saved.capture());
+        List<TrafficState> states = saved.getAllValues();
+        // No arrivals or service, so the step keeps the count it was handed
+        assertThat(states.get(1).getVehiclesNorth()).isEqualTo(17);
+    }
+
+    private static SimulationConfig config() {
+        return SimulationConfig.builder()
+                .simulationId(SIMULATION)
+                .scenario(TrafficScenario.BALANCED)
+                .minGreenTime(10)
+                .maxGreenTime(60)
+                .yellowTime(3)
+                .redClearanceTime(2)
+                .pedestrianWeight(0.5)
+                .switchingThreshold(1.5)
+                .vehiclePerformanceWeight(0.7)
+                .pedestrianPerformanceWeight(0.3)
+                .build();
+    }
+
+    private static TrafficState initialState() {
+        return TrafficState.builder()
+                .simulationId(SIMULATION)
+                .timeStep(0L)
+                .timestamp(LocalDateTime.now())
+                .vehiclesNorth(2).vehiclesSouth(2).vehiclesEast(2).vehiclesWest(2)
+                .pedestriansNorth(0).pedestriansSouth(0).pedestriansEast(0).pedestriansWest(0)
+                .currentPhase(TrafficPhase.PHASE_1)
+                .currentGreenTime(0)
+                .calculatedGreenTime(10)
+                .phase1Density(4.0)
+                .phase2Density(4.0)
+                .build();
+    }
+}
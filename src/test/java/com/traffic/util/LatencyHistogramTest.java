@@ -0,0 +1,73 @@
+package com.traffic.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.count()).isZero();
+        assertThat(histogram.max()).isZero();
+        assertThat(histogram.percentile(99)).isZero();
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 8; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.count()).isEqualTo(8);
+        assertThat(histogram.percentile(50)).isEqualTo(3);
+        assertThat(histogram.percentile(100)).isEqualTo(7);
+    }
+
+    @Test
+    void percentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertBetween(histogram.percentile(50), 5_000_000, 5_000_000 * 1.125);
+        assertBetween(histogram.percentile(99), 9_900_000, 9_900_000 * 1.125);
+        assertThat(histogram.percentile(100)).isEqualTo(10_000_000);
+        assertThat(histogram.max()).isEqualTo(10_000_000);
+    }
+
+    @Test
+    void percentileNeverExceedsMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001);
+
+        assertThat(histogram.percentile(50)).isEqualTo(1_000_001);
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertThat(histogram.count()).isEqualTo(1);
+        assertThat(histogram.max()).isZero();
+        assertThat(histogram.percentile(100)).isZero();
+    }
+
+    @Test
+    void largestValueDoesNotOverflow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.percentile(100)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    private static void assertBetween(long actual, long lower, double upper) {
+        assertThat(actual).isGreaterThanOrEqualTo(lower);
+        assertThat((double) actual).isLessThanOrEqualTo(upper);
+    }
+}
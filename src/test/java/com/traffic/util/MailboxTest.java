@@ -0,0 +1,81 @@
+package com.traffic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailboxTest {
+
+    @Test
+    void drainsInPostingOrder() {
+        Mailbox<Integer> mailbox = new Mailbox<>(4);
+        mailbox.post(1);
+        mailbox.post(2);
+        mailbox.post(3);
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(mailbox.drain(drained::add, 10)).isEqualTo(3);
+        assertThat(drained).containsExactly(1, 2, 3);
+        assertThat(mailbox.size()).isZero();
+    }
+
+    @Test
+    void rejectsPostsOnceFull() {
+        Mailbox<Integer> mailbox = new Mailbox<>(2);
+
+        assertThat(mailbox.post(1)).isTrue();
+        assertThat(mailbox.post(2)).isTrue();
+        assertThat(mailbox.post(3)).isFalse();
+        assertThat(mailbox.size()).isEqualTo(2);
+
+        List<Integer> drained = new ArrayList<>();
+        mailbox.drain(drained::add, 10);
+        assertThat(drained).containsExactly(1, 2);
+        assertThat(mailbox.post(4)).isTrue();
+    }
+
+    @Test
+    void drainStopsAtLimit() {
+        Mailbox<Integer> mailbox = new Mailbox<>(8);
+        for (int i = 1; i <= 5; i++) {
+            mailbox.post(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(mailbox.drain(drained::add, 2)).isEqualTo(2);
+        assertThat(drained).containsExactly(1, 2);
+        assertThat(mailbox.size()).isEqualTo(3);
+
+        assertThat(mailbox.drain(drained::add, 10)).isEqualTo(3);
+        assertThat(drained).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void concurrentProducersNeverExceedCapacity() throws InterruptedException {
+        Mailbox<Integer> mailbox = new Mailbox<>(100);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    mailbox.post(i);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertThat(mailbox.size()).isEqualTo(100);
+        assertThat(mailbox.drain(message -> { }, Integer.MAX_VALUE)).isEqualTo(100);
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new Mailbox<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
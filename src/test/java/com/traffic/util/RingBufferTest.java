@@ -0,0 +1,47 @@
+package com.traffic.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+    @Test
+    void emptyBufferHasNoElements() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.latest()).isNull();
+        assertThat(buffer.toList()).isEmpty();
+    }
+
+    @Test
+    void keepsElementsOldestFirstUntilFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        buffer.add(1);
+        buffer.add(2);
+
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(buffer.latest()).isEqualTo(2);
+        assertThat(buffer.toList()).containsExactly(1, 2);
+    }
+
+    @Test
+    void overwritesOldestOnceFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        for (int i = 1; i <= 7; i++) {
+            buffer.add(i);
+        }
+
+        assertThat(buffer.size()).isEqualTo(3);
+        assertThat(buffer.capacity()).isEqualTo(3);
+        assertThat(buffer.latest()).isEqualTo(7);
+        assertThat(buffer.toList()).containsExactly(5, 6, 7);
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new RingBuffer<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}